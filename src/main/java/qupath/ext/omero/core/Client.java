@@ -10,6 +10,7 @@ import javafx.collections.ObservableSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import qupath.ext.omero.core.apis.ApisHandler;
+import qupath.ext.omero.core.apis.commonentities.shapes.Shape;
 import qupath.ext.omero.core.apis.json.repositoryentities.Server;
 import qupath.ext.omero.core.imageserver.OmeroImageServer;
 import qupath.ext.omero.core.pixelapis.PixelApi;
@@ -459,6 +460,89 @@ public class Client implements AutoCloseable {
                 .orElseThrow(() -> new IllegalArgumentException("The pixel API was not found"));
     }
 
+    /**
+     * Attempt to retrieve shapes of an image optionally belonging to a user.
+     * <p>
+     * If the {@link IceApi} of this client is {@link IceApi#isConnected() connected}, shapes are retrieved with it
+     * (see {@link IceApi#getShapes(long, long)}), and {@link ApisHandler#getShapes(long, long)} is used if this
+     * fails. Otherwise, {@link ApisHandler#getShapes(long, long)} is directly used.
+     * <p>
+     * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
+     * if the request failed for example).
+     *
+     * @param imageId the OMERO image ID
+     * @param userId the ID of the user that should own the shapes to retrieve. Can be negative or equal to 0 to get
+     *               all shapes of the image
+     * @return a CompletableFuture (that may complete exceptionally) with the list of shapes
+     */
+    public CompletableFuture<List<Shape>> getShapes(long imageId, long userId) {
+        IceApi iceApi = getPixelAPI(IceApi.class);
+
+        if (iceApi.isConnected()) {
+            return iceApi.getShapes(imageId, userId).exceptionallyCompose(error -> {
+                logger.debug("Cannot get shapes of image with ID {} with Ice. Using web API", imageId, error);
+                return apisHandler.getShapes(imageId, userId);
+            });
+        } else {
+            return apisHandler.getShapes(imageId, userId);
+        }
+    }
+
+    /**
+     * Attempt to retrieve shapes of an image located on a plane and optionally belonging to a user.
+     * <p>
+     * If the {@link IceApi} of this client is {@link IceApi#isConnected() connected}, shapes are retrieved with it
+     * (see {@link IceApi#getShapes(long, long, int, int)}), so that only the shapes of the plane are transferred,
+     * and {@link ApisHandler#getShapes(long, long, int, int)} is used if this fails. Otherwise,
+     * {@link ApisHandler#getShapes(long, long, int, int)} is directly used.
+     * <p>
+     * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
+     * if the request failed for example).
+     *
+     * @param imageId the OMERO image ID
+     * @param userId the ID of the user that should own the shapes to retrieve. Can be negative or equal to 0 to get
+     *               all shapes of the plane
+     * @param z the 0-based z-stack index of the plane containing the shapes to retrieve
+     * @param t the 0-based timepoint index of the plane containing the shapes to retrieve
+     * @return a CompletableFuture (that may complete exceptionally) with the list of shapes
+     */
+    public CompletableFuture<List<Shape>> getShapes(long imageId, long userId, int z, int t) {
+        IceApi iceApi = getPixelAPI(IceApi.class);
+
+        if (iceApi.isConnected()) {
+            return iceApi.getShapes(imageId, userId, z, t).exceptionallyCompose(error -> {
+                logger.debug("Cannot get shapes on plane z={} t={} of image with ID {} with Ice. Using web API", z, t, imageId, error);
+                return apisHandler.getShapes(imageId, userId, z, t);
+            });
+        } else {
+            return apisHandler.getShapes(imageId, userId, z, t);
+        }
+    }
+
+    /**
+     * Attempt to add shapes to an image.
+     * <p>
+     * If the {@link IceApi} of this client is {@link IceApi#isConnected() connected}, shapes are added with it
+     * (see {@link IceApi#addShapes(long, List)}). Otherwise, {@link ApisHandler#addShapes(long, List)} is used.
+     * There is no fallback if adding shapes with the Ice API fails, as some shapes may already have been added.
+     * <p>
+     * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
+     * if the request failed for example).
+     *
+     * @param imageId the OMERO image ID
+     * @param shapesToAdd the list of shapes to add
+     * @return a void CompletableFuture (that completes exceptionally if the operation failed)
+     */
+    public CompletableFuture<Void> addShapes(long imageId, List<? extends Shape> shapesToAdd) {
+        IceApi iceApi = getPixelAPI(IceApi.class);
+
+        if (iceApi.isConnected()) {
+            return iceApi.addShapes(imageId, shapesToAdd);
+        } else {
+            return apisHandler.addShapes(imageId, shapesToAdd);
+        }
+    }
+
     /**
      * Returns a set of image URIs of this server which have been opened in this session.
      * This class does not automatically detect if new images are opened, so this function
@@ -9,6 +9,10 @@ import org.slf4j.LoggerFactory;
 import qupath.lib.common.ThreadTools;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -20,12 +24,15 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -63,6 +70,7 @@ public class RequestSender implements AutoCloseable {
                                                             // a session cookie
             .executor(executorService)
             .build();
+    private record Page(List<JsonElement> elements, int limit, int totalCount) {}
 
     /**
      * A type of HTTP method request.
@@ -173,32 +181,42 @@ public class RequestSender implements AutoCloseable {
         String delimiter = uri.getQuery() == null || uri.getQuery().isEmpty() ? "?" : "&";
 
         return getAndConvert(uri, JsonObject.class).thenApply(response -> {
-            if (!response.has("meta") || !response.get("meta").isJsonObject()) {
-                throw new IllegalArgumentException(String.format("'meta' JSON object not found in %s", response));
-            }
-            JsonObject meta = response.getAsJsonObject("meta");
-
-            if (!response.has("data") || !response.get("data").isJsonArray()) {
-                throw new IllegalArgumentException(String.format("'data' JSON array not found in %s", response));
-            }
-            List<JsonElement> elements = response.getAsJsonArray("data").asList();
-
-            if (!meta.has("limit") || !meta.get("limit").isJsonPrimitive() || !meta.get("limit").getAsJsonPrimitive().isNumber()) {
-                throw new IllegalArgumentException(String.format("'limit' number not found in %s", meta));
-            }
-            if (!meta.has("totalCount") || !meta.get("totalCount").isJsonPrimitive() || !meta.get("totalCount").getAsJsonPrimitive().isNumber()) {
-                throw new IllegalArgumentException(String.format("'totalCount' number not found in %s", meta));
-            }
+            Page page = parsePage(response);
 
-            elements.addAll(readFollowingPages(
-                    uri + delimiter,
-                    meta.get("limit").getAsNumber().intValue(),
-                    meta.get("totalCount").getAsNumber().intValue()
-            ));
+            List<JsonElement> elements = page.elements();
+            elements.addAll(readFollowingPages(uri + delimiter, page.limit(), page.totalCount()));
             return elements;
         });
     }
 
+    /**
+     * Performs GET requests to the specified URI when the response is expected to be paginated, and provide
+     * each page of JSON elements to the provided consumer as soon as it is received.
+     * <p>
+     * Pages are requested one after the other, and the consumer is called with the pages in order, never concurrently.
+     * The request of the next page is sent before the consumer is called with the current page. If the returned
+     * CompletableFuture is cancelled, no more pages are requested.
+     * <p>
+     * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
+     * if a request, a conversion, or the consumer failed for example).
+     *
+     * @param uri the link of the request
+     * @param pageConsumer a function that will be called with the JSON elements of each page and the total number
+     *                     of elements of all pages
+     * @return a void CompletableFuture (that may complete exceptionally) that completes once all pages have been provided
+     * to the consumer
+     */
+    public CompletableFuture<Void> getPaginated(URI uri, BiConsumer<List<JsonElement>, Integer> pageConsumer) {
+        logger.debug("Streaming paginated response from {}", uri);
+
+        String delimiter = uri.getQuery() == null || uri.getQuery().isEmpty() ? "?" : "&";
+        CompletableFuture<Void> result = new CompletableFuture<>();
+
+        readPage(uri, uri + delimiter, 0, CompletableFuture.completedFuture(null), pageConsumer, result);
+
+        return result;
+    }
+
     /**
      * Performs a GET request to the specified URI and convert the response to an image.
      * <p>
@@ -229,6 +247,44 @@ public class RequestSender implements AutoCloseable {
                 });
     }
 
+    /**
+     * Performs a GET request to the specified URI and decode the response into an image provided by the caller.
+     * <p>
+     * Once the type of the image to decode is known, the provided function is called to get the image in which
+     * pixels should be decoded. This allows the caller to decode pixels directly into a buffer it owns, without
+     * intermediate copies. If the function returns null or if the image cannot be decoded into the provided image,
+     * a new image is created.
+     * <p>
+     * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
+     * if the request or the conversion failed for example).
+     *
+     * @param uri the link of the request
+     * @param destinationCreator a function that returns the image in which pixels should be decoded, or null to
+     *                           create a new image. It takes as parameter the raw type of the image to decode
+     * @return a CompletableFuture (that may complete exceptionally) with the HTTP response converted to an image. It
+     * may or may not be the image returned by the provided function
+     */
+    public CompletableFuture<BufferedImage> getImage(URI uri, Function<ImageTypeSpecifier, BufferedImage> destinationCreator) {
+        logger.debug("Sending GET request to get image of {} into provided image...", uri);
+
+        return httpClient
+                .sendAsync(getRequest(uri, RequestType.GET), HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((response, error) -> logResponse(uri, response, error))
+                .thenApply(response -> {
+                    try {
+                        BufferedImage image = decodeImage(response.body(), destinationCreator);
+
+                        if (image == null) {
+                            throw new IllegalArgumentException(String.format("Could not decode image from response to %s", uri));
+                        } else {
+                            return image;
+                        }
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+    }
+
     /**
      * Performs a GET request to the specified URI and convert the response to a list of JSON elements
      * using the provided member of the response.
@@ -409,6 +465,75 @@ public class RequestSender implements AutoCloseable {
         }
     }
 
+    private void readPage(
+            URI pageUri,
+            String uri,
+            int offset,
+            CompletableFuture<Void> previousPageConsumed,
+            BiConsumer<List<JsonElement>, Integer> pageConsumer,
+            CompletableFuture<Void> result
+    ) {
+        if (result.isDone()) {
+            logger.debug("Reading of pages of {} stopped. Not reading page {}", uri, pageUri);
+            return;
+        }
+
+        CompletableFuture<Page> pageRequest = getAndConvert(pageUri, JsonObject.class).thenApply(RequestSender::parsePage);
+
+        CompletableFuture<Void> pageConsumed = previousPageConsumed.thenCombine(pageRequest, (v, page) -> {
+            pageConsumer.accept(page.elements(), page.totalCount());
+
+            if (page.limit() <= 0 || offset + page.limit() >= page.totalCount()) {
+                result.complete(null);
+            }
+            return null;
+        });
+        pageConsumed.exceptionally(error -> {
+            result.completeExceptionally(error);
+            return null;
+        });
+
+        // The next page is requested while the current one is consumed
+        pageRequest.thenAccept(page -> {
+            int nextOffset = offset + page.limit();
+
+            if (page.limit() > 0 && nextOffset < page.totalCount()) {
+                readPage(
+                        URI.create(uri + "offset=" + nextOffset),
+                        uri,
+                        nextOffset,
+                        pageConsumed,
+                        pageConsumer,
+                        result
+                );
+            }
+        });
+    }
+
+    private static Page parsePage(JsonObject response) {
+        if (!response.has("meta") || !response.get("meta").isJsonObject()) {
+            throw new IllegalArgumentException(String.format("'meta' JSON object not found in %s", response));
+        }
+        JsonObject meta = response.getAsJsonObject("meta");
+
+        if (!response.has("data") || !response.get("data").isJsonArray()) {
+            throw new IllegalArgumentException(String.format("'data' JSON array not found in %s", response));
+        }
+
+        if (!meta.has("limit") || !meta.get("limit").isJsonPrimitive() || !meta.get("limit").getAsJsonPrimitive().isNumber()) {
+            throw new IllegalArgumentException(String.format("'limit' number not found in %s", meta));
+        }
+        if (!meta.has("totalCount") || !meta.get("totalCount").isJsonPrimitive() || !meta.get("totalCount").getAsJsonPrimitive().isNumber()) {
+            throw new IllegalArgumentException(String.format("'totalCount' number not found in %s", meta));
+        }
+
+        return new Page(
+                response.getAsJsonArray("data").asList(),
+                meta.get("limit").getAsNumber().intValue(),
+                meta.get("totalCount").getAsNumber().intValue()
+        );
+    }
+
     private List<JsonElement> readFollowingPages(String uri, int limit, int totalCount) {
         if (totalCount <= limit) {
             return List.of();
@@ -463,4 +588,38 @@ public class RequestSender implements AutoCloseable {
                 .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
                 .toString();
     }
+
+    private static BufferedImage decodeImage(byte[] bytes, Function<ImageTypeSpecifier, BufferedImage> destinationCreator) throws IOException {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+
+                ImageTypeSpecifier imageType = reader.getRawImageType(0);
+                BufferedImage destination = imageType == null ? null : destinationCreator.apply(imageType);
+                if (destination == null) {
+                    return reader.read(0);
+                }
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setDestination(destination);
+                try {
+                    return reader.read(0, param);
+                } catch (IOException | IllegalArgumentException e) {
+                    logger.debug("Cannot decode image into {}. Decoding into new image", destination, e);
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        try (InputStream targetStream = new ByteArrayInputStream(bytes)) {
+            return ImageIO.read(targetStream);
+        }
+    }
 }
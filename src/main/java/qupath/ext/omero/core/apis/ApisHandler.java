@@ -18,6 +18,8 @@ import qupath.ext.omero.core.apis.webgateway.WebGatewayApi;
 import qupath.ext.omero.core.apis.webclient.Namespace;
 import qupath.ext.omero.core.apis.webclient.SimpleServerEntity;
 import qupath.ext.omero.core.apis.commonentities.ChannelSettings;
+import qupath.ext.omero.core.apis.commonentities.SimpleEntity;
+import qupath.ext.omero.core.apis.json.permissions.Experimenter;
 import qupath.ext.omero.core.apis.json.permissions.ExperimenterGroup;
 import qupath.ext.omero.core.apis.json.repositoryentities.serverentities.Dataset;
 import qupath.ext.omero.core.apis.json.repositoryentities.serverentities.Image;
@@ -30,14 +32,17 @@ import qupath.ext.omero.core.apis.json.repositoryentities.serverentities.Well;
 import qupath.ext.omero.core.apis.webclient.search.SearchQuery;
 import qupath.ext.omero.core.apis.webclient.search.SearchResultWithParentInfo;
 import qupath.ext.omero.core.apis.commonentities.shapes.Shape;
+import qupath.ext.omero.core.apis.commonentities.shapes.ShapesDifference;
 import qupath.lib.common.ThreadTools;
 import qupath.lib.images.servers.ImageServerMetadata;
 import qupath.lib.images.servers.PixelType;
 import qupath.lib.images.servers.TileRequest;
 
+import javax.imageio.ImageTypeSpecifier;
 import java.awt.image.BufferedImage;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -47,6 +52,9 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /**
@@ -61,6 +69,7 @@ public class ApisHandler implements AutoCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(ApisHandler.class);
     private static final int THUMBNAIL_SIZE = 256;
+    private static final int MAX_NUMBER_OF_CONCURRENT_CHILD_REQUESTS = 8;
     private static final Map<String, PixelType> PIXEL_TYPE_MAP = Map.of(
             "uint8", PixelType.UINT8,
             "int8", PixelType.INT8,
@@ -307,6 +316,9 @@ public class ApisHandler implements AutoCloseable {
      *     <li>If the entity is a screen, the URIs of the child images of each well contained in the child plates of the screen are returned.</li>
      *     <li>Else, an error is returned.</li>
      * </ul>
+     * Children entities are explored concurrently, with a bounded number of requests running at the same time
+     * for the whole call (and not for each parent entity).
+     * <p>
      * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
      * if the request or the conversion failed for example).
      *
@@ -316,17 +328,23 @@ public class ApisHandler implements AutoCloseable {
     public CompletableFuture<List<URI>> getImageUrisFromEntityURI(URI entityUri) {
         logger.debug("Finding image URIs indicated by {}...", entityUri);
 
+        // All requests needed to explore the entity and its descendants share the same limit
+        RequestLimiter requestLimiter = new RequestLimiter(MAX_NUMBER_OF_CONCURRENT_CHILD_REQUESTS, executorService);
         return parseEntity(entityUri).map(entity -> switch (entity.entityType()) {
-            case PROJECT -> getImageUrisOfProject(entity.id());
-            case DATASET -> getImageUrisOfDataset(entity.id());
+            case PROJECT -> getImageUrisOfProject(entity.id(), requestLimiter);
+            case DATASET -> getImageUrisOfDataset(entity.id(), requestLimiter);
             case IMAGE -> CompletableFuture.completedFuture(List.of(entityUri));
-            case SCREEN -> getImageUrisOfScreen(entity.id());
-            case PLATE -> getImageUrisOfPlate(entity.id());
-            case PLATE_ACQUISITION -> getImageUrisOfPlateAcquisition(entity.id());
-            case WELL -> getImageUrisOfWell(entity.id(), -1);
+            case SCREEN -> getImageUrisOfScreen(entity.id(), requestLimiter);
+            case PLATE -> getImageUrisOfPlate(entity.id(), requestLimiter);
+            case PLATE_ACQUISITION -> getImageUrisOfPlateAcquisition(entity.id(), requestLimiter);
+            case WELL -> getImageUrisOfWell(entity.id(), -1, requestLimiter);
         }).orElse(CompletableFuture.failedFuture(new IllegalArgumentException(
                 String.format("The provided URI %s does not represent a project, dataset, image, well, plate acquisition, plate, or screen", entityUri)
-        )));
+        ))).whenComplete((uris, error) -> {
+            if (error != null) {
+                requestLimiter.cancelPendingRequests();
+            }
+        });
     }
 
     /**
@@ -336,6 +354,13 @@ public class ApisHandler implements AutoCloseable {
         return requestSender.getImage(uri);
     }
 
+    /**
+     * See {@link RequestSender#getImage(URI, Function)}.
+     */
+    public CompletableFuture<BufferedImage> getImage(URI uri, Function<ImageTypeSpecifier, BufferedImage> destinationCreator) {
+        return requestSender.getImage(uri, destinationCreator);
+    }
+
     /**
      * See {@link WebclientApi#getEntityUri(SimpleServerEntity)}.
      */
@@ -413,6 +438,22 @@ public class ApisHandler implements AutoCloseable {
         return jsonApi.getImage(imageId);
     }
 
+    /**
+     * Get provisional metadata of an image from the metadata of the image stored by a previous session, even if it
+     * is outdated (see {@link WebGatewayApi#getStoredImageMetadata(long)}), or else from the image information already
+     * retrieved by the JSON API (for example when listing the images of a dataset or a plate). This doesn't send any
+     * request. See {@link Image#createProvisionalMetadata()} for the limitations of the metadata built from the JSON API
+     * (in particular, it only has one resolution level).
+     *
+     * @param imageId the ID of the image
+     * @return provisional metadata of the image, or an empty Optional if the image was not already retrieved
+     * or if provisional metadata cannot be created from it
+     */
+    public Optional<ImageServerMetadata> getProvisionalImageMetadata(long imageId) {
+        return webGatewayApi.getStoredImageMetadata(imageId)
+                .or(() -> jsonApi.getCachedImage(imageId).flatMap(Image::createProvisionalMetadata));
+    }
+
     /**
      * See {@link JsonApi#getOrphanedImages(long, long)}.
      */
@@ -532,17 +573,21 @@ public class ApisHandler implements AutoCloseable {
     }
 
     /**
-     * See {@link WebclientApi#changeImageName(long, String)}.
+     * See {@link WebclientApi#changeImageName(long, String)}. The metadata of the image is invalidated
+     * if the operation succeeds (see {@link WebGatewayApi#invalidateImageMetadata(long)}).
      */
     public CompletableFuture<Void> changeImageName(long imageId, String imageName) {
-        return webclientApi.changeImageName(imageId, imageName);
+        return webclientApi.changeImageName(imageId, imageName)
+                .thenRun(() -> webGatewayApi.invalidateImageMetadata(imageId));
     }
 
     /**
-     * See {@link WebclientApi#changeChannelNames(long, List)}.
+     * See {@link WebclientApi#changeChannelNames(long, List)}. The metadata of the image is invalidated
+     * if the operation succeeds (see {@link WebGatewayApi#invalidateImageMetadata(long)}).
      */
     public CompletableFuture<Void> changeChannelNames(long imageId, List<String> channelsName) {
-        return webclientApi.changeChannelNames(imageId, channelsName);
+        return webclientApi.changeChannelNames(imageId, channelsName)
+                .thenRun(() -> webGatewayApi.invalidateImageMetadata(imageId));
     }
 
     /**
@@ -605,6 +650,21 @@ public class ApisHandler implements AutoCloseable {
         return webGatewayApi.readTile(id, tileRequest, preferredTileWidth, preferredTileHeight, quality);
     }
 
+    /**
+     * See {@link WebGatewayApi#readCompositeTile(long, TileRequest, int, int, double, List, List)}.
+     */
+    public CompletableFuture<BufferedImage> readCompositeTile(
+            long id,
+            TileRequest tileRequest,
+            int preferredTileWidth,
+            int preferredTileHeight,
+            double quality,
+            List<Integer> channels,
+            List<ChannelSettings> channelSettings
+    ) {
+        return webGatewayApi.readCompositeTile(id, tileRequest, preferredTileWidth, preferredTileHeight, quality, channels, channelSettings);
+    }
+
     /**
      * See {@link WebGatewayApi#changeChannelColors(long, List, List)}.
      */
@@ -636,6 +696,73 @@ public class ApisHandler implements AutoCloseable {
         return jsonApi.getShapes(imageId, userId);
     }
 
+    /**
+     * See {@link JsonApi#getShapes(long, long, DoubleConsumer)}.
+     */
+    public CompletableFuture<List<Shape>> getShapes(long imageId, long userId, DoubleConsumer progressConsumer) {
+        return jsonApi.getShapes(imageId, userId, progressConsumer);
+    }
+
+    /**
+     * See {@link JsonApi#getShapes(long, long, int, int)}.
+     */
+    public CompletableFuture<List<Shape>> getShapes(long imageId, long userId, int z, int t) {
+        return jsonApi.getShapes(imageId, userId, z, t);
+    }
+
+    /**
+     * Attempt to retrieve the number of ROIs of an image owned by each member of the group of the image.
+     * <p>
+     * This doesn't download any ROI (see {@link JsonApi#getNumberOfRois(long, long)}). The ROIs of the members of
+     * the group are counted concurrently, with a bounded number of requests running at the same time.
+     * <p>
+     * As ROIs can be owned by experimenters that are not members of the group of the image (for example
+     * administrators or former members), the total number of ROIs of the image is also retrieved, and associated
+     * with {@link Experimenter#getAllExperimenters()} (whose ID can be used to retrieve the shapes of all owners,
+     * see {@link #getShapes(long, long)}).
+     * <p>
+     * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
+     * if a request failed for example).
+     *
+     * @param imageId the OMERO image ID
+     * @return a CompletableFuture (that may complete exceptionally) with the ID and the full name of each member of the
+     * group of the image owning at least one ROI of the image, associated with the number of ROIs they own. If the image
+     * has at least one ROI, the map also contains the ID and the full name of {@link Experimenter#getAllExperimenters()}
+     * (as its first entry) associated with the total number of ROIs of the image. The map is empty if the image has no ROI
+     */
+    public CompletableFuture<Map<SimpleEntity, Integer>> getNumberOfRoisByOwner(long imageId) {
+        logger.debug("Getting number of ROIs by owner of image with ID {}", imageId);
+
+        RequestLimiter requestLimiter = new RequestLimiter(MAX_NUMBER_OF_CONCURRENT_CHILD_REQUESTS, executorService);
+        CompletableFuture<Integer> totalNumberOfRoisRequest = jsonApi.getNumberOfRois(imageId, -1);
+        CompletableFuture<List<Map.Entry<SimpleEntity, Integer>>> numberOfRoisOfMembersRequest = jsonApi.getImage(imageId)
+                .thenCompose(image -> jsonApi.getGroupMembers(image.getGroupId()))
+                .thenCompose(members -> ApisHandler.<Experimenter, Map.Entry<SimpleEntity, Integer>>flatMap(
+                        members,
+                        member -> requestLimiter.submit(() -> jsonApi.getNumberOfRois(imageId, member.getId())).thenApply(numberOfRois -> numberOfRois > 0 ?
+                                List.of(Map.entry(new SimpleEntity(member.getId(), member.getFullName()), numberOfRois)) :
+                                List.of()
+                        )
+                ));
+
+        return totalNumberOfRoisRequest.thenCombine(numberOfRoisOfMembersRequest, (totalNumberOfRois, numberOfRoisOfMembers) -> {
+            Map<SimpleEntity, Integer> numberOfRoisByOwner = new LinkedHashMap<>();
+
+            if (totalNumberOfRois > 0) {
+                numberOfRoisByOwner.put(
+                        new SimpleEntity(Experimenter.getAllExperimenters().getId(), Experimenter.getAllExperimenters().getFullName()),
+                        totalNumberOfRois
+                );
+            }
+            for (Map.Entry<SimpleEntity, Integer> numberOfRoisOfMember: numberOfRoisOfMembers) {
+                numberOfRoisByOwner.put(numberOfRoisOfMember.getKey(), numberOfRoisOfMember.getValue());
+            }
+            logger.debug("Got number of ROIs by owner {} of image with ID {}", numberOfRoisByOwner, imageId);
+
+            return numberOfRoisByOwner;
+        });
+    }
+
     /**
      * See {@link JsonApi#reLogin()}.
      */
@@ -646,6 +773,9 @@ public class ApisHandler implements AutoCloseable {
     /**
      * Delete all shapes of the provided image.
      * <p>
+     * Only the IDs of the shapes to delete are retrieved (see {@link JsonApi#getShapeIds(long, long)}), and the shapes
+     * of each user are retrieved and deleted concurrently, in batches (see {@link IViewerApi#deleteRois(long, Map)}).
+     * <p>
      * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
      * if the request failed for example).
      *
@@ -657,18 +787,57 @@ public class ApisHandler implements AutoCloseable {
     public CompletableFuture<Void> deleteShapes(long imageId, List<Long> userIds) {
         logger.debug("Deleting shapes of image with ID {} belonging to users with ID {}", imageId, userIds);
 
-        return CompletableFuture.supplyAsync(
-                () -> userIds.stream()
-                        .map(userId -> getShapes(imageId, userId))
-                        .map(CompletableFuture::join)
-                        .flatMap(List::stream)
-                        .distinct()
-                        .toList(),
+        // Retrieving all shapes at once avoids deleting the same shapes several times
+        List<Long> ownerIds = userIds.stream().anyMatch(userId -> userId <= 0) ? List.of(-1L) : userIds.stream().distinct().toList();
+
+        return CompletableFuture.allOf(ownerIds.stream()
+                .map(ownerId -> jsonApi.getShapeIds(imageId, ownerId).thenCompose(shapeIdsByRoiId -> {
+                    logger.debug("Got {} ROIs belonging to user with ID {} for image with ID {}. Deleting them now", shapeIdsByRoiId.size(), ownerId, imageId);
+                    return iViewerApi.deleteRois(imageId, shapeIdsByRoiId);
+                }))
+                .toArray(CompletableFuture[]::new)
+        );
+    }
+
+    /**
+     * Make the shapes of the provided image owned by the provided users match the provided shapes.
+     * <p>
+     * Existing shapes are matched with the provided shapes using the UUID of the path object they belong to
+     * (see {@link ShapesDifference#compute(List, List)}), so that only new, changed, and removed shapes are sent
+     * to the server. Existing shapes not owned by the provided users are left untouched.
+     * <p>
+     * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
+     * if the request failed for example).
+     *
+     * @param imageId the ID of the image containing the shapes to synchronize
+     * @param shapes the shapes the image should have
+     * @param userIds the list of IDs of the users owning the existing shapes that can be modified or deleted. If one
+     *                provided ID is less than or equal to 0, all shapes of the provided image can be modified or deleted
+     * @return a void CompletableFuture (that completes exceptionally if the operation failed)
+     */
+    public CompletableFuture<Void> synchronizeShapes(long imageId, List<? extends Shape> shapes, List<Long> userIds) {
+        logger.debug("Synchronizing {} shapes with shapes of image with ID {} belonging to users with ID {}", shapes.size(), imageId, userIds);
+
+        List<CompletableFuture<List<Shape>>> existingShapesRequests = userIds.stream()
+                .map(userId -> getShapes(imageId, userId))
+                .toList();
+
+        return CompletableFuture.allOf(existingShapesRequests.toArray(CompletableFuture[]::new)).thenApplyAsync(
+                v -> {
+                    // The same shape can be returned several times if an ID less than or equal to 0 was provided
+                    List<Shape> existingShapes = existingShapesRequests.stream()
+                            .map(CompletableFuture::join)
+                            .flatMap(List::stream)
+                            .collect(Collectors.toMap(Shape::getOldId, Function.identity(), (shape1, shape2) -> shape1, LinkedHashMap::new))
+                            .values()
+                            .stream()
+                            .toList();
+                    logger.debug("Got {} existing shapes of image with ID {}. Computing difference with the {} provided shapes", existingShapes.size(), imageId, shapes.size());
+
+                    return ShapesDifference.compute(shapes, existingShapes);
+                },
                 executorService
-        ).thenCompose(shapes -> {
-            logger.debug("Got shapes {} belonging to users with ID {} for image with ID {}. Deleting them now", shapes, userIds, imageId);
-            return iViewerApi.deleteShapes(imageId, shapes);
-        });
+        ).thenCompose(difference -> iViewerApi.updateShapes(imageId, difference));
     }
 
     /**
@@ -699,25 +868,20 @@ public class ApisHandler implements AutoCloseable {
         return webclientApi.deleteAttachments(entity, experimenterIds);
     }
 
-    private CompletableFuture<List<URI>> getImageUrisOfProject(long projectId) {
+    private CompletableFuture<List<URI>> getImageUrisOfProject(long projectId, RequestLimiter requestLimiter) {
         logger.debug("Finding image URIs contained in project with ID {}", projectId);
 
-        return getDatasets(projectId, -1, -1).thenApply(datasets -> {
+        return requestLimiter.submit(() -> getDatasets(projectId, -1, -1)).thenCompose(datasets -> {
             logger.debug("Found datasets {} belonging to project with ID {}. Now retrieving image URIs of those datasets", datasets, projectId);
 
-            return datasets.stream()
-                    .map(dataset -> getImageUrisOfDataset(dataset.getId()))
-                    .map(CompletableFuture::join)
-                    .flatMap(List::stream)
-                    .distinct()
-                    .toList();
+            return flatMap(datasets, dataset -> getImageUrisOfDataset(dataset.getId(), requestLimiter));
         });
     }
 
-    private CompletableFuture<List<URI>> getImageUrisOfDataset(long datasetId) {
+    private CompletableFuture<List<URI>> getImageUrisOfDataset(long datasetId, RequestLimiter requestLimiter) {
         logger.debug("Finding image URIs contained in dataset with ID {}", datasetId);
 
-        return getImages(datasetId, -1, -1).thenApply(images -> {
+        return requestLimiter.submit(() -> getImages(datasetId, -1, -1)).thenApply(images -> {
             logger.debug("Found images {} belonging to dataset with ID {}. Now creating image URIs of them", images, datasetId);
 
             return images.stream()
@@ -729,47 +893,30 @@ public class ApisHandler implements AutoCloseable {
         });
     }
 
-    private CompletableFuture<List<URI>> getImageUrisOfScreen(long screenId) {
+    private CompletableFuture<List<URI>> getImageUrisOfScreen(long screenId, RequestLimiter requestLimiter) {
         logger.debug("Finding image URIs contained in screen with ID {}", screenId);
 
-        return getPlates(screenId, -1, -1).thenApplyAsync(
-                plates -> {
-                    logger.debug("Found plates {} belonging to screen with ID {}. Now finding image URIs of them", plates, screenId);
+        return requestLimiter.submit(() -> getPlates(screenId, -1, -1)).thenCompose(plates -> {
+            logger.debug("Found plates {} belonging to screen with ID {}. Now finding image URIs of them", plates, screenId);
 
-                    return plates.stream()
-                            .map(ServerEntity::getId)
-                            .map(this::getImageUrisOfPlate)
-                            .map(CompletableFuture::join)
-                            .flatMap(List::stream)
-                            .distinct()
-                            .toList();
-                },
-                executorService
-        );
+            return flatMap(plates, plate -> getImageUrisOfPlate(plate.getId(), requestLimiter));
+        });
     }
 
-    private CompletableFuture<List<URI>> getImageUrisOfPlate(long plateId) {
+    private CompletableFuture<List<URI>> getImageUrisOfPlate(long plateId, RequestLimiter requestLimiter) {
         logger.debug("Finding image URIs contained in plate with ID {}", plateId);
 
-        return getWellsFromPlate(plateId, -1, -1).thenApplyAsync(
-                wells -> {
-                    logger.debug("Found wells {} belonging to plate with ID {}. Now finding image URIs of them", wells, plateId);
+        return requestLimiter.submit(() -> getWellsFromPlate(plateId, -1, -1)).thenApply(wells -> {
+            logger.debug("Found wells {} belonging to plate with ID {}. Now finding image URIs of them", wells, plateId);
 
-                    return wells.stream()
-                            .map(ServerEntity::getId)
-                            .map(wellId -> getImageUrisOfWell(wellId, -1))
-                            .map(CompletableFuture::join)
-                            .flatMap(List::stream)
-                            .distinct()
-                            .toList();
-                },
-                executorService);
+            return getImageUrisOfWells(wells, -1);
+        });
     }
 
-    private CompletableFuture<List<URI>> getImageUrisOfPlateAcquisition(long plateAcquisitionId) {
+    private CompletableFuture<List<URI>> getImageUrisOfPlateAcquisition(long plateAcquisitionId, RequestLimiter requestLimiter) {
         logger.debug("Finding image URIs contained in plate acquisition with ID {}", plateAcquisitionId);
 
-        return jsonApi.getPlateAcquisition(plateAcquisitionId).thenApply(plateAcquisition -> {
+        return requestLimiter.submit(() -> jsonApi.getPlateAcquisition(plateAcquisitionId)).thenCompose(plateAcquisition -> {
             int minWellSampleIndex = plateAcquisition.getMinWellSampleIndex().orElseThrow(() -> new NoSuchElementException(String.format(
                     "No min well sample index found in %s",
                     plateAcquisition
@@ -785,34 +932,78 @@ public class ApisHandler implements AutoCloseable {
                     maxWellSampleIndex
             );
 
-            return IntStream.range(minWellSampleIndex, maxWellSampleIndex+1)
-                    .mapToObj(i -> getWellsFromPlateAcquisition(plateAcquisitionId, -1, -1, i))
-                    .map(CompletableFuture::join)
-                    .flatMap(List::stream)
-                    .map(ServerEntity::getId)
-                    .map(wellId -> getImageUrisOfWell(wellId, plateAcquisitionId))
-                    .map(CompletableFuture::join)
-                    .flatMap(List::stream)
-                    .distinct()
-                    .toList();
+            return flatMap(
+                    IntStream.range(minWellSampleIndex, maxWellSampleIndex+1).boxed().toList(),
+                    wellSampleIndex -> requestLimiter.submit(() -> getWellsFromPlateAcquisition(plateAcquisitionId, -1, -1, wellSampleIndex))
+            );
+        }).thenApply(wells -> {
+            logger.debug("Found wells {} belonging to plate acquisition with ID {}. Now finding image URIs of them", wells, plateAcquisitionId);
+
+            return getImageUrisOfWells(wells, plateAcquisitionId);
         });
     }
 
-    private CompletableFuture<List<URI>> getImageUrisOfWell(long wellId, long plateAcquisitionOwnerId) {
+    private CompletableFuture<List<URI>> getImageUrisOfWell(long wellId, long plateAcquisitionOwnerId, RequestLimiter requestLimiter) {
         logger.debug("Finding image URIs contained in well with ID {} and belonging to plate acquisition with ID {}", wellId, plateAcquisitionOwnerId);
 
-        return getWell(wellId).thenApply(well -> {
+        return requestLimiter.submit(() -> getWell(wellId)).thenApply(well -> {
             logger.debug("Got well {}. Now getting image URIs of it", well);
 
-            return well.getImageIds(plateAcquisitionOwnerId).stream()
-                    .map(id -> new SimpleServerEntity(EntityType.IMAGE, id))
-                    .map(this::getEntityUri)
-                    .map(URI::create)
-                    .distinct()
-                    .toList();
+            return getImageUrisOfWells(List.of(well), plateAcquisitionOwnerId);
         });
     }
 
+    /**
+     * Wells returned by listings already contain their well samples, so image URIs can be created without
+     * sending one request per well.
+     */
+    private List<URI> getImageUrisOfWells(List<Well> wells, long plateAcquisitionOwnerId) {
+        return wells.stream()
+                .map(well -> well.getImageIds(plateAcquisitionOwnerId))
+                .flatMap(List::stream)
+                .map(id -> new SimpleServerEntity(EntityType.IMAGE, id))
+                .map(this::getEntityUri)
+                .map(URI::create)
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * Apply an asynchronous function returning a list to each of the provided items, and concatenate the results.
+     * The functions should limit the number of requests they send concurrently (see {@link RequestLimiter}).
+     * <p>
+     * The returned list keeps the order of the provided items and doesn't contain duplicates. If one function fails,
+     * the returned CompletableFuture completes exceptionally without waiting for the other functions.
+     *
+     * @param items the items to apply the function to
+     * @param function the function to apply to each item
+     * @return a CompletableFuture (that may complete exceptionally) with the concatenated results
+     */
+    private static <T, R> CompletableFuture<List<R>> flatMap(
+            List<? extends T> items,
+            Function<? super T, CompletableFuture<List<R>>> function
+    ) {
+        List<CompletableFuture<List<R>>> requests = items.stream()
+                .<CompletableFuture<List<R>>>map(function)
+                .toList();
+
+        CompletableFuture<List<R>> result = CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).thenApply(v -> requests.stream()
+                .map(CompletableFuture::join)
+                .flatMap(List::stream)
+                .distinct()
+                .toList()
+        );
+        for (CompletableFuture<List<R>> request: requests) {
+            request.whenComplete((itemResult, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                }
+            });
+        }
+
+        return result;
+    }
+
     private static <T extends ServerEntity> T getEntityOfTypeInList(List<? extends ServerEntity> entities, Class<T> type) {
         return entities.stream()
                 .filter(type::isInstance)
@@ -0,0 +1,127 @@
+package qupath.ext.omero.core.apis;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Limit the number of asynchronous requests running at the same time.
+ * <p>
+ * Requests submitted while the limit is reached are queued, and started in submission order as soon as a running
+ * request completes. No thread is blocked while waiting.
+ * <p>
+ * A request is considered running until the CompletableFuture it returned completes. Therefore, a request must not
+ * wait for other requests submitted to the same limiter, as they may never start. Requests can however be submitted
+ * once the result of a request is available (for example to explore the children of an entity).
+ * <p>
+ * This class is thread-safe.
+ */
+class RequestLimiter {
+
+    private final int maxNumberOfRunningRequests;
+    private final Executor executor;
+    private final Queue<PendingRequest<?>> pendingRequests = new ArrayDeque<>();
+    private int numberOfRunningRequests = 0;
+    private record PendingRequest<T>(Supplier<CompletableFuture<T>> request, CompletableFuture<T> result) {}
+
+    /**
+     * Create the limiter.
+     *
+     * @param maxNumberOfRunningRequests the maximum number of requests running at the same time
+     * @param executor the executor that will start queued requests (so that the stack doesn't grow when requests
+     *                 complete immediately)
+     * @throws IllegalArgumentException if the provided maximum number of running requests is less than 1
+     */
+    public RequestLimiter(int maxNumberOfRunningRequests, Executor executor) {
+        if (maxNumberOfRunningRequests < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "The provided maximum number of running requests %d is less than 1",
+                    maxNumberOfRunningRequests
+            ));
+        }
+
+        this.maxNumberOfRunningRequests = maxNumberOfRunningRequests;
+        this.executor = executor;
+    }
+
+    /**
+     * Start the provided request now if the limit is not reached, or queue it otherwise.
+     *
+     * @param request the function starting the request
+     * @return a CompletableFuture (that may complete exceptionally) that completes with the result of the request. It
+     * completes exceptionally with a {@link CancellationException} if the request is cancelled before being started
+     * (see {@link #cancelPendingRequests()})
+     * @param <T> the type of result of the request
+     */
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> request) {
+        PendingRequest<T> pendingRequest = new PendingRequest<>(request, new CompletableFuture<>());
+
+        boolean startNow;
+        synchronized (this) {
+            startNow = numberOfRunningRequests < maxNumberOfRunningRequests;
+            if (startNow) {
+                numberOfRunningRequests++;
+            } else {
+                pendingRequests.add(pendingRequest);
+            }
+        }
+        if (startNow) {
+            start(pendingRequest);
+        }
+
+        return pendingRequest.result();
+    }
+
+    /**
+     * Cancel all requests that were submitted but not started yet. Running requests are not affected.
+     */
+    public void cancelPendingRequests() {
+        Queue<PendingRequest<?>> cancelledRequests;
+        synchronized (this) {
+            cancelledRequests = new ArrayDeque<>(pendingRequests);
+            pendingRequests.clear();
+        }
+
+        for (PendingRequest<?> cancelledRequest: cancelledRequests) {
+            cancelledRequest.result().completeExceptionally(new CancellationException("Request cancelled before being started"));
+        }
+    }
+
+    private <T> void start(PendingRequest<T> pendingRequest) {
+        CompletableFuture<T> request;
+        try {
+            request = pendingRequest.request().get();
+        } catch (RuntimeException e) {
+            request = CompletableFuture.failedFuture(e);
+        }
+
+        request.whenComplete((result, error) -> {
+            // The next request is started before completing this one, so that requests submitted
+            // by callers of this one are queued after the already pending ones
+            startNextRequest();
+
+            if (error == null) {
+                pendingRequest.result().complete(result);
+            } else {
+                pendingRequest.result().completeExceptionally(error);
+            }
+        });
+    }
+
+    private void startNextRequest() {
+        PendingRequest<?> nextRequest;
+        synchronized (this) {
+            nextRequest = pendingRequests.poll();
+            if (nextRequest == null) {
+                numberOfRunningRequests--;
+            }
+        }
+
+        if (nextRequest != null) {
+            executor.execute(() -> start(nextRequest));
+        }
+    }
+}
@@ -71,10 +71,10 @@ public class Ellipse extends Shape {
     }
 
     @Override
-    public String createJson() {
+    protected String createJson(long id, String oldId) {
         return gson.toJson(new OmeroEllipse(
-                getId(),
-                getOldId(),
+                id,
+                oldId,
                 OmeroEllipse.TYPE,
                 getText(),
                 getFillColor().map(Shape::colorToRgba).orElse(null),
@@ -67,10 +67,10 @@ public class Label extends Shape {
     }
 
     @Override
-    public String createJson() {
+    protected String createJson(long id, String oldId) {
         return gson.toJson(new OmeroLabel(
-                getId(),
-                getOldId(),
+                id,
+                oldId,
                 OmeroLabel.TYPE,
                 getText(),
                 getFillColor().map(Shape::colorToRgba).orElse(null),
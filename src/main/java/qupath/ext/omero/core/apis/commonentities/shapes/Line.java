@@ -74,10 +74,10 @@ public class Line extends Shape {
     }
 
     @Override
-    public String createJson() {
+    protected String createJson(long id, String oldId) {
         return gson.toJson(new OmeroLine(
-                getId(),
-                getOldId(),
+                id,
+                oldId,
                 OmeroLine.TYPE,
                 getText(),
                 getFillColor().map(Shape::colorToRgba).orElse(null),
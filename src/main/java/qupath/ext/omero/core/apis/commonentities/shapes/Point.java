@@ -71,10 +71,10 @@ public class Point extends Shape {
     }
 
     @Override
-    public String createJson() {
+    protected String createJson(long id, String oldId) {
         return gson.toJson(new OmeroPoint(
-                getId(),
-                getOldId(),
+                id,
+                oldId,
                 OmeroPoint.TYPE,
                 getText(),
                 getFillColor().map(Shape::colorToRgba).orElse(null),
@@ -0,0 +1,228 @@
+package qupath.ext.omero.core.apis.commonentities.shapes;
+
+import qupath.lib.geom.Point2;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Utility methods to convert the OMERO text representation of a list of points (for example "2,3 4,2 7,9")
+ * from and to arrays of coordinates.
+ * <p>
+ * The text is read and written character by character, without creating intermediate strings or point objects.
+ */
+class PointsCodec {
+
+    private static final char POINT_DELIMITER = ' ';
+    private static final char POINT_COORDINATE_DELIMITER = ',';
+    private static final int MAX_EXACT_POWER_OF_TEN = 22;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = new double[MAX_EXACT_POWER_OF_TEN + 1];
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i=1; i<POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i-1] * 10;
+        }
+    }
+
+    /**
+     * The coordinates of a list of points.
+     *
+     * @param x the x-coordinates of the points
+     * @param y the y-coordinates of the points. Must have the same length as x
+     */
+    record Points(double[] x, double[] y) {
+
+        /**
+         * Create the coordinates of the provided points.
+         *
+         * @param points the points whose coordinates should be retrieved
+         * @return the coordinates of the provided points
+         */
+        public static Points fromPoints(List<Point2> points) {
+            double[] x = new double[points.size()];
+            double[] y = new double[points.size()];
+
+            for (int i=0; i<points.size(); i++) {
+                x[i] = points.get(i).getX();
+                y[i] = points.get(i).getY();
+            }
+
+            return new Points(x, y);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this)
+                return true;
+            if (!(obj instanceof Points points))
+                return false;
+            return Arrays.equals(points.x, x) && Arrays.equals(points.y, y);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(x) + Arrays.hashCode(y);
+        }
+
+        @Override
+        public String toString() {
+            return format(this);
+        }
+    }
+
+    private PointsCodec() {
+        throw new AssertionError("This class is not instantiable.");
+    }
+
+    /**
+     * Parse the OMERO text representing points.
+     * <p>
+     * Points are separated by spaces, and the coordinates of a point by a comma. Points with less than two
+     * coordinates are skipped, and coordinates after the second one are ignored.
+     *
+     * @param text a text describing a list of points returned by the OMERO API, for example "2,3 4,2 7,9"
+     * @return the coordinates of the points contained in the provided text
+     * @throws NullPointerException if the provided text is null
+     * @throws NumberFormatException if a coordinate is not a valid number
+     */
+    public static Points parse(CharSequence text) {
+        int length = text.length();
+
+        int maxNumberOfPoints = 1;
+        for (int i=0; i<length; i++) {
+            if (text.charAt(i) == POINT_DELIMITER) {
+                maxNumberOfPoints++;
+            }
+        }
+        double[] x = new double[maxNumberOfPoints];
+        double[] y = new double[maxNumberOfPoints];
+
+        int numberOfPoints = 0;
+        int pointStart = 0;
+        while (pointStart < length) {
+            int pointEnd = indexOf(text, POINT_DELIMITER, pointStart, length);
+
+            int firstDelimiter = indexOf(text, POINT_COORDINATE_DELIMITER, pointStart, pointEnd);
+            if (firstDelimiter < pointEnd) {
+                int secondDelimiter = indexOf(text, POINT_COORDINATE_DELIMITER, firstDelimiter + 1, pointEnd);
+
+                // An empty second coordinate means that the point has only one coordinate
+                if (secondDelimiter > firstDelimiter + 1) {
+                    x[numberOfPoints] = parseDouble(text, pointStart, firstDelimiter);
+                    y[numberOfPoints] = parseDouble(text, firstDelimiter + 1, secondDelimiter);
+                    numberOfPoints++;
+                }
+            }
+
+            pointStart = pointEnd + 1;
+        }
+
+        return numberOfPoints == maxNumberOfPoints ?
+                new Points(x, y) :
+                new Points(Arrays.copyOf(x, numberOfPoints), Arrays.copyOf(y, numberOfPoints));
+    }
+
+    /**
+     * Convert the provided coordinates into an OMERO-friendly text.
+     *
+     * @param points the coordinates of the points to convert
+     * @return a text describing the provided points, for example "2.0,3.0 4.0,2.0 7.0,9.0"
+     * @throws NullPointerException if the provided points are null
+     */
+    public static String format(Points points) {
+        StringBuilder text = new StringBuilder(points.x().length * 16);
+
+        for (int i=0; i<points.x().length; i++) {
+            if (i > 0) {
+                text.append(POINT_DELIMITER);
+            }
+            text.append(points.x()[i]).append(POINT_COORDINATE_DELIMITER).append(points.y()[i]);
+        }
+
+        return text.toString();
+    }
+
+    private static int indexOf(CharSequence text, char character, int start, int end) {
+        for (int i=start; i<end; i++) {
+            if (text.charAt(i) == character) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Parse a decimal number without creating any string. Numbers that cannot be exactly represented
+     * with the fast path (too many digits, large exponents, special values) are parsed with
+     * {@link Double#parseDouble(String)}, so the result is always identical to this function.
+     */
+    private static double parseDouble(CharSequence text, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int exponent = 0;
+        boolean hasDigits = false;
+        boolean exact = true;
+
+        while (i < end && isDigit(text.charAt(i))) {
+            if (mantissa < MAX_EXACT_MANTISSA) {
+                mantissa = mantissa * 10 + (text.charAt(i) - '0');
+            } else {
+                exact = false;
+            }
+            hasDigits = true;
+            i++;
+        }
+        if (i < end && text.charAt(i) == '.') {
+            i++;
+            while (i < end && isDigit(text.charAt(i))) {
+                if (mantissa < MAX_EXACT_MANTISSA) {
+                    mantissa = mantissa * 10 + (text.charAt(i) - '0');
+                    exponent--;
+                } else {
+                    exact = false;
+                }
+                hasDigits = true;
+                i++;
+            }
+        }
+        if (i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                negativeExponent = text.charAt(i) == '-';
+                i++;
+            }
+
+            int explicitExponent = 0;
+            boolean hasExponentDigits = false;
+            while (i < end && isDigit(text.charAt(i))) {
+                explicitExponent = Math.min(explicitExponent * 10 + (text.charAt(i) - '0'), 10 * MAX_EXACT_POWER_OF_TEN);
+                hasExponentDigits = true;
+                i++;
+            }
+            if (!hasExponentDigits) {
+                exact = false;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+
+        if (!hasDigits || i != end || !exact || mantissa >= MAX_EXACT_MANTISSA || Math.abs(exponent) > MAX_EXACT_POWER_OF_TEN) {
+            return Double.parseDouble(text.subSequence(start, end).toString());
+        }
+
+        // Both the mantissa and the power of ten are exactly represented, so a single operation is correctly rounded
+        double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        return negative ? -value : value;
+    }
+
+    private static boolean isDigit(char character) {
+        return character >= '0' && character <= '9';
+    }
+}
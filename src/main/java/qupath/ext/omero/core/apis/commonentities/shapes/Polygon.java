@@ -3,12 +3,10 @@ package qupath.ext.omero.core.apis.commonentities.shapes;
 import com.google.gson.Gson;
 import qupath.ext.omero.core.apis.commonentities.SimpleEntity;
 import qupath.ext.omero.core.apis.json.jsonentities.shapes.OmeroPolygon;
-import qupath.lib.geom.Point2;
 import qupath.lib.objects.PathObject;
 import qupath.lib.roi.ROIs;
 import qupath.lib.roi.interfaces.ROI;
 
-import java.util.List;
 import java.util.Objects;
 
 /**
@@ -17,7 +15,7 @@ import java.util.Objects;
 public class Polygon extends Shape {
 
     private static final Gson gson = new Gson();
-    private final List<Point2> points;
+    private final PointsCodec.Points points;
 
     /**
      * Create a polygon from an {@link OmeroPolygon}.
@@ -45,7 +43,7 @@ public class Polygon extends Shape {
                         )
         );
 
-        this.points = parseStringPoints(omeroPolygon.points());
+        this.points = PointsCodec.parse(omeroPolygon.points());
     }
 
     /**
@@ -59,14 +57,14 @@ public class Polygon extends Shape {
     public Polygon(PathObject pathObject, ROI roi, boolean fillColor) {
         super(pathObject, fillColor);
 
-        this.points = roi.getAllPoints();
+        this.points = PointsCodec.Points.fromPoints(roi.getAllPoints());
     }
 
     @Override
-    public String createJson() {
+    protected String createJson(long id, String oldId) {
         return gson.toJson(new OmeroPolygon(
-                getId(),
-                getOldId(),
+                id,
+                oldId,
                 OmeroPolygon.TYPE,
                 getText(),
                 getFillColor().map(Shape::colorToRgba).orElse(null),
@@ -75,14 +73,14 @@ public class Polygon extends Shape {
                 getPlane().getC(),
                 getPlane().getZ(),
                 getPlane().getT(),
-                pointsToString(points),
+                PointsCodec.format(points),
                 null
         ));
     }
 
     @Override
     protected ROI createRoi() {
-        return ROIs.createPolygonROI(points, getPlane());
+        return ROIs.createPolygonROI(points.x(), points.y(), getPlane());
     }
 
     @Override
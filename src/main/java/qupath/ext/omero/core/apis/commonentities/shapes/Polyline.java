@@ -3,12 +3,10 @@ package qupath.ext.omero.core.apis.commonentities.shapes;
 import com.google.gson.Gson;
 import qupath.ext.omero.core.apis.commonentities.SimpleEntity;
 import qupath.ext.omero.core.apis.json.jsonentities.shapes.OmeroPolyline;
-import qupath.lib.geom.Point2;
 import qupath.lib.objects.PathObject;
 import qupath.lib.roi.ROIs;
 import qupath.lib.roi.interfaces.ROI;
 
-import java.util.List;
 import java.util.Objects;
 
 /**
@@ -17,7 +15,7 @@ import java.util.Objects;
 public class Polyline extends Shape {
 
     private static final Gson gson = new Gson();
-    private final List<Point2> points;
+    private final PointsCodec.Points points;
 
     /**
      * Create a polyline from an {@link OmeroPolyline}.
@@ -45,7 +43,7 @@ public class Polyline extends Shape {
                         )
         );
 
-        this.points = parseStringPoints(omeroPolyline.points());
+        this.points = PointsCodec.parse(omeroPolyline.points());
     }
 
     /**
@@ -58,14 +56,14 @@ public class Polyline extends Shape {
     public Polyline(PathObject pathObject, boolean fillColor) {
         super(pathObject, fillColor);
 
-        this.points = pathObject.getROI().getAllPoints();
+        this.points = PointsCodec.Points.fromPoints(pathObject.getROI().getAllPoints());
     }
 
     @Override
-    public String createJson() {
+    protected String createJson(long id, String oldId) {
         return gson.toJson(new OmeroPolyline(
-                getId(),
-                getOldId(),
+                id,
+                oldId,
                 OmeroPolyline.TYPE,
                 getText(),
                 getFillColor().map(Shape::colorToRgba).orElse(null),
@@ -74,14 +72,14 @@ public class Polyline extends Shape {
                 getPlane().getC(),
                 getPlane().getZ(),
                 getPlane().getT(),
-                pointsToString(points),
+                PointsCodec.format(points),
                 null
         ));
     }
 
     @Override
     protected ROI createRoi() {
-        return ROIs.createPolylineROI(points, getPlane());
+        return ROIs.createPolylineROI(points.x(), points.y(), getPlane());
     }
 
     @Override
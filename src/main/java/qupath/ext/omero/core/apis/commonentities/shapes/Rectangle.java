@@ -69,10 +69,10 @@ public class Rectangle extends Shape {
     }
 
     @Override
-    public String createJson() {
+    protected String createJson(long id, String oldId) {
         return gson.toJson(new OmeroRectangle(
-                getId(),
-                getOldId(),
+                id,
+                oldId,
                 OmeroRectangle.TYPE,
                 getText(),
                 getFillColor().map(Shape::colorToRgba).orElse(null),
@@ -1,23 +1,34 @@
 package qupath.ext.omero.core.apis.commonentities.shapes;
 
+import org.locationtech.jts.algorithm.RayCrossingCounter;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Location;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.locationtech.jts.operation.overlayng.CoverageUnion;
+import org.locationtech.jts.operation.overlayng.OverlayNGRobust;
+import org.locationtech.jts.operation.polygonize.Polygonizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import qupath.ext.omero.core.apis.commonentities.SimpleEntity;
 import qupath.lib.color.ColorToolsAwt;
-import qupath.lib.geom.Point2;
 import qupath.lib.gui.prefs.PathPrefs;
 import qupath.lib.objects.PathObject;
 import qupath.lib.objects.PathObjects;
 import qupath.lib.objects.classes.PathClass;
 import qupath.lib.regions.ImagePlane;
+import qupath.lib.roi.GeometryTools;
+import qupath.lib.roi.ROIs;
 import qupath.lib.roi.RoiTools;
 import qupath.lib.roi.interfaces.ROI;
 
 import java.awt.Color;
-import java.awt.geom.Area;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -36,8 +47,6 @@ public abstract class Shape {
     private static final String NO_NAME = "NoName";
     private static final String TEXT_DELIMITER = ":";
     private static final String CLASS_DELIMITER = "&";
-    private static final String POINT_DELIMITER = " ";
-    private static final String POINT_COORDINATE_DELIMITER = ",";
     private final long id;
     private final long roiId;
     private final UUID uuid;
@@ -82,14 +91,16 @@ public abstract class Shape {
         this.id = id;
         this.roiId = roiId;
 
-        UUID uuid = createUuid(getFieldInText(2, text));
+        String[] textFields = text == null ? new String[0] : text.split(TEXT_DELIMITER);
+
+        UUID uuid = createUuid(getField(textFields, 2));
         this.uuid = uuid == null ? UUID.randomUUID() : uuid;
 
-        this.name = getFieldInText(4, text);
+        this.name = getField(textFields, 4);
 
-        this.parentUuid = createUuid(getFieldInText(3, text));
+        this.parentUuid = createUuid(getField(textFields, 3));
 
-        String pathClass = getFieldInText(1, text);
+        String pathClass = getField(textFields, 1);
         if (pathClass == null) {
             this.pathClass = PathClass.NULL_CLASS;
         } else {
@@ -102,7 +113,7 @@ public abstract class Shape {
             }
         }
 
-        String shapeTypeText = getFieldInText(0, text);
+        String shapeTypeText = getField(textFields, 0);
         if (shapeTypeText == null) {
             this.shapeType = ShapeType.ANNOTATION;
         } else {
@@ -158,11 +169,13 @@ public abstract class Shape {
      * PathObject is created by:
      * <ul>
      *     <li>Converting each {@link Shape} to a {@link ROI}. This gives a list of {@link ROI}.</li>
-     *     <li>Every point of the list of ROI are combined with the {@link RoiTools.CombineOp#ADD} operation.</li>
+     *     <li>Every point of the list of ROI are gathered in a single points ROI.</li>
      *     <li>Every other {@link ROI} of the list are combined with the XOR operation.</li>
      *     <li>The resulting two {@link ROI} are combined with the {@link RoiTools.CombineOp#ADD} operation (if they exist).</li>
      * </ul>
-     * The {@link RoiTools.CombineOp#ADD} operation is used for points because they don't support the XOR operation.
+     * Points are not combined with the XOR operation because they don't support it.
+     * <p>
+     * Shapes are grouped in a single pass, and the path objects of different groups are created in parallel.
      *
      * @param shapes the shapes to convert to path objects
      * @return a list of PathObjects corresponding to the provided shapes
@@ -171,17 +184,22 @@ public abstract class Shape {
     public static List<PathObject> createPathObjects(List<Shape> shapes) {
         logger.debug("Creating path objects from shapes {}", shapes);
 
-        List<UUID> uuids = shapes.stream()
-                .map(shape -> shape.uuid)
-                .distinct()
+        Map<UUID, List<Shape>> shapesByUuid = shapes.stream().collect(Collectors.groupingBy(
+                shape -> shape.uuid,
+                LinkedHashMap::new,
+                Collectors.toList()
+        ));
+
+        // Groups are independent, so their path objects can be created in parallel
+        List<Map.Entry<UUID, List<Shape>>> groups = List.copyOf(shapesByUuid.entrySet());
+        List<PathObject> groupPathObjects = groups.parallelStream()
+                .map(group -> createPathObject(group.getValue()))
                 .toList();
 
-        Map<UUID, PathObject> idToPathObject = new HashMap<>();
-        Map<UUID, UUID> idToParentId = new HashMap<>();
-        for (UUID uuid: uuids) {
-            List<Shape> shapesWithUuid = shapes.stream()
-                    .filter(shape -> uuid.equals(shape.uuid))
-                    .toList();
+        Map<UUID, PathObject> idToPathObject = new LinkedHashMap<>();
+        Map<UUID, UUID> idToParentId = new LinkedHashMap<>();
+        for (int i=0; i<groups.size(); i++) {
+            List<Shape> shapesWithUuid = groups.get(i).getValue();
             List<UUID> parentUuid = shapesWithUuid.stream()
                     .map(shape -> shape.parentUuid)
                     .filter(Objects::nonNull)
@@ -189,8 +207,8 @@ public abstract class Shape {
                     .toList();
             warnIfDuplicateAttribute(shapesWithUuid, parentUuid, "parent UUID");
 
-            idToPathObject.put(uuid, createPathObject(shapesWithUuid));
-            idToParentId.put(uuid, parentUuid.isEmpty() ? null : parentUuid.getFirst());
+            idToPathObject.put(groups.get(i).getKey(), groupPathObjects.get(i));
+            idToParentId.put(groups.get(i).getKey(), parentUuid.isEmpty() ? null : parentUuid.getFirst());
         }
         logger.debug("Got ID to parent ID {} and ID to path objects {}", idToParentId, idToPathObject);
 
@@ -212,7 +230,22 @@ public abstract class Shape {
      *
      * @return a string containing a JSON representation of this shape
      */
-    public abstract String createJson();
+    public String createJson() {
+        return createJson(id, getOldId());
+    }
+
+    /**
+     * Create a compact JSON representation of this shape that takes the place of an existing OMERO shape.
+     * The returned JSON has the same content as {@link #createJson()}, except that it refers to the IDs of the
+     * provided shape, so that sending it to the server modifies the existing shape.
+     *
+     * @param shapeToReplace the existing shape that should be replaced by this shape
+     * @return a string containing a JSON representation of this shape with the IDs of the provided shape
+     * @throws NullPointerException if the provided shape is null
+     */
+    public String createJson(Shape shapeToReplace) {
+        return createJson(shapeToReplace.id, shapeToReplace.getOldId());
+    }
 
     /**
      * In OMERO, a ROI contains one or more shapes. This old ID is "roiID:shapeID".
@@ -230,6 +263,17 @@ public abstract class Shape {
         return Optional.ofNullable(owner);
     }
 
+    /**
+     * Indicate whether this shape is located on the provided plane. The channel of the shape is not taken into account.
+     *
+     * @param z the 0-based z-stack index of the plane
+     * @param t the 0-based timepoint index of the plane
+     * @return whether this shape is located on the provided plane
+     */
+    public boolean isOnPlane(int z, int t) {
+        return this.z == z && this.t == t;
+    }
+
     /**
      * @return the ID of this shape
      */
@@ -237,6 +281,13 @@ public abstract class Shape {
         return id;
     }
 
+    /**
+     * @return the UUID of the path object this shape belongs to
+     */
+    UUID getUuid() {
+        return uuid;
+    }
+
     /**
      * @return a text representing the type, the path class, the UUID, and the parent UUID of this shape
      */
@@ -307,50 +358,21 @@ public abstract class Shape {
     }
 
     /**
-     * @return a new {@link ROI} corresponding to this shape
-     */
-    protected abstract ROI createRoi();
-
-    /**
-     * Parse the OMERO string representing points into a list.
+     * Create a compact JSON representation of this shape corresponding to an OMERO shape.
      *
-     * @param pointsString a String describing a list of points returned by the OMERO API,
-     *                     for example "2,3 4,2 7,9"
-     * @return a list of points corresponding to the input
-     * @throws NullPointerException if the provided string is null
+     * @param id the ID the OMERO shape should have
+     * @param oldId the "roiID:shapeID" text the OMERO shape should have
+     * @return a string containing a JSON representation of this shape
      */
-    protected static List<Point2> parseStringPoints(String pointsString) {
-        return Arrays.stream(pointsString.split(POINT_DELIMITER))
-                .map(pointStr -> {
-                    String[] point = pointStr.split(POINT_COORDINATE_DELIMITER);
-                    if (point.length > 1) {
-                        return new Point2(Double.parseDouble(point[0]), Double.parseDouble(point[1]));
-                    } else {
-                        return null;
-                    }
-                })
-                .filter(Objects::nonNull)
-                .toList();
-    }
+    protected abstract String createJson(long id, String oldId);
 
     /**
-     * Converts the specified list of {@link Point2} into an OMERO-friendly text.
-     *
-     * @return string of points
-     * @throws NullPointerException if the provided list is null
+     * @return a new {@link ROI} corresponding to this shape
      */
-    protected static String pointsToString(List<Point2> points) {
-        return points.stream()
-                .map(point -> String.format("%s%s%s", point.getX(), POINT_COORDINATE_DELIMITER, point.getY()))
-                .collect(Collectors.joining(POINT_DELIMITER));
-    }
+    protected abstract ROI createRoi();
 
-    private static String getFieldInText(int fieldIndex, String text) {
-        if (text != null && text.split(TEXT_DELIMITER).length > fieldIndex) {
-            return text.split(TEXT_DELIMITER)[fieldIndex];
-        } else {
-            return null;
-        }
+    private static String getField(String[] fields, int fieldIndex) {
+        return fields.length > fieldIndex ? fields[fieldIndex] : null;
     }
 
     private static UUID createUuid(String uuid) {
@@ -427,11 +449,11 @@ public abstract class Shape {
      * Create a single {@link ROI} from the provided list of shapes. This is done by:
      * <ul>
      *     <li>Converting each provided {@link Shape} to a {@link ROI}. This gives a list of {@link ROI}.</li>
-     *     <li>Every point of the list of ROI are combined with the {@link RoiTools.CombineOp#ADD} operation.</li>
-     *     <li>Every other {@link ROI} of the list are combined with the XOR operation.</li>
+     *     <li>Every point of the list of ROI are gathered in a single points ROI.</li>
+     *     <li>Every other {@link ROI} of the list are combined with the XOR operation (see {@link #exclusiveOr(List)}).</li>
      *     <li>The resulting two {@link ROI} are combined with the {@link RoiTools.CombineOp#ADD} operation (if they exist).</li>
      * </ul>
-     * The {@link RoiTools.CombineOp#ADD} operation is used for points because they don't support the XOR operation.
+     * Points are not combined with the XOR operation because they don't support it.
      *
      * @param shapes the shapes to convert and combine to a {@link ROI}
      * @return the created {@link ROI}, or null if the provided list is empty
@@ -440,20 +462,24 @@ public abstract class Shape {
         List<ROI> rois = shapes.stream().map(Shape::createRoi).toList();
 
         List<ROI> pointRois = rois.stream().filter(ROI::isPoint).toList();
-        ROI pointsRoi = pointRois.isEmpty() ? null : pointRois.getFirst();
-        for (int i=1; i<pointRois.size(); i++) {
-            pointsRoi = RoiTools.combineROIs(pointsRoi, rois.get(i), RoiTools.CombineOp.ADD);
-        }
+        ROI pointsRoi = switch (pointRois.size()) {
+            case 0 -> null;
+            case 1 -> pointRois.getFirst();
+            default -> ROIs.createPointsROI(
+                    pointRois.stream().map(ROI::getAllPoints).flatMap(List::stream).toList(),
+                    pointRois.getFirst().getImagePlane()
+            );
+        };
 
         List<ROI> nonPointRois = rois.stream().filter(roi -> !roi.isPoint()).toList();
-        ROI nonPointsRoi = nonPointRois.isEmpty() ? null : nonPointRois.getFirst();
-        for (int i=1; i<nonPointRois.size(); i++) {
-            Area nonPointArea = new Area(nonPointsRoi.getShape());
-
-            nonPointArea.exclusiveOr(new Area(nonPointRois.get(i).getShape()));
-
-            nonPointsRoi = RoiTools.getShapeROI(nonPointArea, nonPointsRoi.getImagePlane());
-        }
+        ROI nonPointsRoi = switch (nonPointRois.size()) {
+            case 0 -> null;
+            case 1 -> nonPointRois.getFirst();
+            default -> GeometryTools.geometryToROI(
+                    exclusiveOr(nonPointRois.stream().map(ROI::getGeometry).toList()),
+                    nonPointRois.getFirst().getImagePlane()
+            );
+        };
 
         if (pointsRoi == null && nonPointsRoi == null) {
             return null;
@@ -465,4 +491,68 @@ public abstract class Shape {
             return RoiTools.combineROIs(pointsRoi, nonPointsRoi, RoiTools.CombineOp.ADD);
         }
     }
+
+    /**
+     * Combine the polygonal parts of the provided geometries with the XOR operation, in a single pass instead of
+     * one pairwise operation per geometry. A point belongs to the result if it is inside an odd number of the rings
+     * (exteriors and holes) of the provided geometries, so a ring contained in another one becomes a hole of it.
+     * <p>
+     * The rings are noded together with a single union of their linework, and the noded linework is polygonized
+     * into faces. Faces whose interior point is inside an odd number of rings are kept, and merged with a
+     * coverage union (faces don't overlap, so this is faster than a regular union).
+     *
+     * @param geometries the geometries to combine. Non-polygonal parts of these geometries are ignored
+     * @return the result of the XOR operation applied to the provided geometries
+     */
+    private static Geometry exclusiveOr(List<Geometry> geometries) {
+        GeometryFactory factory = GeometryTools.getDefaultFactory();
+
+        List<LinearRing> rings = new ArrayList<>();
+        for (Geometry geometry: geometries) {
+            for (int i=0; i<geometry.getNumGeometries(); i++) {
+                if (geometry.getGeometryN(i) instanceof org.locationtech.jts.geom.Polygon polygon) {
+                    rings.add(polygon.getExteriorRing());
+                    for (int j=0; j<polygon.getNumInteriorRing(); j++) {
+                        rings.add(polygon.getInteriorRingN(j));
+                    }
+                }
+            }
+        }
+
+        STRtree ringIndex = new STRtree();
+        for (LinearRing ring: rings) {
+            ringIndex.insert(ring.getEnvelopeInternal(), ring);
+        }
+        ringIndex.build();
+
+        Polygonizer polygonizer = new Polygonizer();
+        polygonizer.add(OverlayNGRobust.union(factory.buildGeometry(rings)));
+
+        List<Geometry> faces = new ArrayList<>();
+        for (Object face: polygonizer.getPolygons()) {
+            Coordinate interiorPoint = ((Geometry) face).getInteriorPoint().getCoordinate();
+
+            if (interiorPoint != null && isInsideOddNumberOfRings(interiorPoint, ringIndex)) {
+                faces.add((Geometry) face);
+            }
+        }
+
+        if (faces.isEmpty()) {
+            return factory.createPolygon();
+        } else {
+            return CoverageUnion.union(factory.buildGeometry(faces));
+        }
+    }
+
+    private static boolean isInsideOddNumberOfRings(Coordinate coordinate, STRtree ringIndex) {
+        boolean inside = false;
+
+        for (Object ring: ringIndex.query(new Envelope(coordinate))) {
+            if (RayCrossingCounter.locatePointInRing(coordinate, ((LinearRing) ring).getCoordinates()) == Location.INTERIOR) {
+                inside = !inside;
+            }
+        }
+
+        return inside;
+    }
 }
@@ -0,0 +1,133 @@
+package qupath.ext.omero.core.apis.commonentities.shapes;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * The changes to apply to a set of existing OMERO shapes so that they match a set of new shapes.
+ * <p>
+ * Shapes are matched using the UUID of the path object they belong to, which is stored in the text of each shape.
+ *
+ * @param shapesToAdd the new shapes that don't have any existing counterpart and should be added
+ * @param shapesToModify the new shapes that should replace existing shapes
+ * @param shapesToDelete the existing shapes that should be deleted
+ */
+public record ShapesDifference(List<Shape> shapesToAdd, List<Modification> shapesToModify, List<Shape> shapesToDelete) {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShapesDifference.class);
+
+    /**
+     * A new shape that should replace an existing shape.
+     *
+     * @param shape the new shape
+     * @param existingShape the existing shape to replace
+     */
+    public record Modification(Shape shape, Shape existingShape) {
+
+        /**
+         * @return a JSON representation of the new shape that refers to the IDs of the existing shape
+         */
+        public String createJson() {
+            return shape.createJson(existingShape);
+        }
+    }
+
+    /**
+     * Compute the changes to apply to the provided existing shapes so that they match the provided new shapes:
+     * <ul>
+     *     <li>New shapes whose path object doesn't have any existing shape are added.</li>
+     *     <li>Existing shapes whose path object doesn't have any new shape are deleted.</li>
+     *     <li>
+     *         If the shapes of a path object are identical in both lists, nothing is done. Otherwise, if a path object
+     *         has the same number and types of shapes in both lists, the existing shapes that differ are modified.
+     *         Otherwise, the existing shapes of the path object are deleted and the new ones are added.
+     *     </li>
+     * </ul>
+     * Path objects are compared in parallel.
+     *
+     * @param shapes the new shapes
+     * @param existingShapes the shapes currently on the server
+     * @return the changes to apply to the existing shapes
+     * @throws NullPointerException if one of the provided lists is null
+     */
+    public static ShapesDifference compute(List<? extends Shape> shapes, List<? extends Shape> existingShapes) {
+        Map<UUID, List<Shape>> shapesByUuid = groupByUuid(shapes);
+        Map<UUID, List<Shape>> existingShapesByUuid = groupByUuid(existingShapes);
+
+        List<ShapesDifference> differences = shapesByUuid.entrySet().parallelStream()
+                .map(entry -> computeForPathObject(entry.getValue(), existingShapesByUuid.getOrDefault(entry.getKey(), List.of())))
+                .toList();
+
+        List<Shape> shapesToAdd = new ArrayList<>();
+        List<Modification> shapesToModify = new ArrayList<>();
+        List<Shape> shapesToDelete = new ArrayList<>();
+        for (ShapesDifference difference: differences) {
+            shapesToAdd.addAll(difference.shapesToAdd);
+            shapesToModify.addAll(difference.shapesToModify);
+            shapesToDelete.addAll(difference.shapesToDelete);
+        }
+        for (Map.Entry<UUID, List<Shape>> entry: existingShapesByUuid.entrySet()) {
+            if (!shapesByUuid.containsKey(entry.getKey())) {
+                shapesToDelete.addAll(entry.getValue());
+            }
+        }
+
+        logger.debug(
+                "{} shapes to add, {} shapes to modify and {} shapes to delete to go from {} existing shapes to {} shapes",
+                shapesToAdd.size(),
+                shapesToModify.size(),
+                shapesToDelete.size(),
+                existingShapes.size(),
+                shapes.size()
+        );
+        return new ShapesDifference(shapesToAdd, shapesToModify, shapesToDelete);
+    }
+
+    /**
+     * @return whether there is no change to apply
+     */
+    public boolean isEmpty() {
+        return shapesToAdd.isEmpty() && shapesToModify.isEmpty() && shapesToDelete.isEmpty();
+    }
+
+    private static Map<UUID, List<Shape>> groupByUuid(List<? extends Shape> shapes) {
+        return shapes.stream().collect(Collectors.groupingBy(
+                Shape::getUuid,
+                LinkedHashMap::new,
+                Collectors.toList()
+        ));
+    }
+
+    private static ShapesDifference computeForPathObject(List<Shape> shapes, List<Shape> existingShapes) {
+        if (existingShapes.isEmpty()) {
+            return new ShapesDifference(shapes, List.of(), List.of());
+        }
+
+        if (shapes.size() != existingShapes.size()) {
+            return new ShapesDifference(shapes, List.of(), existingShapes);
+        }
+        for (int i=0; i<shapes.size(); i++) {
+            // The type of an existing shape cannot be changed
+            if (!shapes.get(i).getClass().equals(existingShapes.get(i).getClass())) {
+                return new ShapesDifference(shapes, List.of(), existingShapes);
+            }
+        }
+
+        List<Modification> modifications = new ArrayList<>();
+        for (int i=0; i<shapes.size(); i++) {
+            Modification modification = new Modification(shapes.get(i), existingShapes.get(i));
+
+            if (!modification.createJson().equals(existingShapes.get(i).createJson())) {
+                modifications.add(modification);
+            }
+        }
+        return new ShapesDifference(List.of(), modifications, List.of());
+    }
+}
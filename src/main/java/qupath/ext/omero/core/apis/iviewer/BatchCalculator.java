@@ -5,7 +5,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 /**
  * A class to divide lists of objects into batches of certain size.
@@ -19,40 +19,54 @@ class BatchCalculator {
     }
 
     /**
-     * Split a list of objects into batches according to a maximal batch size.
+     * Split a list of objects into batches according to a maximal batch size, when the size of a batch is the sum of
+     * a fixed overhead, the size of each object of the batch, and the size of a delimiter between each object.
+     * <p>
+     * The size of a batch is updated incrementally and the size of each object is only computed once, so this runs
+     * in linear time.
      *
      * @param objects the objects to split into batches
      * @param maxBatchSize the exclusive maximal size each batch can have. Note that if the size of a single object is bigger than the batch size,
      *                     then the batch containing the object will be bigger than the maximal size
-     * @param batchSizeGetter a function that computes the size of a batch
+     * @param emptyBatchSize the size of a batch that doesn't contain any object
+     * @param delimiterSize the size added to a batch between two consecutive objects
+     * @param objectSizeGetter a function that computes the size of an object
      * @return batches containing the provided objects
      * @param <T> the type of the objects
      * @throws NullPointerException if one the parameters is null
      * @throws java.util.NoSuchElementException if the provided list is empty
      */
-    public static <T> List<List<T>> splitObjectsIntoBatches(List<T> objects, long maxBatchSize, Function<List<T>, Long> batchSizeGetter) {
+    public static <T> List<List<T>> splitObjectsIntoBatches(
+            List<T> objects,
+            long maxBatchSize,
+            long emptyBatchSize,
+            long delimiterSize,
+            ToLongFunction<T> objectSizeGetter
+    ) {
         List<List<T>> batches = new ArrayList<>();
 
-        createNewBatch(batches, objects.getFirst(), maxBatchSize, batchSizeGetter);
+        T firstObject = objects.getFirst();
+        long batchSize = emptyBatchSize + objectSizeGetter.applyAsLong(firstObject);
+        createNewBatch(batches, firstObject, batchSize, maxBatchSize);
 
         for (int i=1; i<objects.size(); i++) {
             T object = objects.get(i);
-            List<T> currentBatch = batches.getLast();
+            long objectSize = objectSizeGetter.applyAsLong(object);
 
-            currentBatch.add(object);
-            long batchSize = batchSizeGetter.apply(currentBatch);
-
-            if (batchSize >= maxBatchSize) {
-                currentBatch.remove(object);
-                createNewBatch(batches, object, maxBatchSize, batchSizeGetter);
+            if (batchSize + delimiterSize + objectSize >= maxBatchSize) {
+                batchSize = emptyBatchSize + objectSize;
+                createNewBatch(batches, object, batchSize, maxBatchSize);
+            } else {
+                batchSize += delimiterSize + objectSize;
+                batches.getLast().add(object);
             }
         }
 
         return batches;
     }
 
-    private static <T> void createNewBatch(List<List<T>> batches, T objectToAdd, long maxBatchSize, Function<List<T>, Long> batchSizeGetter) {
-        if (batchSizeGetter.apply(List.of(objectToAdd)) > maxBatchSize) {
+    private static <T> void createNewBatch(List<List<T>> batches, T objectToAdd, long batchSize, long maxBatchSize) {
+        if (batchSize > maxBatchSize) {
             logger.warn(
                     "{} has a bigger size than the batch size {}. The size of the new batch will therefore exceed the maximal size",
                     objectToAdd,
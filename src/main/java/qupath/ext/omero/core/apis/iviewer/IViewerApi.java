@@ -4,19 +4,28 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import qupath.ext.omero.core.RequestSender;
 import qupath.ext.omero.core.apis.commonentities.shapes.Shape;
+import qupath.ext.omero.core.apis.commonentities.shapes.ShapesDifference;
 import qupath.ext.omero.core.apis.iviewer.imageentities.ImageData;
 import qupath.ext.omero.core.apis.iviewer.imageentities.OmeroImageData;
 import qupath.ext.omero.core.preferences.PreferencesManager;
 import qupath.lib.common.ThreadTools;
 
+import java.net.ConnectException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.http.HttpConnectTimeoutException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * API to communicate with an <a href="https://www.openmicroscopy.org/omero/iviewer/">OMERO.iviewer</a>.
@@ -28,6 +37,8 @@ import java.util.stream.Collectors;
 public class IViewerApi implements AutoCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(IViewerApi.class);
+    private static final int MAX_NUMBER_OF_CONCURRENT_BATCHES = 4;
+    private static final int MAX_NUMBER_OF_ATTEMPTS_PER_BATCH = 3;
     private static final String ROIS_URL = "%s/iviewer/persist_rois/";
     private static final String ROIS_BODY = """
         {
@@ -36,14 +47,20 @@ public class IViewerApi implements AutoCloseable {
                 "count":%d,
                 "empty_rois":{%s},
                 "new_and_deleted":[],
-                "deleted":{},
+                "deleted":{%s},
                 "new":[%s],
-                "modified":[]
+                "modified":[%s]
             }
         }
         """;
+    private static final String ROIS_DELIMITER = ", ";
     private static final String ROIS_REFERER_URL = "%s/iviewer/?images=%d";
     private static final String IMAGE_SETTINGS_URL = "%s/iviewer/image_data/%d/";
+    private enum RoisSection {
+        EMPTY_ROIS,
+        NEW,
+        MODIFIED
+    }
     private final ExecutorService executorService = Executors.newFixedThreadPool(
             Runtime.getRuntime().availableProcessors(),
             ThreadTools.createThreadFactory("iviewer-api-", true)
@@ -84,6 +101,12 @@ public class IViewerApi implements AutoCloseable {
      * {@link PreferencesManager#getMaxBodySizeBytes(URI)}, then the size of the body of the corresponding request
      * will be bigger than {@link PreferencesManager#getMaxBodySizeBytes(URI)}.
      * <p>
+     * Shapes are converted to JSON in parallel, and at most {@link #MAX_NUMBER_OF_CONCURRENT_BATCHES} batches are sent
+     * at the same time. As the server doesn't detect duplicated requests, a batch is only sent again (up to
+     * {@link #MAX_NUMBER_OF_ATTEMPTS_PER_BATCH} times in total) if the connection to the server couldn't be established,
+     * so that a batch is never saved twice. If a batch fails, no more batches are sent, but batches already sent are
+     * not reverted.
+     * <p>
      * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
      * if the request failed for example).
      *
@@ -92,66 +115,85 @@ public class IViewerApi implements AutoCloseable {
      * @return a void CompletableFuture (that completes exceptionally if the operation failed)
      */
     public CompletableFuture<Void> addShapes(long imageId, List<? extends Shape> shapesToAdd) {
-        logger.debug("Adding shapes {} to image with ID {}", shapesToAdd, imageId);
+        logger.debug("Adding {} shapes to image with ID {}", shapesToAdd.size(), imageId);
 
         if (shapesToAdd.isEmpty()) {
             logger.debug("No shapes to add to image with ID {}. Returning without sending request", imageId);
             return CompletableFuture.completedFuture(null);
         }
 
-        URI uri;
-        try {
-            uri = new URI(String.format(ROIS_URL, webServerUri));
-        } catch (URISyntaxException e) {
-            return CompletableFuture.failedFuture(e);
+        return sendInBatches(
+                imageId,
+                () -> shapesToAdd.parallelStream().map(Shape::createJson).toList(),
+                RoisSection.NEW
+        );
+    }
+
+    /**
+     * Attempt to replace existing shapes of the provided image on the server by new shapes.
+     * <p>
+     * Shapes are sent in batches, in the same way as {@link #addShapes(long, List)}.
+     * <p>
+     * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
+     * if the request failed for example).
+     *
+     * @param imageId the OMERO image id
+     * @param shapesToModify the existing shapes to replace and the shapes replacing them
+     * @return a void CompletableFuture (that completes exceptionally if the operation failed)
+     */
+    public CompletableFuture<Void> modifyShapes(long imageId, List<ShapesDifference.Modification> shapesToModify) {
+        logger.debug("Modifying {} shapes of image with ID {}", shapesToModify.size(), imageId);
+
+        if (shapesToModify.isEmpty()) {
+            logger.debug("No shapes to modify in image with ID {}. Returning without sending request", imageId);
+            return CompletableFuture.completedFuture(null);
         }
 
-        List<List<String>> roiBatches = BatchCalculator.splitObjectsIntoBatches(
-                shapesToAdd.stream().map(Shape::createJson).toList(),
-                PreferencesManager.getMaxBodySizeBytes(webServerUri),
-                rois -> (long) String.format(
-                        ROIS_BODY,
-                        imageId,
-                        rois.size(),
-                        "",
-                        String.join(", ", rois)
-                ).getBytes(StandardCharsets.UTF_8).length
+        return sendInBatches(
+                imageId,
+                () -> shapesToModify.parallelStream().map(ShapesDifference.Modification::createJson).toList(),
+                RoisSection.MODIFIED
         );
-        logger.debug("Created batches {} for shapes {}", roiBatches, shapesToAdd);
+    }
 
-        return CompletableFuture.runAsync(
-                () -> {
-                    String referer = String.format(ROIS_REFERER_URL, webServerUri, imageId);
-
-                    for (List<String> roiBatch: roiBatches) {
-                        String body = String.format(
-                                ROIS_BODY,
-                                imageId,
-                                roiBatch.size(),
-                                "",
-                                String.join(", ", roiBatch)
-                        );
-                        logger.debug("Sending body {} with referer {} to add shapes {} to image with ID {}", body, referer, roiBatch, imageId);
-
-                        requestSender.post(
-                                uri,
-                                body,
-                                referer,
-                                token
-                        ).thenAccept(response -> {
-                            if (response.toLowerCase().contains("error")) {
-                                throw new RuntimeException(String.format("Error when adding shapes: %s", response));
-                            }
-                        }).join();
-                    }
-                },
-                executorService
+    /**
+     * Attempt to apply the provided changes to the shapes of the provided image on the server.
+     * <p>
+     * Shapes to delete are deleted first with {@link #deleteShapes(long, List)}, then shapes to modify are
+     * modified with {@link #modifyShapes(long, List)}, and finally shapes to add are added with
+     * {@link #addShapes(long, List)}. If one step fails, the following steps are not performed.
+     * <p>
+     * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
+     * if the request failed for example).
+     *
+     * @param imageId the OMERO image id
+     * @param difference the changes to apply to the shapes of the image
+     * @return a void CompletableFuture (that completes exceptionally if the operation failed)
+     */
+    public CompletableFuture<Void> updateShapes(long imageId, ShapesDifference difference) {
+        logger.debug(
+                "Updating shapes of image with ID {}: deleting {} shapes, modifying {} shapes and adding {} shapes",
+                imageId,
+                difference.shapesToDelete().size(),
+                difference.shapesToModify().size(),
+                difference.shapesToAdd().size()
         );
+
+        CompletableFuture<Void> deletion = difference.shapesToDelete().isEmpty() ?
+                CompletableFuture.completedFuture(null) :
+                deleteShapes(imageId, difference.shapesToDelete());
+
+        return deletion
+                .thenCompose(v -> modifyShapes(imageId, difference.shapesToModify()))
+                .thenCompose(v -> addShapes(imageId, difference.shapesToAdd()));
     }
 
     /**
      * Attempt to delete shapes from the provided image on the server.
      * <p>
+     * The ROIs containing the provided shapes are deleted with {@link #deleteRois(long, Map)}, so other shapes
+     * belonging to these ROIs are deleted too.
+     * <p>
      * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
      * if the request failed for example).
      *
@@ -160,37 +202,50 @@ public class IViewerApi implements AutoCloseable {
      * @return a void CompletableFuture (that completes exceptionally if the operation failed)
      */
     public CompletableFuture<Void> deleteShapes(long imageId, List<Shape> shapesToRemove) {
-        logger.debug("Removing shapes {} from image with ID {}", shapesToRemove, imageId);
+        logger.debug("Removing {} shapes from image with ID {}", shapesToRemove.size(), imageId);
 
-        URI uri;
-        try {
-            uri = new URI(String.format(ROIS_URL, webServerUri));
-        } catch (URISyntaxException e) {
-            return CompletableFuture.failedFuture(e);
+        Map<Long, List<Long>> shapeIdsByRoiId = new LinkedHashMap<>();
+        for (Shape shape: shapesToRemove) {
+            String[] ids = shape.getOldId().split(":");
+            shapeIdsByRoiId.computeIfAbsent(Long.parseLong(ids[0]), roiId -> new ArrayList<>()).add(Long.parseLong(ids[1]));
         }
 
-        String body = String.format(
-                ROIS_BODY,
+        return deleteRois(imageId, shapeIdsByRoiId);
+    }
+
+    /**
+     * Attempt to delete ROIs from the provided image on the server.
+     * <p>
+     * ROIs are deleted in batches, in the same way as shapes are sent by {@link #addShapes(long, List)}.
+     * <p>
+     * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
+     * if the request failed for example).
+     *
+     * @param imageId the OMERO image id
+     * @param shapeIdsByRoiId the IDs of the ROIs to delete, each associated with the IDs of the shapes it contains
+     * @return a void CompletableFuture (that completes exceptionally if the operation failed)
+     */
+    public CompletableFuture<Void> deleteRois(long imageId, Map<Long, List<Long>> shapeIdsByRoiId) {
+        logger.debug("Removing {} ROIs from image with ID {}", shapeIdsByRoiId.size(), imageId);
+
+        if (shapeIdsByRoiId.isEmpty()) {
+            logger.debug("No ROIs to remove from image with ID {}. Returning without sending request", imageId);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return sendInBatches(
                 imageId,
-                shapesToRemove.size(),
-                shapesToRemove.stream()
-                        .map(shape -> String.format("\"%s\":[\"%s\"]", shape.getOldId().split(":")[0], shape.getOldId()))
-                        .collect(Collectors.joining(",")),
-                ""
+                () -> shapeIdsByRoiId.entrySet().stream()
+                        .map(entry -> String.format(
+                                "\"%d\":[%s]",
+                                entry.getKey(),
+                                entry.getValue().stream()
+                                        .map(shapeId -> String.format("\"%d:%d\"", entry.getKey(), shapeId))
+                                        .collect(Collectors.joining(ROIS_DELIMITER))
+                        ))
+                        .toList(),
+                RoisSection.EMPTY_ROIS
         );
-        String referer = String.format(ROIS_REFERER_URL, webServerUri, imageId);
-        logger.debug("Sending body {} with referer {} to remove shapes {} from image with ID {}", body, referer, shapesToRemove, imageId);
-
-        return requestSender.post(
-                uri,
-                body,
-                referer,
-                token
-        ).thenAccept(response -> {
-            if (response.toLowerCase().contains("error")) {
-                throw new RuntimeException(String.format("Error when sending shapes: %s", response));
-            }
-        });
     }
 
     /**
@@ -214,4 +269,151 @@ public class IViewerApi implements AutoCloseable {
             return CompletableFuture.failedFuture(e);
         }
     }
+
+    private CompletableFuture<Void> sendInBatches(long imageId, Supplier<List<String>> roisSupplier, RoisSection section) {
+        URI uri;
+        try {
+            uri = new URI(String.format(ROIS_URL, webServerUri));
+        } catch (URISyntaxException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        String referer = String.format(ROIS_REFERER_URL, webServerUri, imageId);
+
+        return CompletableFuture.supplyAsync(
+                () -> {
+                    List<String> rois = roisSupplier.get();
+
+                    // The number of shapes of the whole list is used to compute the size of an empty body,
+                    // so that the count of each batch never takes more characters than expected
+                    List<List<String>> roiBatches = BatchCalculator.splitObjectsIntoBatches(
+                            rois,
+                            PreferencesManager.getMaxBodySizeBytes(webServerUri),
+                            createBody(imageId, List.of(), rois.size(), section).getBytes(StandardCharsets.UTF_8).length,
+                            ROIS_DELIMITER.length(),
+                            IViewerApi::getUtf8Length
+                    );
+                    logger.debug("Created {} batches for {} elements of {} to send to image with ID {}", roiBatches.size(), rois.size(), section, imageId);
+
+                    return roiBatches;
+                },
+                executorService
+        ).thenCompose(roiBatches -> {
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            AtomicInteger nextBatchIndex = new AtomicInteger(0);
+
+            CompletableFuture.allOf(IntStream.range(0, Math.min(roiBatches.size(), MAX_NUMBER_OF_CONCURRENT_BATCHES))
+                    .mapToObj(i -> sendNextBatches(imageId, uri, referer, roiBatches, section, nextBatchIndex, result))
+                    .toArray(CompletableFuture[]::new)
+            ).whenComplete((v, error) -> {
+                if (error == null) {
+                    result.complete(null);
+                } else {
+                    result.completeExceptionally(error);
+                }
+            });
+
+            return result;
+        });
+    }
+
+    private CompletableFuture<Void> sendNextBatches(
+            long imageId,
+            URI uri,
+            String referer,
+            List<List<String>> roiBatches,
+            RoisSection section,
+            AtomicInteger nextBatchIndex,
+            CompletableFuture<Void> globalResult
+    ) {
+        int batchIndex = nextBatchIndex.getAndIncrement();
+        if (batchIndex >= roiBatches.size() || globalResult.isDone()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<String> roiBatch = roiBatches.get(batchIndex);
+        String body = createBody(imageId, roiBatch, roiBatch.size(), section);
+        logger.debug("Sending batch {}/{} of {} elements of {} with referer {} to image with ID {}", batchIndex+1, roiBatches.size(), roiBatch.size(), section, referer, imageId);
+
+        return sendBatch(uri, body, referer, batchIndex, 1)
+                .thenComposeAsync(
+                        v -> sendNextBatches(imageId, uri, referer, roiBatches, section, nextBatchIndex, globalResult),
+                        executorService
+                )
+                .whenComplete((v, error) -> {
+                    if (error != null) {
+                        globalResult.completeExceptionally(error);
+                    }
+                });
+    }
+
+    private CompletableFuture<Void> sendBatch(URI uri, String body, String referer, int batchIndex, int attempt) {
+        return requestSender.post(
+                uri,
+                body,
+                referer,
+                token
+        ).thenAccept(response -> {
+            if (response.toLowerCase().contains("error")) {
+                throw new RuntimeException(String.format("Error when sending shapes: %s", response));
+            }
+        }).exceptionallyCompose(error -> {
+            if (attempt < MAX_NUMBER_OF_ATTEMPTS_PER_BATCH && isConnectionFailure(error)) {
+                logger.debug("Cannot connect to send batch {} (attempt {}/{}). Retrying", batchIndex+1, attempt, MAX_NUMBER_OF_ATTEMPTS_PER_BATCH, error);
+                return sendBatch(uri, body, referer, batchIndex, attempt + 1);
+            } else {
+                return CompletableFuture.failedFuture(error);
+            }
+        });
+    }
+
+    /**
+     * Indicate whether the provided error means that a request never reached the server. Other errors (for
+     * example an error response or a response timeout) may happen after the server processed the request.
+     *
+     * @param error the error that occurred while sending a request
+     * @return whether the provided error or one of its causes is a connection failure
+     */
+    private static boolean isConnectionFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String createBody(long imageId, List<String> rois, int count, RoisSection section) {
+        String joinedRois = String.join(ROIS_DELIMITER, rois);
+
+        return String.format(
+                ROIS_BODY,
+                imageId,
+                count,
+                section == RoisSection.EMPTY_ROIS ? joinedRois : "",
+                "",
+                section == RoisSection.NEW ? joinedRois : "",
+                section == RoisSection.MODIFIED ? joinedRois : ""
+        );
+    }
+
+    private static long getUtf8Length(String text) {
+        long length = 0;
+
+        for (int i=0; i<text.length(); i++) {
+            char character = text.charAt(i);
+
+            if (character < 0x80) {
+                length++;
+            } else if (character < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(character) && i+1 < text.length() && Character.isLowSurrogate(text.charAt(i+1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+
+        return length;
+    }
 }
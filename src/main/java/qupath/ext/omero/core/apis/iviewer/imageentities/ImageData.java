@@ -6,6 +6,7 @@ import qupath.ext.omero.core.apis.commonentities.ChannelSettings;
 
 import java.util.List;
 import java.util.Objects;
+import java.util.stream.IntStream;
 
 /**
  * Represent some information about an image.
@@ -15,6 +16,7 @@ public class ImageData {
     private static final Logger logger = LoggerFactory.getLogger(ImageData.class);
     private final String name;
     private final List<ChannelSettings> channelSettings;
+    private final List<Integer> activeChannels;
 
     /**
      * Create the image data.
@@ -45,6 +47,11 @@ public class ImageData {
                     );
                 })
                 .toList();
+
+        this.activeChannels = omeroImageData.channels() == null ? List.of() : IntStream.range(0, omeroImageData.channels().size())
+                .filter(i -> omeroImageData.channels().get(i).active() == null || omeroImageData.channels().get(i).active())
+                .boxed()
+                .toList();
     }
 
     @Override
@@ -80,4 +87,12 @@ public class ImageData {
     public List<ChannelSettings> getChannelSettings() {
         return channelSettings;
     }
+
+    /**
+     * @return the indices (starting at 0) of the channels currently displayed, or an empty list if not found.
+     * Channels without information on whether they are displayed are considered displayed
+     */
+    public List<Integer> getActiveChannels() {
+        return activeChannels;
+    }
 }
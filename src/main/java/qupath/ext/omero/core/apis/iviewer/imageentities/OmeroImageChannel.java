@@ -6,9 +6,23 @@ package qupath.ext.omero.core.apis.iviewer.imageentities;
  * @param label a text describing the channel. Optional
  * @param color a text representing the hexadecimal color of the channel with the RGB format. For example, "FF0000" to represent red. Optional
  * @param window information on the range of values of this channel. Optional
+ * @param active whether this channel is currently displayed. Optional
  */
 public record OmeroImageChannel(
         String label,
         String color,
-        OmeroWindow window
-) {}
+        OmeroWindow window,
+        Boolean active
+) {
+
+    /**
+     * Create a channel without information on whether it is currently displayed.
+     *
+     * @param label a text describing the channel. Optional
+     * @param color a text representing the hexadecimal color of the channel with the RGB format. Optional
+     * @param window information on the range of values of this channel. Optional
+     */
+    public OmeroImageChannel(String label, String color, OmeroWindow window) {
+        this(label, color, window, null);
+    }
+}
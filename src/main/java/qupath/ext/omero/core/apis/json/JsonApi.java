@@ -50,13 +50,19 @@ import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleConsumer;
 import java.util.function.Function;
 
 /**
@@ -75,6 +81,7 @@ public class JsonApi implements AutoCloseable {
     private static final String EXPECTED_API_VERSION = "0";
     private static final String API_URL = "%s/api/";
     private static final String GROUPS_OF_USER_URL = "%s%d/experimentergroups/";
+    private static final String EXPERIMENTERS_OF_GROUP_URL = "%s%d/experimenters/";
     private static final String DATASETS_IN_PROJECT_URL = "%s%d/datasets/";
     private static final String IMAGES_IN_DATASET_URL = "%s%d/images/";
     private static final String PLATES_IN_SCREEN_URL = "%s%d/plates/";
@@ -561,6 +568,17 @@ public class JsonApi implements AutoCloseable {
         return CompletableFuture.supplyAsync(() -> imagesCache.getUnchecked(imageId), executorService);
     }
 
+    /**
+     * Get an image that was already retrieved by this API (for example when listing the images of a dataset).
+     * This doesn't send any request.
+     *
+     * @param imageId the ID of the image to get
+     * @return the image, or an empty Optional if the image is not in the cache of this API
+     */
+    public Optional<Image> getCachedImage(long imageId) {
+        return Optional.ofNullable(imagesCache.getIfPresent(imageId));
+    }
+
     /**
      * Attempt to retrieve screens belonging to the provided experimenter and group and visible by the current user.
      * <p>
@@ -826,45 +844,233 @@ public class JsonApi implements AutoCloseable {
     public CompletableFuture<List<Shape>> getShapes(long imageId, long userId) {
         URI uri;
         try {
-            if (userId > 0) {
-                uri = new URI(String.format(ROIS_URL, webServerUri, imageId, "&owner=" + userId));
-                logger.debug("Getting shapes belonging to user with ID {} of image with ID {}", userId, imageId);
-            } else {
-                uri = new URI(String.format(ROIS_URL, webServerUri, imageId, ""));
-                logger.debug("Getting all shapes of image with ID {}", imageId);
-            }
+            uri = createShapesUri(imageId, userId);
         } catch (URISyntaxException e) {
             return CompletableFuture.failedFuture(e);
         }
 
         return requestSender.getPaginated(uri).thenApply(jsonElements -> jsonElements.stream()
-                .map(jsonElement -> {
-                    if (!jsonElement.isJsonObject()) {
-                        throw new RuntimeException(String.format("The provided JSON element %s is not a JSON object", jsonElement));
-                    }
-                    JsonObject jsonObject = jsonElement.getAsJsonObject();
+                .map(JsonApi::createShapesFromRoi)
+                .flatMap(List::stream)
+                .toList()
+        );
+    }
 
-                    if (!jsonObject.has("@id") || !jsonObject.get("@id").isJsonPrimitive() ||
-                            !jsonObject.getAsJsonPrimitive("@id").isNumber()
-                    ) {
-                        throw new RuntimeException(String.format("The number '@id' was not found in %s", jsonObject));
-                    }
-                    int roiId = jsonObject.get("@id").getAsInt();
+    /**
+     * Attempt to retrieve shapes of an image optionally belonging to a user, and report the progress of the operation.
+     * <p>
+     * Pages of ROIs are converted to shapes as soon as they are received, while the next pages are being downloaded.
+     * If the returned CompletableFuture is cancelled, no more pages are requested.
+     * <p>
+     * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
+     * if the request or the conversion failed for example).
+     *
+     * @param imageId the OMERO image ID
+     * @param userId the ID of the user that should own the shapes to retrieve. Can be negative or equal to 0 to get
+     *               all shapes of the image
+     * @param progressConsumer a function that will be called with the fraction (between 0 and 1) of ROIs that have been
+     *                         converted to shapes each time a page of ROIs is converted. It may be called from any thread
+     * @return a CompletableFuture (that may complete exceptionally) with the list of ROIs, or an empty list if no ROIs
+     * was found with the provided ID
+     */
+    public CompletableFuture<List<Shape>> getShapes(long imageId, long userId, DoubleConsumer progressConsumer) {
+        URI uri;
+        try {
+            uri = createShapesUri(imageId, userId);
+        } catch (URISyntaxException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<List<Shape>> result = new CompletableFuture<>();
+        List<CompletableFuture<List<Shape>>> pageConversions = new ArrayList<>();
+        AtomicInteger numberOfConvertedRois = new AtomicInteger(0);
 
-                    if (!jsonObject.has("shapes") || !jsonObject.get("shapes").isJsonArray()) {
-                        throw new RuntimeException(String.format("The array 'shapes' was not found in %s", jsonObject));
+        CompletableFuture<Void> pagesRequest = requestSender.getPaginated(uri, (rois, totalNumberOfRois) -> {
+            if (result.isDone()) {
+                throw new CancellationException(String.format("Retrieval of shapes of image with ID %d stopped", imageId));
+            }
+
+            // Pages are provided one after the other, so the list doesn't need to be synchronized
+            pageConversions.add(CompletableFuture.supplyAsync(
+                    () -> {
+                        List<Shape> shapes = rois.stream()
+                                .map(JsonApi::createShapesFromRoi)
+                                .flatMap(List::stream)
+                                .toList();
+
+                        int numberOfRois = numberOfConvertedRois.addAndGet(rois.size());
+                        progressConsumer.accept(totalNumberOfRois == 0 ? 1 : (double) numberOfRois / totalNumberOfRois);
+                        return shapes;
+                    },
+                    executorService
+            ));
+        });
+
+        pagesRequest
+                .thenCompose(v -> CompletableFuture.allOf(pageConversions.toArray(CompletableFuture[]::new)))
+                .thenApply(v -> pageConversions.stream()
+                        .map(CompletableFuture::join)
+                        .flatMap(List::stream)
+                        .toList()
+                )
+                .whenComplete((shapes, error) -> {
+                    if (shapes == null) {
+                        result.completeExceptionally(error);
+                    } else {
+                        result.complete(shapes);
                     }
-                    List<JsonElement> shapes = jsonElement.getAsJsonObject().getAsJsonArray("shapes").asList();
+                });
+        result.whenComplete((shapes, error) -> {
+            if (result.isCancelled()) {
+                logger.debug("Retrieval of shapes of image with ID {} cancelled. Not requesting more pages", imageId);
+                pagesRequest.cancel(true);
+            }
+        });
 
-                    return shapes.stream()
-                            .map(shape -> ShapeCreator.createShape(shape, roiId))
-                            .toList();
-                })
+        return result;
+    }
+
+    /**
+     * Attempt to retrieve the shapes of an image located on a plane and optionally belonging to a user.
+     * <p>
+     * The JSON API cannot filter ROIs by plane, so all ROIs of the image are still downloaded. However, each page
+     * of ROIs is converted and filtered as soon as it is received, so only the shapes of the provided plane are
+     * kept in memory.
+     * <p>
+     * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
+     * if the request or the conversion failed for example).
+     *
+     * @param imageId the OMERO image ID
+     * @param userId the ID of the user that should own the shapes to retrieve. Can be negative or equal to 0 to get
+     *               all shapes of the image
+     * @param z the 0-based z-stack index of the plane containing the shapes to retrieve
+     * @param t the 0-based timepoint index of the plane containing the shapes to retrieve
+     * @return a CompletableFuture (that may complete exceptionally) with the list of shapes, or an empty list if no ROIs
+     * was found with the provided ID
+     */
+    public CompletableFuture<List<Shape>> getShapes(long imageId, long userId, int z, int t) {
+        URI uri;
+        try {
+            uri = createShapesUri(imageId, userId);
+        } catch (URISyntaxException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        // Pages are provided one after the other, so the list doesn't need to be synchronized
+        List<Shape> shapes = new ArrayList<>();
+        return requestSender.getPaginated(uri, (rois, totalNumberOfRois) -> rois.stream()
+                .map(JsonApi::createShapesFromRoi)
                 .flatMap(List::stream)
+                .filter(shape -> shape.isOnPlane(z, t))
+                .forEach(shapes::add)
+        ).thenApply(v -> {
+            logger.debug("Got {} shapes on plane z={} t={} of image with ID {}", shapes.size(), z, t, imageId);
+            return shapes;
+        });
+    }
+
+    /**
+     * Attempt to retrieve the members of a group.
+     * <p>
+     * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
+     * if the request or the conversion failed for example).
+     *
+     * @param groupId the ID of the group whose members should be retrieved
+     * @return a CompletableFuture (that may complete exceptionally) with the experimenters that are members of the group
+     */
+    public CompletableFuture<List<Experimenter>> getGroupMembers(long groupId) {
+        logger.debug("Getting members of group with ID {}", groupId);
+
+        URI uri;
+        try {
+            uri = new URI(String.format(EXPERIMENTERS_OF_GROUP_URL, links.groups(), groupId));
+        } catch (URISyntaxException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return requestSender.getPaginated(uri).thenApply(jsonElements -> jsonElements.stream()
+                .map(jsonElement -> new Experimenter(gson.fromJson(jsonElement, OmeroExperimenter.class)))
                 .toList()
         );
     }
 
+    /**
+     * Attempt to retrieve the number of ROIs of an image optionally belonging to a user.
+     * <p>
+     * This doesn't download any ROI: a request asking for a single ROI is sent, and only the total number of ROIs
+     * indicated in the response is read. This is much cheaper than {@link #getShapes(long, long)} when only the
+     * number of ROIs is needed.
+     * <p>
+     * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
+     * if the request or the conversion failed for example).
+     *
+     * @param imageId the OMERO image ID
+     * @param ownerId the ID of the user that should own the ROIs to count. Can be negative or equal to 0 to count
+     *                the ROIs of all users
+     * @return a CompletableFuture (that may complete exceptionally) with the number of ROIs of the image
+     */
+    public CompletableFuture<Integer> getNumberOfRois(long imageId, long ownerId) {
+        logger.debug("Getting number of ROIs of image with ID {} belonging to user with ID {}", imageId, ownerId);
+
+        URI uri;
+        try {
+            uri = new URI(String.format(
+                    ROIS_URL,
+                    webServerUri,
+                    imageId,
+                    ownerId > 0 ? String.format("&owner=%d&limit=1", ownerId) : "&limit=1"
+            ));
+        } catch (URISyntaxException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return requestSender.getAndConvert(uri, JsonObject.class).thenApply(response -> {
+            if (!response.has("meta") || !response.get("meta").isJsonObject() ||
+                    !response.getAsJsonObject("meta").has("totalCount") ||
+                    !response.getAsJsonObject("meta").get("totalCount").isJsonPrimitive()
+            ) {
+                throw new RuntimeException(String.format("The number 'meta.totalCount' was not found in %s", response));
+            }
+
+            return response.getAsJsonObject("meta").get("totalCount").getAsInt();
+        });
+    }
+
+    /**
+     * Attempt to retrieve the IDs of the shapes of an image optionally belonging to a user.
+     * <p>
+     * Only the IDs are read from the response, so this is faster and uses less memory than {@link #getShapes(long, long)}
+     * when the content of the shapes is not needed.
+     * <p>
+     * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
+     * if the request or the conversion failed for example).
+     *
+     * @param imageId the OMERO image ID
+     * @param userId the ID of the user that should own the shapes to retrieve. Can be negative or equal to 0 to get
+     *               the shapes of all users
+     * @return a CompletableFuture (that may complete exceptionally) with the IDs of the ROIs of the image, each associated
+     * with the IDs of the shapes it contains
+     */
+    public CompletableFuture<Map<Long, List<Long>>> getShapeIds(long imageId, long userId) {
+        URI uri;
+        try {
+            uri = createShapesUri(imageId, userId);
+        } catch (URISyntaxException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return requestSender.getPaginated(uri).thenApply(rois -> {
+            Map<Long, List<Long>> shapeIdsByRoiId = new LinkedHashMap<>();
+
+            for (JsonElement roi: rois) {
+                Map.Entry<Long, List<Long>> shapeIdsOfRoi = getShapeIdsOfRoi(roi);
+                shapeIdsByRoiId.put(shapeIdsOfRoi.getKey(), shapeIdsOfRoi.getValue());
+            }
+
+            return shapeIdsByRoiId;
+        });
+    }
+
     /**
      * Attempt to re-login with the stored session UUID. This can be used as a last resort if the ping fails.
      * Note that this won't work if no authentication was previously performed.
@@ -995,40 +1201,21 @@ public class JsonApi implements AutoCloseable {
         return CompletableFuture.supplyAsync(
                 () -> {
                     try {
-                        return idCache.get(
-                                key,
-                                () -> {
-                                    logger.debug(
-                                            "Fetching children of parent with ID {}, belonging to experimenter with ID {} and group with ID {} (not already in cache)",
-                                            key.parentId(),
-                                            key.experimenterId(),
-                                            key.groupId()
-                                    );
-
-                                    URI uri = URI.create(url);
-
-                                    synchronized (this) {
-                                        numberOfEntitiesLoading.set(numberOfEntitiesLoading.get() + 1);
-                                    }
-
-                                    try {
-                                        List<T> entities = requestSender.getPaginated(uri).thenApply(jsonElements -> jsonElements.stream()
-                                                .map(serverEntityCreator)
-                                                .toList()
-                                        ).get();
-
-                                        for (T entity: entities) {
-                                            entityCache.put(entity.getId(), entity);
-                                        }
-
-                                        return entities.stream().map(ServerEntity::getId).toList();
-                                    } finally {
-                                        synchronized (this) {
-                                            numberOfEntitiesLoading.set(numberOfEntitiesLoading.get() - 1);
-                                        }
-                                    }
-                                }
-                        ).stream().map(entityCache::getUnchecked).toList();
+                        Optional<List<T>> cachedChildren = getCachedChildren(idCache, entityCache, key, url, serverEntityCreator, false);
+                        if (cachedChildren.isPresent()) {
+                            return cachedChildren.get();
+                        }
+
+                        // Some children were evicted from the entity cache. Listing them again takes a few paginated
+                        // requests, while getting them one by one would take one request per child
+                        logger.debug(
+                                "Some children of parent with ID {}, belonging to experimenter with ID {} and group with ID {} not in cache anymore. Fetching them again",
+                                key.parentId(),
+                                key.experimenterId(),
+                                key.groupId()
+                        );
+                        idCache.invalidate(key);
+                        return getCachedChildren(idCache, entityCache, key, url, serverEntityCreator, true).orElseThrow();
                     } catch (ExecutionException e) {
                         throw new RuntimeException(e);
                     }
@@ -1037,6 +1224,75 @@ public class JsonApi implements AutoCloseable {
         );
     }
 
+    /**
+     * Get the children of a parent from the ID cache (or fetch them if not present), and return them if all
+     * of them are also present in the entity cache or if loadMissingEntities is true (in which case missing
+     * children are fetched one by one). Children fetched by this function are returned directly, even if the
+     * entity cache is too small to contain all of them.
+     */
+    private <T extends ServerEntity> Optional<List<T>> getCachedChildren(
+            Cache<ServerEntityCacheKey, List<Long>> idCache,
+            LoadingCache<Long, T> entityCache,
+            ServerEntityCacheKey key,
+            String url,
+            Function<JsonElement, T> serverEntityCreator,
+            boolean loadMissingEntities
+    ) throws ExecutionException {
+        AtomicReference<List<T>> fetchedChildren = new AtomicReference<>();
+
+        List<Long> ids = idCache.get(
+                key,
+                () -> {
+                    logger.debug(
+                            "Fetching children of parent with ID {}, belonging to experimenter with ID {} and group with ID {} (not already in cache)",
+                            key.parentId(),
+                            key.experimenterId(),
+                            key.groupId()
+                    );
+
+                    URI uri = URI.create(url);
+
+                    synchronized (this) {
+                        numberOfEntitiesLoading.set(numberOfEntitiesLoading.get() + 1);
+                    }
+
+                    try {
+                        List<T> entities = requestSender.getPaginated(uri).thenApply(jsonElements -> jsonElements.stream()
+                                .map(serverEntityCreator)
+                                .toList()
+                        ).get();
+
+                        for (T entity: entities) {
+                            entityCache.put(entity.getId(), entity);
+                        }
+                        fetchedChildren.set(entities);
+
+                        return entities.stream().map(ServerEntity::getId).toList();
+                    } finally {
+                        synchronized (this) {
+                            numberOfEntitiesLoading.set(numberOfEntitiesLoading.get() - 1);
+                        }
+                    }
+                }
+        );
+
+        if (fetchedChildren.get() != null) {
+            return Optional.of(fetchedChildren.get());
+        }
+
+        Map<Long, T> cachedEntities = entityCache.getAllPresent(ids);
+        if (loadMissingEntities) {
+            return Optional.of(ids.stream()
+                    .map(id -> cachedEntities.containsKey(id) ? cachedEntities.get(id) : entityCache.getUnchecked(id))
+                    .toList()
+            );
+        } else if (cachedEntities.size() == ids.size()) {
+            return Optional.of(ids.stream().map(cachedEntities::get).toList());
+        } else {
+            return Optional.empty();
+        }
+    }
+
     private static CompletableFuture<LoginResponse> authenticate(
             RequestSender requestSender,
             String url,
@@ -1062,6 +1318,70 @@ public class JsonApi implements AutoCloseable {
                 .thenApply(LoginResponse::parseServerAuthenticationResponse);
     }
 
+    private URI createShapesUri(long imageId, long userId) throws URISyntaxException {
+        if (userId > 0) {
+            logger.debug("Getting shapes belonging to user with ID {} of image with ID {}", userId, imageId);
+            return new URI(String.format(ROIS_URL, webServerUri, imageId, "&owner=" + userId));
+        } else {
+            logger.debug("Getting all shapes of image with ID {}", imageId);
+            return new URI(String.format(ROIS_URL, webServerUri, imageId, ""));
+        }
+    }
+
+    private static List<Shape> createShapesFromRoi(JsonElement jsonElement) {
+        if (!jsonElement.isJsonObject()) {
+            throw new RuntimeException(String.format("The provided JSON element %s is not a JSON object", jsonElement));
+        }
+        JsonObject jsonObject = jsonElement.getAsJsonObject();
+
+        if (!jsonObject.has("@id") || !jsonObject.get("@id").isJsonPrimitive() ||
+                !jsonObject.getAsJsonPrimitive("@id").isNumber()
+        ) {
+            throw new RuntimeException(String.format("The number '@id' was not found in %s", jsonObject));
+        }
+        int roiId = jsonObject.get("@id").getAsInt();
+
+        if (!jsonObject.has("shapes") || !jsonObject.get("shapes").isJsonArray()) {
+            throw new RuntimeException(String.format("The array 'shapes' was not found in %s", jsonObject));
+        }
+        List<JsonElement> shapes = jsonObject.getAsJsonArray("shapes").asList();
+
+        return shapes.stream()
+                .map(shape -> ShapeCreator.createShape(shape, roiId))
+                .toList();
+    }
+
+    private static Map.Entry<Long, List<Long>> getShapeIdsOfRoi(JsonElement jsonElement) {
+        if (!jsonElement.isJsonObject()) {
+            throw new RuntimeException(String.format("The provided JSON element %s is not a JSON object", jsonElement));
+        }
+        JsonObject jsonObject = jsonElement.getAsJsonObject();
+
+        if (!jsonObject.has("@id") || !jsonObject.get("@id").isJsonPrimitive() ||
+                !jsonObject.getAsJsonPrimitive("@id").isNumber()
+        ) {
+            throw new RuntimeException(String.format("The number '@id' was not found in %s", jsonObject));
+        }
+        long roiId = jsonObject.get("@id").getAsLong();
+
+        if (!jsonObject.has("shapes") || !jsonObject.get("shapes").isJsonArray()) {
+            throw new RuntimeException(String.format("The array 'shapes' was not found in %s", jsonObject));
+        }
+        List<Long> shapeIds = jsonObject.getAsJsonArray("shapes").asList().stream()
+                .map(shape -> {
+                    if (!shape.isJsonObject() || !shape.getAsJsonObject().has("@id") ||
+                            !shape.getAsJsonObject().get("@id").isJsonPrimitive() ||
+                            !shape.getAsJsonObject().getAsJsonPrimitive("@id").isNumber()
+                    ) {
+                        throw new RuntimeException(String.format("The number '@id' was not found in shape %s of %s", shape, jsonObject));
+                    }
+                    return shape.getAsJsonObject().get("@id").getAsLong();
+                })
+                .toList();
+
+        return Map.entry(roiId, shapeIds);
+    }
+
     private <T extends ServerEntity> CompletableFuture<T> getEntity(String url, Function<JsonElement, T> serverEntityCreator) {
         URI uri;
         try {
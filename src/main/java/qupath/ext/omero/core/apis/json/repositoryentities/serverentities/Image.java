@@ -4,6 +4,8 @@ import qupath.ext.omero.core.apis.json.repositoryentities.RepositoryEntity;
 import qupath.ext.omero.core.apis.json.jsonentities.server.image.OmeroImage;
 import qupath.ext.omero.core.apis.json.jsonentities.server.image.OmeroPhysicalSize;
 import qupath.ext.omero.core.pixelapis.PixelApi;
+import qupath.lib.images.servers.ImageChannel;
+import qupath.lib.images.servers.ImageServerMetadata;
 import qupath.lib.images.servers.PixelType;
 
 import java.net.URI;
@@ -220,6 +222,52 @@ public class Image extends ServerEntity {
         return Optional.ofNullable(pixelType);
     }
 
+    /**
+     * Create provisional metadata of this image, only from the information returned by the JSON API.
+     * <p>
+     * The returned metadata has the size, pixel type, and pixel size (when expressed in a known unit) of this
+     * image. However, it has a single resolution level, no preferred tile size, default channel names and colors,
+     * and no magnification. It can be used to describe an image without fetching its full metadata, but should
+     * be replaced by the full metadata before reading pixels.
+     *
+     * @return provisional metadata of this image, or an empty Optional if the pixel type of this image
+     * was not recognized or if this image has no channel
+     */
+    public Optional<ImageServerMetadata> createProvisionalMetadata() {
+        if (pixelType == null || sizeC < 1) {
+            return Optional.empty();
+        }
+
+        boolean isRgb = sizeC == 3 && pixelType == PixelType.UINT8;
+        ImageServerMetadata.Builder builder = new ImageServerMetadata.Builder()
+                .name(getName().orElse(null))
+                .width(sizeX)
+                .height(sizeY)
+                .sizeZ(sizeZ)
+                .sizeT(sizeT)
+                .pixelType(pixelType)
+                .rgb(isRgb)
+                .channels(isRgb ? ImageChannel.getDefaultRGBChannels() : ImageChannel.getDefaultChannelList(sizeC));
+
+        Optional<Double> pixelWidthMicrons = getPhysicalSizeX().flatMap(Image::toMicrons);
+        Optional<Double> pixelHeightMicrons = getPhysicalSizeY().flatMap(Image::toMicrons);
+        if (pixelWidthMicrons.isPresent() && pixelHeightMicrons.isPresent()) {
+            builder.pixelSizeMicrons(pixelWidthMicrons.get(), pixelHeightMicrons.get());
+        }
+        getPhysicalSizeZ().flatMap(Image::toMicrons).ifPresent(builder::zSpacingMicrons);
+
+        return Optional.of(builder.build());
+    }
+
+    private static Optional<Double> toMicrons(OmeroPhysicalSize physicalSize) {
+        return switch (physicalSize.symbol()) {
+            case "µm", "um" -> Optional.of(physicalSize.value());
+            case "nm" -> Optional.of(physicalSize.value() / 1000);
+            case "mm" -> Optional.of(physicalSize.value() * 1000);
+            default -> Optional.empty();
+        };
+    }
+
     private boolean pixelTypeUnsupported(PixelApi pixelApi) {
         return pixelType == null || !pixelApi.canReadImage(pixelType);
     }
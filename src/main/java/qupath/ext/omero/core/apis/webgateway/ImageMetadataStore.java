@@ -0,0 +1,241 @@
+package qupath.ext.omero.core.apis.webgateway;
+
+import com.google.gson.JsonParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import qupath.lib.gui.prefs.PathPrefs;
+import qupath.lib.images.servers.ImageServerMetadata;
+import qupath.lib.io.GsonTools;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * A store of {@link ImageServerMetadata} persisted on disk, in the QuPath user directory.
+ * There is one directory per OMERO server and one file per image.
+ * <p>
+ * Each stored metadata is saved with the time it was retrieved from the server, so that callers can
+ * decide when it should be retrieved again.
+ * <p>
+ * The store of a server is bounded: by default, metadata retrieved more than {@link #MAX_AGE_MILLIS} milliseconds
+ * ago are discarded, and only the {@link #MAX_NUMBER_OF_ENTRIES} most recently retrieved metadata are kept. Entries
+ * are pruned when the first metadata is saved, and then every {@link #PRUNING_PERIOD} saves.
+ * <p>
+ * If the QuPath user directory is not defined, nothing is stored.
+ * <p>
+ * This class is thread-safe.
+ */
+class ImageMetadataStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageMetadataStore.class);
+    private static final String STORE_DIRECTORY_NAME = "omero-image-metadata";
+    private static final String FILE_EXTENSION = ".json";
+    private static final long MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(30);
+    private static final int MAX_NUMBER_OF_ENTRIES = 10000;
+    private static final int PRUNING_PERIOD = 100;
+    private final AtomicInteger numberOfSaves = new AtomicInteger(0);
+    private final Path directory;
+    private final long maxAgeMillis;
+    private final int maxNumberOfEntries;
+    private record StoreFile(Path path, FileTime lastModifiedTime) {}
+
+    /**
+     * A metadata of the store.
+     *
+     * @param metadata the metadata of the image
+     * @param retrievalTime the time (in milliseconds since the epoch) when the metadata was retrieved from the server
+     */
+    record StoredMetadata(ImageServerMetadata metadata, long retrievalTime) {}
+
+    /**
+     * Create the store. This doesn't read or write anything on disk.
+     *
+     * @param webServerUri the URL of the OMERO web server whose image metadata should be stored
+     */
+    public ImageMetadataStore(URI webServerUri) {
+        this(getDirectory(webServerUri), MAX_AGE_MILLIS, MAX_NUMBER_OF_ENTRIES);
+    }
+
+    /**
+     * Create the store in the provided directory. This doesn't read or write anything on disk.
+     *
+     * @param directory the directory where metadata should be stored, or null to not store anything
+     * @param maxAgeMillis the number of milliseconds after which a stored metadata is discarded
+     * @param maxNumberOfEntries the maximum number of metadata kept when the store is pruned
+     */
+    ImageMetadataStore(Path directory, long maxAgeMillis, int maxNumberOfEntries) {
+        this.directory = directory;
+        this.maxAgeMillis = maxAgeMillis;
+        this.maxNumberOfEntries = maxNumberOfEntries;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Image metadata store in %s", directory);
+    }
+
+    /**
+     * Get the metadata of an image from this store.
+     *
+     * @param imageId the ID of the image
+     * @return the stored metadata of the image, or an empty Optional if the metadata of the image
+     * is not in the store, cannot be read, or was retrieved too long ago (in which case it is deleted)
+     */
+    public Optional<StoredMetadata> get(long imageId) {
+        if (directory == null) {
+            return Optional.empty();
+        }
+
+        Path file = getFile(imageId);
+        if (!Files.isRegularFile(file)) {
+            logger.debug("Metadata of image with ID {} not found in {}", imageId, this);
+            return Optional.empty();
+        }
+
+        try {
+            StoredMetadata storedMetadata = GsonTools.getInstance().fromJson(Files.readString(file), StoredMetadata.class);
+
+            if (storedMetadata == null || storedMetadata.metadata() == null) {
+                logger.debug("Metadata of image with ID {} in {} is empty", imageId, this);
+                return Optional.empty();
+            } else if (System.currentTimeMillis() - storedMetadata.retrievalTime() > maxAgeMillis) {
+                logger.debug("Metadata of image with ID {} in {} too old. Deleting it", imageId, this);
+                Files.deleteIfExists(file);
+                return Optional.empty();
+            } else {
+                logger.debug("Metadata of image with ID {} found in {}", imageId, this);
+                return Optional.of(storedMetadata);
+            }
+        } catch (IOException | JsonParseException e) {
+            logger.debug("Cannot read metadata of image with ID {} from {}", imageId, file, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Save the metadata of an image in this store. Any existing metadata of the image
+     * is replaced. This may prune the store (see the class description). Errors are logged
+     * and otherwise ignored.
+     *
+     * @param imageId the ID of the image
+     * @param metadata the metadata to save
+     */
+    public void put(long imageId, ImageServerMetadata metadata) {
+        if (directory == null) {
+            return;
+        }
+
+        Path file = getFile(imageId);
+        try {
+            Files.createDirectories(directory);
+
+            // Write to a temporary file first so that a partially written file is never read
+            Path temporaryFile = Files.createTempFile(directory, String.valueOf(imageId), ".tmp");
+            Files.writeString(
+                    temporaryFile,
+                    GsonTools.getInstance().toJson(new StoredMetadata(metadata, System.currentTimeMillis()))
+            );
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            logger.debug("Metadata of image with ID {} saved to {}", imageId, file);
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Cannot save metadata of image with ID {} to {}", imageId, file, e);
+        }
+
+        if (numberOfSaves.getAndIncrement() % PRUNING_PERIOD == 0) {
+            prune();
+        }
+    }
+
+    /**
+     * Remove the metadata of an image from this store. Nothing happens if the metadata of the image
+     * is not in the store. Errors are logged and otherwise ignored.
+     *
+     * @param imageId the ID of the image
+     */
+    public void remove(long imageId) {
+        if (directory == null) {
+            return;
+        }
+
+        Path file = getFile(imageId);
+        try {
+            if (Files.deleteIfExists(file)) {
+                logger.debug("Metadata of image with ID {} removed from {}", imageId, this);
+            }
+        } catch (IOException e) {
+            logger.debug("Cannot remove metadata of image with ID {} from {}", imageId, file, e);
+        }
+    }
+
+    private static Path getDirectory(URI webServerUri) {
+        String userPath = PathPrefs.getUserPath();
+
+        if (userPath == null) {
+            logger.debug("QuPath user directory not defined. Image metadata of {} won't be stored on disk", webServerUri);
+            return null;
+        } else {
+            return Paths.get(
+                    userPath,
+                    STORE_DIRECTORY_NAME,
+                    URLEncoder.encode(webServerUri.getAuthority(), StandardCharsets.UTF_8)
+            );
+        }
+    }
+
+    private Path getFile(long imageId) {
+        return directory.resolve(imageId + FILE_EXTENSION);
+    }
+
+    private void prune() {
+        // The last modified time of a file is the time its metadata was retrieved, so it can be used
+        // to prune entries without parsing them
+        List<StoreFile> files;
+        try (Stream<Path> paths = Files.list(directory)) {
+            files = paths
+                    .filter(path -> path.getFileName().toString().endsWith(FILE_EXTENSION))
+                    .map(path -> new StoreFile(path, getLastModifiedTime(path)))
+                    .sorted(Comparator.comparing(StoreFile::lastModifiedTime).reversed())
+                    .toList();
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Cannot list entries of {}. Skipping pruning", this, e);
+            return;
+        }
+
+        FileTime oldestAllowedTime = FileTime.fromMillis(System.currentTimeMillis() - maxAgeMillis);
+        int numberOfDeletedFiles = 0;
+        for (int i=0; i<files.size(); i++) {
+            if (i >= maxNumberOfEntries || files.get(i).lastModifiedTime().compareTo(oldestAllowedTime) < 0) {
+                try {
+                    Files.deleteIfExists(files.get(i).path());
+                    numberOfDeletedFiles++;
+                } catch (IOException e) {
+                    logger.debug("Cannot delete {}", files.get(i).path(), e);
+                }
+            }
+        }
+        logger.debug("{} entries of {} pruned", numberOfDeletedFiles, this);
+    }
+
+    private static FileTime getLastModifiedTime(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            logger.debug("Cannot get last modified time of {}. Considering it as very old", path, e);
+            return FileTime.fromMillis(0);
+        }
+    }
+}
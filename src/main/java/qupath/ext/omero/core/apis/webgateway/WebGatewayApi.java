@@ -22,6 +22,7 @@ import java.net.URISyntaxException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -42,6 +43,7 @@ public class WebGatewayApi implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(WebGatewayApi.class);
     private static final int THUMBNAIL_CACHE_SIZE = 1000;
     private static final int METADATA_CACHE_SIZE = 50;
+    private static final long STORED_METADATA_VALIDITY_PERIOD_MILLIS = 24 * 60 * 60 * 1000;
     private static final String ICON_URL = "%s/static/webgateway/img/%s";
     private static final String PROJECT_ICON_NAME = "folder16.png";
     private static final String DATASET_ICON_NAME = "folder_image16.png";
@@ -66,6 +68,7 @@ public class WebGatewayApi implements AutoCloseable {
     private final String token;
     private final LoadingCache<IdSizeWrapper, BufferedImage> thumbnailsCache;
     private final LoadingCache<Long, ImageServerMetadata> metadataCache;
+    private final ImageMetadataStore metadataStore;
     private CompletableFuture<BufferedImage> orphanedFolderRequest;
     private record IdSizeWrapper(long id, int size) {}
 
@@ -81,6 +84,7 @@ public class WebGatewayApi implements AutoCloseable {
         this.webServerUri = webServerUri;
         this.requestSender = requestSender;
         this.token = token;
+        this.metadataStore = new ImageMetadataStore(webServerUri);
 
         this.thumbnailsCache = CacheBuilder.newBuilder()
                 .maximumSize(THUMBNAIL_CACHE_SIZE)
@@ -105,12 +109,17 @@ public class WebGatewayApi implements AutoCloseable {
                 .maximumSize(METADATA_CACHE_SIZE)
                 .build(new CacheLoader<>() {
                     @Override
-                    public ImageServerMetadata load(Long imageId) throws ExecutionException, InterruptedException, URISyntaxException {
-                        logger.debug("Fetching metadata of image with ID {} (not already in cache)", imageId);
+                    public ImageServerMetadata load(Long imageId) throws ExecutionException, InterruptedException {
+                        ImageMetadataStore.StoredMetadata storedMetadata = metadataStore.get(imageId).orElse(null);
+                        if (storedMetadata != null && System.currentTimeMillis() - storedMetadata.retrievalTime() <= STORED_METADATA_VALIDITY_PERIOD_MILLIS) {
+                            return storedMetadata.metadata();
+                        }
+
+                        logger.debug("Fetching metadata of image with ID {} (not already in cache or stored metadata outdated)", imageId);
+                        ImageServerMetadata metadata = fetchMetadata(imageId).get();
+                        metadataStore.put(imageId, metadata);
 
-                        return requestSender.getAndConvert(new URI(String.format(IMAGE_DATA_URL, webServerUri, imageId)), JsonObject.class)
-                                .thenApply(ImageMetadataResponseParser::createMetadataFromJson)
-                                .get();
+                        return metadata;
                     }
                 });
     }
@@ -237,7 +246,10 @@ public class WebGatewayApi implements AutoCloseable {
      * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
      * if the request failed for example).
      * <p>
-     * Metadata are cached in a cache of size {@link #METADATA_CACHE_SIZE}.
+     * Metadata are cached in a cache of size {@link #METADATA_CACHE_SIZE}. They are also stored on disk,
+     * so that they can be returned without any request in later sessions. A metadata stored more than
+     * {@link #STORED_METADATA_VALIDITY_PERIOD_MILLIS} milliseconds ago is not returned: it is retrieved again
+     * from the server (see {@link #getStoredImageMetadata(long)} to get it anyway).
      *
      * @param imageId the OMERO image ID
      * @return a CompletableFuture (that may complete exceptionally) with the metadata
@@ -248,6 +260,39 @@ public class WebGatewayApi implements AutoCloseable {
         return CompletableFuture.supplyAsync(() -> metadataCache.getUnchecked(imageId), executorService);
     }
 
+    /**
+     * Remove the metadata of an image from the cache and from the disk (see {@link #getImageMetadata(long)}),
+     * so that it is retrieved again from the server the next time it is requested. This should be called
+     * when the image is modified.
+     *
+     * @param imageId the OMERO image ID
+     */
+    public void invalidateImageMetadata(long imageId) {
+        logger.debug("Invalidating metadata of image with ID {}", imageId);
+
+        metadataCache.invalidate(imageId);
+        metadataStore.remove(imageId);
+    }
+
+    /**
+     * Get the metadata of an image already in memory or stored on disk (see {@link #getImageMetadata(long)}),
+     * even if it was stored too long ago to be considered valid. This doesn't send any request, but may read a file.
+     * <p>
+     * The returned metadata may not correspond to the current state of the image on the server, so it should
+     * only be used as a hint (for example to display an image before its actual metadata is retrieved).
+     *
+     * @param imageId the OMERO image ID
+     * @return the metadata of the image in memory or stored on disk, or an empty Optional if there is none
+     */
+    public Optional<ImageServerMetadata> getStoredImageMetadata(long imageId) {
+        ImageServerMetadata cachedMetadata = metadataCache.getIfPresent(imageId);
+        if (cachedMetadata == null) {
+            return metadataStore.get(imageId).map(ImageMetadataStore.StoredMetadata::metadata);
+        } else {
+            return Optional.of(cachedMetadata);
+        }
+    }
+
     /**
      * Attempt to read a tile (portion of image).
      * <p>
@@ -284,9 +329,73 @@ public class WebGatewayApi implements AutoCloseable {
         }
     }
 
+    /**
+     * Attempt to read a tile (portion of image) rendered by the server as an RGB composite of the provided channels.
+     * Only the provided channels are rendered, so this can be much faster than reading all channels of an
+     * image with many channels.
+     * <p>
+     * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
+     * if the request or the conversion failed for example).
+     *
+     * @param imageId the OMERO image ID
+     * @param tileRequest the tile request (usually coming from the {@link qupath.lib.images.servers.AbstractTileableImageServer AbstractTileableImageServer})
+     * @param preferredTileWidth the preferred tile width in pixels
+     * @param preferredTileHeight the preferred tile height in pixels
+     * @param quality the JPEG quality, from 0 to 1
+     * @param channels the indices (starting at 0) of the channels to render. The returned CompletableFuture completes
+     *                 exceptionally if this list is empty
+     * @param channelSettings the display ranges and colors of all channels of the image
+     * @return a CompletableFuture (that may complete exceptionally) with the tile
+     * @throws IndexOutOfBoundsException if one of the provided channel indices doesn't correspond to an element of
+     * {@code channelSettings}
+     */
+    public CompletableFuture<BufferedImage> readCompositeTile(
+            long imageId,
+            TileRequest tileRequest,
+            int preferredTileWidth,
+            int preferredTileHeight,
+            double quality,
+            List<Integer> channels,
+            List<ChannelSettings> channelSettings
+    ) {
+        logger.debug("Reading composite tile {} of image with ID {}, JPEG quality {} and channels {}", tileRequest, imageId, quality, channels);
+
+        if (channels.isEmpty()) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException(String.format(
+                    "No channel to render provided for tile %s of image with ID %d", tileRequest, imageId
+            )));
+        }
+
+        try {
+            return requestSender.getImage(new URI(String.format(
+                    TILE_URL,
+                    webServerUri,
+                    imageId,
+                    tileRequest.getZ(),
+                    tileRequest.getT(),
+                    tileRequest.getLevel(),
+                    tileRequest.getTileX() / preferredTileWidth,
+                    tileRequest.getTileY() / preferredTileHeight,
+                    preferredTileWidth,
+                    preferredTileHeight,
+                    URLEncoder.encode(
+                            channels.stream()
+                                    .map(channel -> createChannelParameter(channel, channelSettings.get(channel)))
+                                    .collect(Collectors.joining(",")),
+                            StandardCharsets.UTF_8
+                    ),
+                    quality
+            )));
+        } catch (URISyntaxException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     /**
      * Attempt to change the channel colors of an image.
      * <p>
+     * The metadata of the image is invalidated if the operation succeeds (see {@link #invalidateImageMetadata(long)}).
+     * <p>
      * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
      * if the request or the conversion failed for example).
      *
@@ -323,6 +432,8 @@ public class WebGatewayApi implements AutoCloseable {
     /**
      * Attempt to change the channel display ranges of an image.
      * <p>
+     * The metadata of the image is invalidated if the operation succeeds (see {@link #invalidateImageMetadata(long)}).
+     * <p>
      * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
      * if the request or the conversion failed for example).
      *
@@ -367,18 +478,7 @@ public class WebGatewayApi implements AutoCloseable {
                     URLEncoder.encode(
                             IntStream
                                     .range(0, channelSettings.size())
-                                    .mapToObj(i -> String.format(
-                                            "%d|%f:%f$%s",
-                                            i + 1,
-                                            channelSettings.get(i).minDisplayRange(),
-                                            channelSettings.get(i).maxDisplayRange(),
-                                            String.format(
-                                                    "%02X%02X%02X",
-                                                    ColorTools.unpackRGB(channelSettings.get(i).rgbColor())[0],
-                                                    ColorTools.unpackRGB(channelSettings.get(i).rgbColor())[1],
-                                                    ColorTools.unpackRGB(channelSettings.get(i).rgbColor())[2]
-                                            )
-                                    ))
+                                    .mapToObj(i -> createChannelParameter(i, channelSettings.get(i)))
                                     .collect(Collectors.joining(",")),
                             StandardCharsets.UTF_8
                     )
@@ -399,6 +499,32 @@ public class WebGatewayApi implements AutoCloseable {
             if (!response.equals("true")) {
                 throw new RuntimeException(String.format("Change channel display ranges and colors response %s not true", response));
             }
+
+            invalidateImageMetadata(imageId);
         });
     }
+
+    private static String createChannelParameter(int channelIndex, ChannelSettings channelSettings) {
+        return String.format(
+                "%d|%f:%f$%s",
+                channelIndex + 1,
+                channelSettings.minDisplayRange(),
+                channelSettings.maxDisplayRange(),
+                String.format(
+                        "%02X%02X%02X",
+                        ColorTools.unpackRGB(channelSettings.rgbColor())[0],
+                        ColorTools.unpackRGB(channelSettings.rgbColor())[1],
+                        ColorTools.unpackRGB(channelSettings.rgbColor())[2]
+                )
+        );
+    }
+
+    private CompletableFuture<ImageServerMetadata> fetchMetadata(long imageId) {
+        try {
+            return requestSender.getAndConvert(new URI(String.format(IMAGE_DATA_URL, webServerUri, imageId)), JsonObject.class)
+                    .thenApply(ImageMetadataResponseParser::createMetadataFromJson);
+        } catch (URISyntaxException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 }
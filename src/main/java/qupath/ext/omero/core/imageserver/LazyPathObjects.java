@@ -0,0 +1,144 @@
+package qupath.ext.omero.core.imageserver;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import qupath.ext.omero.core.Client;
+import qupath.ext.omero.core.apis.commonentities.shapes.Shape;
+import qupath.lib.objects.PathObject;
+import qupath.lib.regions.ImagePlane;
+import qupath.lib.regions.ImageRegion;
+import qupath.lib.roi.interfaces.ROI;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A read-only view of the shapes of an OMERO image, converted to path objects only when needed.
+ * <p>
+ * Instead of retrieving all shapes of the image at once, the shapes of a plane (z-stack and timepoint) are
+ * retrieved the first time a region of this plane is requested (see {@link Client#getShapes(long, long, int, int)}).
+ * The resulting path objects (and their descendants) are stored in a spatial index, so that the path objects
+ * intersecting a region can be quickly found.
+ * <p>
+ * Only the indices of the last few requested planes are kept in memory. Path objects returned by this class
+ * should not be modified or added to a hierarchy, as they may be shared between calls.
+ * <p>
+ * This class is thread-safe.
+ */
+public class LazyPathObjects {
+
+    private static final Logger logger = LoggerFactory.getLogger(LazyPathObjects.class);
+    private final Cache<ImagePlane, CompletableFuture<STRtree>> planeIndices;
+    private final Client client;
+    private final long imageId;
+    private final long userId;
+
+    /**
+     * Create the lazy path objects. No request is sent by this constructor.
+     *
+     * @param client the client owning the image
+     * @param imageId the ID of the image whose shapes should be retrieved
+     * @param userId the ID of the user that should own the shapes to retrieve. Can be negative or equal to 0 to get
+     *               all shapes of the image
+     * @param maxNumberOfPlanes the maximum number of planes whose path objects are kept in memory. When this number
+     *                          is exceeded, the path objects of planes that were not requested recently are discarded
+     *                          (and retrieved again if needed)
+     * @throws IllegalArgumentException if the maximum number of planes is negative
+     */
+    public LazyPathObjects(Client client, long imageId, long userId, int maxNumberOfPlanes) {
+        this.client = client;
+        this.imageId = imageId;
+        this.userId = userId;
+        this.planeIndices = CacheBuilder.newBuilder()
+                .maximumSize(maxNumberOfPlanes)
+                .build();
+    }
+
+    /**
+     * Get the path objects whose bounds intersect the provided region.
+     * <p>
+     * If the path objects of the plane of the region are already in memory, the returned CompletableFuture
+     * is already completed. Otherwise, the shapes of the plane are retrieved, and the returned CompletableFuture
+     * completes once they are converted to path objects. Shapes of a plane are only retrieved once (as long as
+     * the plane is not discarded), even if this function is called several times before the retrieval completes.
+     * <p>
+     * If the retrieval of a plane fails, the returned CompletableFuture (and the ones returned while the retrieval
+     * was ongoing) completes exceptionally. The plane is then discarded, so that it is retrieved again the next
+     * time it is requested.
+     *
+     * @param region the region containing the path objects to retrieve. The channel of the region is ignored
+     * @return a CompletableFuture (that may complete exceptionally) with the path objects whose bounds intersect
+     * the provided region. Children of returned path objects are not guaranteed to be returned too (they are only
+     * returned if their bounds intersect the provided region)
+     */
+    public CompletableFuture<List<PathObject>> getPathObjects(ImageRegion region) {
+        ImagePlane plane = ImagePlane.getPlane(region.getZ(), region.getT());
+
+        CompletableFuture<STRtree> planeIndex;
+        try {
+            planeIndex = planeIndices.get(plane, () -> createIndex(plane));
+        } catch (ExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        // The retrieval may have failed before the plane was added to the cache, in which case it was not discarded
+        if (planeIndex.isCompletedExceptionally()) {
+            planeIndices.asMap().remove(plane, planeIndex);
+        }
+
+        Envelope envelope = new Envelope(region.getMinX(), region.getMaxX(), region.getMinY(), region.getMaxY());
+        return planeIndex.thenApply(index -> {
+            List<PathObject> pathObjects = new ArrayList<>();
+            index.query(envelope, item -> pathObjects.add((PathObject) item));
+            return pathObjects;
+        });
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Lazy path objects of image with ID %d of %s", imageId, client);
+    }
+
+    private CompletableFuture<STRtree> createIndex(ImagePlane plane) {
+        logger.debug("Retrieving shapes of {} of image with ID {}", plane, imageId);
+
+        CompletableFuture<STRtree> planeIndex = client.getShapes(imageId, userId, plane.getZ(), plane.getT()).thenApply(shapes -> {
+            List<PathObject> pathObjects = new ArrayList<>();
+            for (PathObject pathObject: Shape.createPathObjects(shapes)) {
+                pathObjects.add(pathObject);
+                pathObject.getDescendantObjects(pathObjects);
+            }
+
+            STRtree index = new STRtree();
+            for (PathObject pathObject: pathObjects) {
+                ROI roi = pathObject.getROI();
+                if (roi == null) {
+                    continue;
+                }
+
+                index.insert(
+                        new Envelope(roi.getBoundsX(), roi.getBoundsX() + roi.getBoundsWidth(), roi.getBoundsY(), roi.getBoundsY() + roi.getBoundsHeight()),
+                        pathObject
+                );
+            }
+            // Building the index now makes subsequent queries read-only, so they can be done concurrently
+            index.build();
+
+            logger.debug("Indexed {} path objects created from {} shapes of {} of image with ID {}", pathObjects.size(), shapes.size(), plane, imageId);
+            return index;
+        });
+        planeIndex.whenComplete((index, error) -> {
+            if (index == null) {
+                logger.debug("Cannot retrieve shapes of {} of image with ID {}. Discarding plane", plane, imageId, error);
+                planeIndices.asMap().remove(plane, planeIndex);
+            }
+        });
+
+        return planeIndex;
+    }
+}
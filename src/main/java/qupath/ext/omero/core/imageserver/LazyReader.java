@@ -0,0 +1,168 @@
+package qupath.ext.omero.core.imageserver;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import qupath.ext.omero.core.pixelapis.PixelApiReader;
+import qupath.lib.common.ThreadTools;
+import qupath.lib.images.servers.ImageServerMetadata;
+import qupath.lib.images.servers.TileRequest;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link PixelApiReader} that acquires a reader from the {@link PixelApiReaderRegistry} only when
+ * a tile is requested for the first time, and releases it once no tile has been read for a certain time.
+ * The reader is acquired again if a tile is requested after that.
+ * <p>
+ * This reader must be {@link #close() closed} once no longer used.
+ * <p>
+ * This class is thread-safe.
+ */
+class LazyReader implements PixelApiReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(LazyReader.class);
+    private static final ScheduledExecutorService idleChecker = Executors.newSingleThreadScheduledExecutor(
+            ThreadTools.createThreadFactory("lazy-reader-idle-checker-", true)
+    );
+    private final PixelApiReaderRegistry.Key key;
+    private final Callable<ImageServerMetadata> metadataSupplier;
+    private final long idleTimeoutMillis;
+    private PixelApiReader reader;
+    private ImageServerMetadata updatedMetadata;
+    private int numberOfReadsInProgress = 0;
+    private long lastUseTime;
+    private ScheduledFuture<?> idleCheck;
+    private boolean closed = false;
+
+    /**
+     * Create the lazy reader. No reader is acquired by this constructor.
+     *
+     * @param key the key identifying the reader to acquire
+     * @param metadataSupplier a function returning the metadata of the image to open. It is called each time
+     *                         the reader is acquired, and the returned metadata is used if the reader has to be created
+     * @param idleTimeoutMillis the number of milliseconds without any tile being read after which the reader
+     *                          is released. If not greater than 0, the reader is never released once acquired
+     *                          (until this lazy reader is closed)
+     */
+    public LazyReader(PixelApiReaderRegistry.Key key, Callable<ImageServerMetadata> metadataSupplier, long idleTimeoutMillis) {
+        this.key = key;
+        this.metadataSupplier = metadataSupplier;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    @Override
+    public BufferedImage readTile(TileRequest tileRequest) throws IOException {
+        PixelApiReader reader = startRead();
+        try {
+            return reader.readTile(tileRequest);
+        } finally {
+            endRead();
+        }
+    }
+
+    @Override
+    public BufferedImage readTile(TileRequest tileRequest, List<Integer> channels) throws IOException {
+        PixelApiReader reader = startRead();
+        try {
+            return reader.readTile(tileRequest, channels);
+        } finally {
+            endRead();
+        }
+    }
+
+    /**
+     * Get the metadata of the image, as updated by the reader. This acquires the reader if needed,
+     * and may take a few seconds.
+     *
+     * @return the metadata of the image, as updated by the reader
+     * @throws IOException if the reader cannot be acquired
+     */
+    public ImageServerMetadata getMetadata() throws IOException {
+        startRead();
+        try {
+            synchronized (this) {
+                return updatedMetadata;
+            }
+        } finally {
+            endRead();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        logger.debug("Closing lazy reader of {}", key);
+
+        closed = true;
+        releaseReader();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Lazy reader of %s", key);
+    }
+
+    private synchronized PixelApiReader startRead() throws IOException {
+        if (closed) {
+            throw new IOException(String.format("%s is closed", this));
+        }
+
+        if (reader == null) {
+            logger.debug("No reader acquired for {}. Acquiring one", key);
+
+            try {
+                PixelApiReaderRegistry.SharedReader sharedReader = PixelApiReaderRegistry.acquire(key, metadataSupplier.call());
+                reader = sharedReader.reader();
+                updatedMetadata = sharedReader.metadata();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(String.format("Acquisition of reader of %s interrupted", key));
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+
+            if (idleTimeoutMillis > 0) {
+                idleCheck = idleChecker.scheduleWithFixedDelay(
+                        this::releaseIfIdle,
+                        idleTimeoutMillis,
+                        idleTimeoutMillis,
+                        TimeUnit.MILLISECONDS
+                );
+            }
+        }
+
+        numberOfReadsInProgress++;
+        return reader;
+    }
+
+    private synchronized void endRead() {
+        numberOfReadsInProgress--;
+        lastUseTime = System.currentTimeMillis();
+    }
+
+    private synchronized void releaseIfIdle() {
+        if (numberOfReadsInProgress == 0 && System.currentTimeMillis() - lastUseTime >= idleTimeoutMillis) {
+            logger.debug("No tile read by {} during the last {} ms. Releasing reader", this, idleTimeoutMillis);
+            releaseReader();
+        }
+    }
+
+    private void releaseReader() {
+        if (idleCheck != null) {
+            idleCheck.cancel(false);
+            idleCheck = null;
+        }
+
+        if (reader != null) {
+            reader = null;
+            PixelApiReaderRegistry.release(key);
+        }
+    }
+}
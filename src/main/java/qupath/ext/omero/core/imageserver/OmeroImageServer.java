@@ -1,28 +1,43 @@
 package qupath.ext.omero.core.imageserver;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import qupath.ext.omero.core.ArgsUtils;
 import qupath.ext.omero.core.Client;
 import qupath.ext.omero.core.apis.ApisHandler;
 import qupath.ext.omero.core.apis.webclient.SimpleServerEntity;
 import qupath.ext.omero.core.apis.commonentities.shapes.Shape;
 import qupath.ext.omero.core.pixelapis.PixelApi;
 import qupath.ext.omero.core.pixelapis.PixelApiReader;
+import qupath.ext.omero.core.pixelapis.RasterUtils;
+import qupath.lib.common.GeneralTools;
+import qupath.lib.common.ThreadTools;
 import qupath.lib.images.servers.AbstractTileableImageServer;
 import qupath.lib.images.servers.ImageServerBuilder;
 import qupath.lib.images.servers.ImageServerMetadata;
 import qupath.lib.images.servers.TileRequest;
+import qupath.lib.images.servers.TileRequestManager;
+import qupath.lib.regions.RegionRequest;
 import qupath.lib.objects.PathObject;
 import qupath.lib.objects.PathObjectReader;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.WritableRaster;
 import java.io.IOException;
 import java.lang.ref.Cleaner;
 import java.net.URI;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * {@link qupath.lib.images.servers.ImageServer Image server} of the extension.
@@ -31,29 +46,70 @@ import java.util.concurrent.ExecutionException;
  */
 public class OmeroImageServer extends AbstractTileableImageServer implements PathObjectReader  {
 
+    /**
+     * The label of the argument indicating that the pixel API reader should only be created when pixels are
+     * read for the first time. It should be followed by the number of seconds without any tile being read
+     * after which the reader is released (a number not greater than 0 means that the reader is never released
+     * once created).
+     */
+    public static final String LAZY_READER_ARG = "--lazyReader";
     private static final Logger logger = LoggerFactory.getLogger(OmeroImageServer.class);
     private static final Cleaner cleaner = Cleaner.create();
+    private static final int MAX_NUMBER_OF_WARMED_TILES = 16;
+    private static final int NUMBER_OF_TILE_WARMING_THREADS = 2;
+    private static final int THUMBNAIL_TARGET_SIZE = 1024;
+    private static final int THUMBNAIL_CACHE_SIZE = 4;
+    private static final ExecutorService tileWarmingExecutor = Executors.newFixedThreadPool(
+            NUMBER_OF_TILE_WARMING_THREADS,
+            ThreadTools.createThreadFactory("omero-image-server-tile-warming-", true)
+    );
     private final URI imageUri;
     private final Client client;
     private final long id;
-    private final ImageServerMetadata originalMetadata;
+    private volatile ImageServerMetadata originalMetadata;
+    private volatile boolean metadataProvisional;
+    private volatile boolean levelsProvisional;
     private final PixelApiReader pixelAPIReader;
     private final String apiName;
     private final List<String> args;
     private final Cleaner.Cleanable cleanable;
-    private record OmeroImageServerState(PixelApiReader pixelApiReader) implements Runnable {
+    private final AtomicBoolean tilesWarmed = new AtomicBoolean(false);
+    private final Cache<Plane, BufferedImage> thumbnailsCache = CacheBuilder.newBuilder()
+            .maximumSize(THUMBNAIL_CACHE_SIZE)
+            .build();
+    private record Plane(int z, int t) {}
+    private record OmeroImageServerState(Runnable readerRelease) implements Runnable {
         public void run() {
-            try {
-                pixelApiReader.close();
-            } catch (Exception e) {
-                logger.error("Error when closing pixel API reader", e);
-            }
+            readerRelease.run();
         }
     }
 
     /**
      * Create an OmeroImageServer. This may take a few seconds as it will send a request to retrieve
      * the image metadata.
+     * <p>
+     * The parts of the reader creation that don't depend on the image metadata (see
+     * {@link PixelApi#prepareReader(long, List)}) are performed while the metadata is being retrieved
+     * (unless a reader of the image already exists). Once the reader is created, the tiles of the lowest
+     * resolution level start being read in the background (see {@link #warmLowestResolutionTiles()}).
+     * <p>
+     * Servers opening the same image with the same pixel API and arguments share the same
+     * {@link PixelApiReader}, which is only created by the first server and closed when the last
+     * server is closed.
+     * <p>
+     * If the {@link #LAZY_READER_ARG} argument is provided, the reader is not created by this constructor
+     * but when pixels are read for the first time, and released when no pixels have been read for some time.
+     * This makes the creation of servers that are only used to access metadata much faster. In that case,
+     * the metadata of the server is the one returned by a reader previously created in this session for the
+     * same image, pixel API and arguments. If there is no such reader, the server starts with provisional
+     * metadata: the one built from image information already retrieved by a listing of the JSON API (see
+     * {@link ApisHandler#getProvisionalImageMetadata(long)}), or else the metadata of the image retrieved from the
+     * server. Provisional metadata is replaced by the full metadata (as updated by the reader, see
+     * {@link PixelApiReader#updateMetadata(ImageServerMetadata)}) before any pixel is read, and is not
+     * saved in the {@link #getBuilder() builder} of this server. As metadata built from a JSON API listing
+     * only has one resolution level, provisional metadata with a single level is replaced by the metadata
+     * of the image retrieved from the server (which doesn't require creating the reader) as soon as the
+     * resolution levels of this server are requested (see {@link #nResolutions()}).
      *
      * @param imageUri a link to the image to open
      * @param client the client that will be used to get image information
@@ -63,30 +119,114 @@ public class OmeroImageServer extends AbstractTileableImageServer implements Pat
      * @throws ExecutionException if an error occurred while retrieving the image metadata or creating the reader
      * @throws InterruptedException if retrieving the image metadata or creating the reader was interrupted
      * @throws IllegalArgumentException if the image ID cannot be parsed from the provided URI or if the image cannot be read
+     * (when {@link #LAZY_READER_ARG} is not provided)
      */
     public OmeroImageServer(URI imageUri, Client client, PixelApi pixelApi, List<String> args) throws ExecutionException, InterruptedException, IOException {
-        logger.debug("Creating OMERO image server to open {} with {} and {}, and with args {}", imageUri, client, pixelApi, args);
+        this(imageUri, client, pixelApi, args, getIdleTimeoutSeconds(args));
+    }
+
+    /**
+     * Same as {@link #OmeroImageServer(URI, Client, PixelApi, List)}, but the server is created as if the
+     * {@link #LAZY_READER_ARG} argument was provided with the provided idle timeout. The arguments of the server
+     * (and therefore its {@link #getBuilder() builder}) are not changed.
+     *
+     * @param imageUri a link to the image to open
+     * @param client the client that will be used to get image information
+     * @param pixelApi the pixel API to use when reading the image
+     * @param args a list of arguments specifying how to open the image with the provided pixel API
+     * @param idleTimeoutSeconds the idle timeout of the lazy reader (see {@link #LAZY_READER_ARG}), or an empty
+     *                           Optional to create the reader in this constructor
+     * @throws ExecutionException if an error occurred while retrieving the image metadata or creating the reader
+     * @throws InterruptedException if retrieving the image metadata or creating the reader was interrupted
+     * @throws IllegalArgumentException if the image ID cannot be parsed from the provided URI or if the image cannot be read
+     * (when no idle timeout is provided)
+     */
+    OmeroImageServer(
+            URI imageUri,
+            Client client,
+            PixelApi pixelApi,
+            List<String> args,
+            Optional<Long> idleTimeoutSeconds
+    ) throws ExecutionException, InterruptedException, IOException {
+        logger.debug(
+                "Creating OMERO image server to open {} with {} and {}, with args {}, and with lazy reader idle timeout {}",
+                imageUri,
+                client,
+                pixelApi,
+                args,
+                idleTimeoutSeconds
+        );
 
         this.imageUri = imageUri;
         this.client = client;
         this.id = ApisHandler.parseEntity(imageUri).map(SimpleServerEntity::id).orElseThrow(() -> new IllegalArgumentException(String.format(
                 "Impossible to parse an ID from the provided URI %s", imageUri
         )));
-        ImageServerMetadata metadata = client.getApisHandler().getImageMetadata(id).get();
-        this.pixelAPIReader = pixelApi.createReader(
+        PixelApiReaderRegistry.Key readerKey = new PixelApiReaderRegistry.Key(
+                pixelApi,
                 id,
-                metadata,
-                args
+                List.copyOf(ArgsUtils.replaceArgs(args, Collections.singletonMap(LAZY_READER_ARG, null)))
         );
-        this.originalMetadata = this.pixelAPIReader.updateMetadata(metadata);
-        logger.debug("Metadata updated from {} to {}", metadata, this.originalMetadata);
+
+        Runnable readerRelease;
+        if (idleTimeoutSeconds.isPresent()) {
+            ApisHandler apisHandler = client.getApisHandler();
+            long imageId = id;
+
+            ImageServerMetadata knownMetadata = PixelApiReaderRegistry.getKnownMetadata(readerKey).orElse(null);
+            if (knownMetadata == null) {
+                ImageServerMetadata provisionalMetadata = apisHandler.getProvisionalImageMetadata(id).orElse(null);
+
+                if (provisionalMetadata == null) {
+                    logger.debug("No metadata known for {}. Retrieving metadata of image with ID {}", readerKey, id);
+                    this.originalMetadata = apisHandler.getImageMetadata(id).get();
+                } else {
+                    logger.debug("No metadata known for {}. Using provisional metadata", readerKey);
+                    this.originalMetadata = provisionalMetadata;
+                    this.levelsProvisional = provisionalMetadata.nLevels() == 1;
+                }
+                this.metadataProvisional = true;
+            } else {
+                logger.debug("Metadata of {} known. Using it", readerKey);
+                this.originalMetadata = knownMetadata;
+            }
+
+            LazyReader lazyReader = new LazyReader(
+                    readerKey,
+                    () -> apisHandler.getImageMetadata(imageId).get(),
+                    idleTimeoutSeconds.get() * 1000
+            );
+            this.pixelAPIReader = lazyReader;
+            readerRelease = lazyReader::close;
+        } else {
+            CompletableFuture<ImageServerMetadata> metadataRequest = client.getApisHandler().getImageMetadata(id);
+            if (PixelApiReaderRegistry.contains(readerKey)) {
+                logger.debug("Reader of {} already exists. Not preparing it", readerKey);
+            } else {
+                pixelApi.prepareReader(id, readerKey.args()).exceptionally(error -> {
+                    logger.debug("Cannot prepare reader of image with ID {}. It will be prepared when created", id, error);
+                    return null;
+                });
+            }
+            ImageServerMetadata metadata = metadataRequest.get();
+
+            PixelApiReaderRegistry.SharedReader sharedReader = PixelApiReaderRegistry.acquire(readerKey, metadata);
+            this.pixelAPIReader = sharedReader.reader();
+            this.originalMetadata = sharedReader.metadata();
+            readerRelease = () -> PixelApiReaderRegistry.release(readerKey);
+        }
 
         this.apiName = pixelApi.getName();
         this.args = args;
-        this.cleanable = cleaner.register(this, new OmeroImageServerState(pixelAPIReader));
+        this.cleanable = cleaner.register(this, new OmeroImageServerState(readerRelease));
 
         this.client.addOpenedImage(imageUri);
 
+        // Servers with a lazy reader are usually only used to access metadata, so they don't need any tile
+        if (idleTimeoutSeconds.isEmpty()) {
+            warmLowestResolutionTiles();
+        }
+
         logger.debug("OMERO image server to open {} created", imageUri);
     }
 
@@ -95,16 +235,200 @@ public class OmeroImageServer extends AbstractTileableImageServer implements Pat
         return pixelAPIReader.readTile(tileRequest);
     }
 
+    /**
+     * Get the tile request manager of this server. If the metadata of this server is provisional
+     * (see {@link #OmeroImageServer(URI, Client, PixelApi, List)}), it is first replaced by the full
+     * metadata, so that tiles are computed from the actual resolution levels and tile size of the image.
+     * This may take a few seconds in that case.
+     *
+     * @return the tile request manager of this server
+     */
+    @Override
+    public TileRequestManager getTileRequestManager() {
+        resolveProvisionalMetadata();
+        return super.getTileRequestManager();
+    }
+
+    /**
+     * Get the number of resolution levels of this image. If the resolution levels of the provisional metadata
+     * of this server are not known (see {@link #OmeroImageServer(URI, Client, PixelApi, List)}), the metadata
+     * of the image is first retrieved. This may take a few seconds in that case.
+     *
+     * @return the number of resolution levels of this image
+     */
+    @Override
+    public int nResolutions() {
+        resolveProvisionalLevels();
+        return super.nResolutions();
+    }
+
+    /**
+     * Same as {@link #nResolutions()}, but for the downsample of a resolution level.
+     *
+     * @param level the resolution level
+     * @return the downsample of the provided resolution level
+     */
+    @Override
+    public double getDownsampleForResolution(int level) {
+        resolveProvisionalLevels();
+        return super.getDownsampleForResolution(level);
+    }
+
+    /**
+     * Same as {@link #nResolutions()}, but for the downsamples of all resolution levels.
+     *
+     * @return the downsamples of all resolution levels
+     */
+    @Override
+    public double[] getPreferredDownsamples() {
+        resolveProvisionalLevels();
+        return super.getPreferredDownsamples();
+    }
+
+    /**
+     * Read some channels of a region of the image. Only the requested channels are fetched from the server
+     * when the pixel API allows it, which can be much faster than {@link #readRegion(RegionRequest)} when
+     * only a few channels of an image with many channels are needed.
+     * <p>
+     * Tiles read by this function are not cached. If the downsample of the provided request doesn't correspond
+     * to a resolution level of the image, all channels are read with {@link #readRegion(RegionRequest)} and the
+     * requested channels are then extracted.
+     *
+     * @param request the region to read
+     * @param channels the indices (starting at 0) of the channels to read
+     * @return an image containing one band per provided channel, in the order of the provided list, or null if the
+     * calling thread is interrupted
+     * @throws IOException when a reading error occurs
+     * @throws IllegalArgumentException if the provided list is empty or if one of the provided channels doesn't exist
+     */
+    public BufferedImage readRegion(RegionRequest request, List<Integer> channels) throws IOException {
+        logger.debug("Reading channels {} of {}", channels, request);
+
+        Collection<TileRequest> tileRequests = getTileRequestManager().getTileRequests(request);
+        if (tileRequests.isEmpty()) {
+            throw new IOException(String.format("No tile found for %s", request));
+        }
+
+        double downsample = tileRequests.iterator().next().getDownsample();
+        if (!GeneralTools.almostTheSame(downsample, request.getDownsample(), 0.001)) {
+            logger.debug(
+                    "Downsample {} of {} doesn't match resolution level of downsample {}. Reading all channels",
+                    request.getDownsample(),
+                    request,
+                    downsample
+            );
+
+            BufferedImage image = readRegion(request);
+            return image == null ? null : RasterUtils.extractChannels(image, channels);
+        }
+
+        int width = (int) Math.max(1, Math.round(request.getWidth() / downsample));
+        int height = (int) Math.max(1, Math.round(request.getHeight() / downsample));
+        int x = (int) Math.round(request.getX() / downsample);
+        int y = (int) Math.round(request.getY() / downsample);
+
+        WritableRaster raster = null;
+        ColorModel colorModel = null;
+        for (TileRequest tileRequest: tileRequests) {
+            BufferedImage tile = pixelAPIReader.readTile(tileRequest, channels);
+            if (tile == null) {
+                return null;
+            }
+
+            if (raster == null) {
+                raster = tile.getColorModel().createCompatibleWritableRaster(width, height);
+                colorModel = tile.getColorModel();
+            }
+            raster.setRect(tileRequest.getTileX() - x, tileRequest.getTileY() - y, tile.getRaster());
+        }
+
+        return new BufferedImage(colorModel, raster, false, null);
+    }
+
+    /**
+     * Read in the background the tiles of the lowest resolution level (for the first z-slice and timepoint),
+     * so that they are in the tile cache when the image is displayed. This is called when a server whose reader
+     * is not lazy (see {@link #LAZY_READER_ARG}) is created, and should otherwise only be called when the image
+     * is about to be displayed (for example when it is opened in a viewer), as servers only used to access
+     * metadata don't need any tile.
+     * <p>
+     * Nothing is done if this level contains more than {@link #MAX_NUMBER_OF_WARMED_TILES} tiles or if this function
+     * was already called on this server. At most {@link #NUMBER_OF_TILE_WARMING_THREADS} servers are warmed at the
+     * same time.
+     * <p>
+     * This function returns immediately.
+     */
+    public void warmLowestResolutionTiles() {
+        if (tilesWarmed.getAndSet(true)) {
+            logger.debug("Lowest resolution level of {} already warmed. Skipping it", imageUri);
+            return;
+        }
+
+        tileWarmingExecutor.execute(() -> {
+            int level = nResolutions() - 1;
+            RegionRequest request = RegionRequest.createInstance(
+                    getPath(),
+                    getDownsampleForResolution(level),
+                    0,
+                    0,
+                    getWidth(),
+                    getHeight(),
+                    0,
+                    0
+            );
+
+            try {
+                int numberOfTiles = getTileRequestManager().getTileRequests(request).size();
+                if (numberOfTiles > MAX_NUMBER_OF_WARMED_TILES) {
+                    logger.debug(
+                            "Lowest resolution level of {} has {} tiles, which is more than {}. Not warming it",
+                            imageUri,
+                            numberOfTiles,
+                            MAX_NUMBER_OF_WARMED_TILES
+                    );
+                    return;
+                }
+
+                logger.debug("Warming {} tiles of lowest resolution level of {}", numberOfTiles, imageUri);
+                readRegion(request);
+                logger.debug("Lowest resolution level of {} warmed", imageUri);
+            } catch (Exception e) {
+                logger.debug("Cannot warm lowest resolution level of {}", imageUri, e);
+            }
+        });
+    }
+
+    /**
+     * Get the default thumbnail of a plane of the image. Its longest side is not much greater than
+     * {@link #THUMBNAIL_TARGET_SIZE} pixels (the size QuPath uses for default thumbnails), unless the
+     * lowest resolution level of the image is bigger than that.
+     * <p>
+     * If the image is RGB, the thumbnail is rendered by the OMERO server. Otherwise, or if this fails,
+     * the thumbnail is read from the lowest suitable resolution level of the image (after replacing provisional
+     * metadata by the full metadata, see {@link #OmeroImageServer(URI, Client, PixelApi, List)}).
+     * <p>
+     * Thumbnails of the last few requested planes are cached, unless they were read while the metadata of
+     * this server was provisional (for example if the full metadata cannot be retrieved).
+     *
+     * @param z the z-slice of the plane
+     * @param t the timepoint of the plane
+     * @return the thumbnail of the provided plane
+     * @throws IOException when a reading error occurs
+     */
     @Override
     public BufferedImage getDefaultThumbnail(int z, int t) throws IOException {
+        Plane plane = new Plane(z, t);
+        BufferedImage thumbnail = thumbnailsCache.getIfPresent(plane);
+        if (thumbnail != null) {
+            logger.debug("Thumbnail of {} found in cache", plane);
+            return thumbnail;
+        }
+
         if (isRGB()) {
-            logger.debug("Requesting thumbnail while the image is RGB. Trying to use web API");
+            logger.debug("Requesting thumbnail of RGB image. Trying to use web API");
 
             try {
-                return client.getApisHandler().getThumbnail(
-                        id,
-                        Math.max(getMetadata().getLevel(0).getWidth(), getMetadata().getLevel(0).getHeight())
-                ).get();
+                thumbnail = client.getApisHandler().getThumbnail(id, getThumbnailSize()).get();
             } catch (Exception e) {
                 logger.debug("Cannot get thumbnail through web API. Using default way of retrieving thumbnail instead", e);
 
@@ -113,12 +437,29 @@ public class OmeroImageServer extends AbstractTileableImageServer implements Pat
                 }
             }
         }
+        if (thumbnail == null) {
+            // The thumbnail must be read with the channels and resolution levels of the full metadata
+            resolveProvisionalMetadata();
+            thumbnail = super.getDefaultThumbnail(z, t);
+        }
 
-        return super.getDefaultThumbnail(z, t);
+        if (thumbnail != null && !metadataProvisional) {
+            thumbnailsCache.put(plane, thumbnail);
+        }
+        return thumbnail;
     }
 
     @Override
     protected ImageServerBuilder.ServerBuilder<BufferedImage> createServerBuilder() {
+        // Provisional metadata (only used if no metadata was set on this server) must not be persisted by the builder
+        if (metadataProvisional && getMetadata() == originalMetadata) {
+            return ImageServerBuilder.DefaultImageServerBuilder.createInstance(
+                    OmeroImageServerBuilder.class,
+                    imageUri,
+                    args.toArray(new String[0])
+            );
+        }
+
         return ImageServerBuilder.DefaultImageServerBuilder.createInstance(
                 OmeroImageServerBuilder.class,
                 getMetadata(),
@@ -158,7 +499,7 @@ public class OmeroImageServer extends AbstractTileableImageServer implements Pat
         logger.debug("Reading all path objects stored on the OMERO server at {}", imageUri);
 
         try {
-            return Shape.createPathObjects(client.getApisHandler().getShapes(id, -1).get());
+            return Shape.createPathObjects(client.getShapes(id, -1).get());
         } catch (InterruptedException | ExecutionException e) {
             logger.error("Error reading path objects", e);
 
@@ -195,4 +536,76 @@ public class OmeroImageServer extends AbstractTileableImageServer implements Pat
     public long getId() {
         return id;
     }
+
+    /**
+     * Compute the size of the longest side of the thumbnail, following what QuPath does when
+     * reading default thumbnails: the downsample is chosen so that the thumbnail has roughly the
+     * area of a {@link #THUMBNAIL_TARGET_SIZE}x{@link #THUMBNAIL_TARGET_SIZE} image. The thumbnail is
+     * not made bigger than the full resolution image.
+     */
+    private int getThumbnailSize() {
+        double targetDownsample = Math.max(
+                1,
+                Math.sqrt((double) getWidth() / THUMBNAIL_TARGET_SIZE * getHeight() / THUMBNAIL_TARGET_SIZE)
+        );
+        return (int) Math.ceil(Math.max(getWidth(), getHeight()) / targetDownsample);
+    }
+
+    private void resolveProvisionalMetadata() {
+        if (!metadataProvisional) {
+            return;
+        }
+
+        synchronized (this) {
+            if (metadataProvisional && pixelAPIReader instanceof LazyReader lazyReader) {
+                logger.debug("Replacing provisional metadata of {} by full metadata", imageUri);
+
+                try {
+                    originalMetadata = lazyReader.getMetadata();
+                    metadataProvisional = false;
+                    levelsProvisional = false;
+                } catch (IOException e) {
+                    logger.warn("Cannot retrieve full metadata of {}. Using provisional metadata", imageUri, e);
+                }
+            }
+        }
+    }
+
+    private void resolveProvisionalLevels() {
+        if (!levelsProvisional) {
+            return;
+        }
+
+        synchronized (this) {
+            if (levelsProvisional) {
+                logger.debug("Resolution levels of provisional metadata of {} not known. Retrieving metadata of image", imageUri);
+
+                try {
+                    originalMetadata = client.getApisHandler().getImageMetadata(id).get();
+                } catch (InterruptedException | ExecutionException e) {
+                    logger.warn("Cannot retrieve metadata of {}. Using provisional resolution levels", imageUri, e);
+
+                    if (e instanceof InterruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                // Not attempted again on failure, as resolution levels may be requested very often
+                levelsProvisional = false;
+            }
+        }
+    }
+
+    private static Optional<Long> getIdleTimeoutSeconds(List<String> args) {
+        String idleTimeout = ArgsUtils.findArgInList(LAZY_READER_ARG, args).orElse(null);
+        if (idleTimeout == null) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(Long.parseLong(idleTimeout));
+        } catch (NumberFormatException e) {
+            logger.warn("Can't use provided lazy reader idle timeout {}. Creating reader now", idleTimeout, e);
+            return Optional.empty();
+        }
+    }
 }
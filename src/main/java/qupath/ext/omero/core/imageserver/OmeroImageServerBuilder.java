@@ -21,13 +21,16 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
 
 /**
  * {@link ImageServerBuilder Image server builder} of the OMERO extension.
@@ -42,13 +45,19 @@ public class OmeroImageServerBuilder implements ImageServerBuilder<BufferedImage
     private static final String PASSWORD_ARG = "--password";
     private static final String PIXEL_API_ARG = "--pixelAPI";
     private static final float SUPPORT_LEVEL = 4;
+    private static final long LAZILY_BUILT_SERVERS_IDLE_TIMEOUT_SECONDS = 300;
     private static final List<String> ACCEPTED_SCHEMES = List.of("http", "https");
     private static final List<ClientUri> reachableUrisWithSpecificClient = new ArrayList<>();
+    private static final Map<URI, Integer> lazilyBuiltImageUris = new ConcurrentHashMap<>();
     private record ClientPixelApiArgsWrapper(Client client, PixelApi pixelApi, List<String> args) {}
     private record ClientUri(Client client, URI uri) {}
 
     /**
      * Attempt to create a {@link OmeroImageServer} from the specified URL.
+     * <p>
+     * If this function is called within {@link #buildLazily(Collection, Supplier)} for one of the provided
+     * images, the server is created with a lazy reader (see {@link OmeroImageServer#LAZY_READER_ARG}), unless
+     * the provided arguments already specify how to create the reader.
      *
      * @param imageUri the link of the image to open
      * @param args optional arguments. {@link #USERTYPE_ARG} to specify the type of user (see {@link Credentials.UserType}),
@@ -67,12 +76,25 @@ public class OmeroImageServerBuilder implements ImageServerBuilder<BufferedImage
         return getClientAndPixelApi(imageUri, Arrays.stream(args).toList())
                 .map(clientPixelApiArgsWrapper -> {
                     try {
-                        return new OmeroImageServer(
-                                imageUri,
-                                clientPixelApiArgsWrapper.client(),
-                                clientPixelApiArgsWrapper.pixelApi(),
-                                clientPixelApiArgsWrapper.args()
-                        );
+                        if (lazilyBuiltImageUris.containsKey(imageUri) &&
+                                ArgsUtils.findArgInList(OmeroImageServer.LAZY_READER_ARG, clientPixelApiArgsWrapper.args()).isEmpty()) {
+                            logger.debug("{} is built lazily. Creating server with a lazy reader", imageUri);
+
+                            return new OmeroImageServer(
+                                    imageUri,
+                                    clientPixelApiArgsWrapper.client(),
+                                    clientPixelApiArgsWrapper.pixelApi(),
+                                    clientPixelApiArgsWrapper.args(),
+                                    Optional.of(LAZILY_BUILT_SERVERS_IDLE_TIMEOUT_SECONDS)
+                            );
+                        } else {
+                            return new OmeroImageServer(
+                                    imageUri,
+                                    clientPixelApiArgsWrapper.client(),
+                                    clientPixelApiArgsWrapper.pixelApi(),
+                                    clientPixelApiArgsWrapper.args()
+                            );
+                        }
                     } catch (Exception e) {
                         logger.debug("Cannot create OMERO image server for {}", imageUri, e);
 
@@ -167,6 +189,34 @@ public class OmeroImageServerBuilder implements ImageServerBuilder<BufferedImage
         return false;
     }
 
+    /**
+     * Run the provided function while servers of the provided images built by this builder are created with
+     * a lazy reader (see {@link #buildServer(URI, String...)}). This is useful when many servers are only created
+     * to access their metadata, for example when importing images to a project: such servers start with provisional
+     * metadata when available (see {@link OmeroImageServer#LAZY_READER_ARG}) and don't create any reader.
+     * <p>
+     * This is only kept in memory while the provided function runs: the arguments of the created servers (and
+     * therefore their builders) are not changed.
+     *
+     * @param imageUris the URIs of the images whose servers should be created with a lazy reader
+     * @param function the function to run
+     * @return the value returned by the provided function
+     * @param <T> the type of value returned by the provided function
+     */
+    public static <T> T buildLazily(Collection<URI> imageUris, Supplier<T> function) {
+        for (URI imageUri: imageUris) {
+            lazilyBuiltImageUris.merge(imageUri, 1, Integer::sum);
+        }
+
+        try {
+            return function.get();
+        } finally {
+            for (URI imageUri: imageUris) {
+                lazilyBuiltImageUris.computeIfPresent(imageUri, (uri, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+    }
+
     private static Optional<ClientPixelApiArgsWrapper> getClientAndPixelApi(URI uri, List<String> args) {
         if (!ACCEPTED_SCHEMES.contains(uri.getScheme())) {
             logger.debug("{} doesn't contain one of the required schemes: {}. Cannot open image with OMERO image server", uri, ACCEPTED_SCHEMES);
@@ -0,0 +1,176 @@
+package qupath.ext.omero.core.imageserver;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import qupath.ext.omero.core.pixelapis.PixelApi;
+import qupath.ext.omero.core.pixelapis.PixelApiReader;
+import qupath.lib.images.servers.ImageServerMetadata;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A registry of {@link PixelApiReader} shared between {@link OmeroImageServer} instances.
+ * <p>
+ * Readers are identified by a {@link Key} (the pixel API, the ID of the image, and the arguments used
+ * to create the reader). Each call to {@link #acquire(Key, ImageServerMetadata)} must be followed by a call
+ * to {@link #release(Key)} once the reader is no longer used. A reader is created when it is acquired for
+ * the first time, and closed when the last user releases it.
+ * <p>
+ * This class is thread-safe.
+ */
+class PixelApiReaderRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(PixelApiReaderRegistry.class);
+    private static final int KNOWN_METADATA_CACHE_SIZE = 1000;
+    private static final Map<Key, Entry> entries = new HashMap<>();
+    private static final Cache<Key, ImageServerMetadata> knownMetadata = CacheBuilder.newBuilder()
+            .maximumSize(KNOWN_METADATA_CACHE_SIZE)
+            .build();
+
+    /**
+     * Identifies a reader of this registry.
+     *
+     * @param pixelApi the pixel API that creates the reader
+     * @param imageId the ID of the image to read
+     * @param args the arguments used to create the reader
+     */
+    record Key(PixelApi pixelApi, long imageId, List<String> args) {}
+
+    /**
+     * A reader of this registry.
+     *
+     * @param reader the reader. It must not be closed by the caller
+     * @param metadata the metadata of the image, as updated by the reader
+     */
+    record SharedReader(PixelApiReader reader, ImageServerMetadata metadata) {}
+
+    private static class Entry {
+
+        private final CompletableFuture<SharedReader> reader = new CompletableFuture<>();
+        private int numberOfUsers = 0;
+    }
+
+    private PixelApiReaderRegistry() {
+        throw new AssertionError("This class is not instantiable.");
+    }
+
+    /**
+     * Get the reader corresponding to the provided key, or create it if it doesn't exist yet.
+     * This may take a few seconds if the reader has to be created.
+     * <p>
+     * {@link #release(Key)} must be called once the returned reader is no longer used.
+     *
+     * @param key the key identifying the reader
+     * @param metadata the metadata of the image to open. Only used if the reader has to be created
+     * @return the reader corresponding to the provided key
+     * @throws ExecutionException if an error occurred while creating the reader
+     * @throws InterruptedException if the calling thread is interrupted while creating the reader or waiting for it
+     * @throws IllegalArgumentException if the image cannot be read by the pixel API
+     */
+    public static SharedReader acquire(Key key, ImageServerMetadata metadata) throws ExecutionException, InterruptedException {
+        Entry entry;
+        boolean readerToCreate;
+        synchronized (entries) {
+            entry = entries.get(key);
+            readerToCreate = entry == null;
+            if (readerToCreate) {
+                entry = new Entry();
+                entries.put(key, entry);
+            }
+            entry.numberOfUsers++;
+        }
+
+        if (readerToCreate) {
+            logger.debug("No reader found for {}. Creating one", key);
+
+            try {
+                PixelApiReader reader = key.pixelApi().createReader(key.imageId(), metadata, key.args());
+                ImageServerMetadata updatedMetadata = reader.updateMetadata(metadata);
+                logger.debug("Metadata updated from {} to {}", metadata, updatedMetadata);
+                knownMetadata.put(key, updatedMetadata);
+
+                entry.reader.complete(new SharedReader(reader, updatedMetadata));
+            } catch (ExecutionException | InterruptedException | RuntimeException e) {
+                synchronized (entries) {
+                    entries.remove(key, entry);
+                }
+                entry.reader.completeExceptionally(e);
+
+                throw e;
+            }
+        } else {
+            logger.debug("Reader found for {}. Using it", key);
+        }
+
+        try {
+            return entry.reader.get();
+        } catch (ExecutionException | InterruptedException e) {
+            synchronized (entries) {
+                entry.numberOfUsers--;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Indicate whether a reader corresponding to the provided key currently exists (or is being created).
+     *
+     * @param key the key identifying the reader
+     * @return whether a reader corresponding to the provided key currently exists
+     */
+    public static boolean contains(Key key) {
+        synchronized (entries) {
+            return entries.containsKey(key);
+        }
+    }
+
+    /**
+     * Get the metadata returned by the last reader created for the provided key in this session.
+     * The metadata is still available after the reader is closed.
+     *
+     * @param key the key identifying the reader
+     * @return the metadata of the image, as updated by the last reader created for the provided key,
+     * or an empty Optional if no reader was created for this key (or if it was forgotten)
+     */
+    public static Optional<ImageServerMetadata> getKnownMetadata(Key key) {
+        return Optional.ofNullable(knownMetadata.getIfPresent(key));
+    }
+
+    /**
+     * Indicate that a reader acquired with {@link #acquire(Key, ImageServerMetadata)} is no longer used.
+     * If no one else uses the reader, it is closed.
+     *
+     * @param key the key identifying the reader
+     */
+    public static void release(Key key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry == null) {
+                logger.debug("No reader found for {}. Cannot release it", key);
+                return;
+            }
+
+            entry.numberOfUsers--;
+            if (entry.numberOfUsers > 0) {
+                logger.debug("Reader of {} still used by {} users. Not closing it", key, entry.numberOfUsers);
+                return;
+            }
+            entries.remove(key);
+        }
+
+        logger.debug("Reader of {} not used anymore. Closing it", key);
+        try {
+            entry.reader.getNow(null).reader().close();
+        } catch (Exception e) {
+            logger.error("Error when closing pixel API reader", e);
+        }
+    }
+}
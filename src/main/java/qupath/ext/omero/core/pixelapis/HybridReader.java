@@ -0,0 +1,180 @@
+package qupath.ext.omero.core.pixelapis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import qupath.ext.omero.core.ArgsUtils;
+import qupath.ext.omero.core.apis.ApisHandler;
+import qupath.ext.omero.core.preferences.PreferencesManager;
+import qupath.lib.images.servers.ImageServerMetadata;
+import qupath.lib.images.servers.TileRequest;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A {@link PixelApiReader} that wraps a reader accessing raw pixel values and reads low resolution tiles
+ * (i.e. tiles whose downsample is greater than or equal to a threshold) with the JPEG-compressed
+ * <a href="https://docs.openmicroscopy.org/omero/latest/developers/Web/WebGateway.html">OMERO web gateway</a>.
+ * Tiles with a lower downsample (including the full resolution level) are still read with the wrapped reader,
+ * so pixel values used for analysis are not altered.
+ * <p>
+ * This can only be used with 8-bit RGB images, as the web gateway can only return such images.
+ * If a tile cannot be read with the web gateway, the wrapped reader is used instead.
+ * <p>
+ * Closing this reader closes the wrapped reader.
+ */
+public class HybridReader implements PixelApiReader {
+
+    /**
+     * The label of the argument indicating the downsample from which tiles should be read with the web gateway.
+     * It should be followed by a number greater than 1.
+     */
+    public static final String WEB_DOWNSAMPLE_THRESHOLD_PARAMETER = "--webDownsampleThreshold";
+    private static final Logger logger = LoggerFactory.getLogger(HybridReader.class);
+    private static final float DEFAULT_JPEG_QUALITY = 0.9F;
+    private static final int MAX_WEB_GATEWAY_SIZE = 1024;
+    private final PixelApiReader rawReader;
+    private final ApisHandler apisHandler;
+    private final long imageId;
+    private final double downsampleThreshold;
+    private final float jpegQuality;
+    private volatile boolean webGatewayUsable;
+    private volatile int preferredTileWidth;
+    private volatile int preferredTileHeight;
+
+    private HybridReader(
+            PixelApiReader rawReader,
+            ApisHandler apisHandler,
+            long imageId,
+            ImageServerMetadata metadata,
+            double downsampleThreshold
+    ) {
+        this.rawReader = rawReader;
+        this.apisHandler = apisHandler;
+        this.imageId = imageId;
+        this.downsampleThreshold = downsampleThreshold;
+        this.jpegQuality = PreferencesManager.getWebJpegQuality(apisHandler.getWebServerUri()).orElse(DEFAULT_JPEG_QUALITY);
+
+        setTileSize(metadata);
+    }
+
+    /**
+     * Wrap the provided reader into a hybrid reader if the {@link #WEB_DOWNSAMPLE_THRESHOLD_PARAMETER} argument is
+     * present in the provided list and if the image can be read by the web gateway (8-bit RGB image).
+     *
+     * @param rawReader the reader accessing raw pixel values
+     * @param apisHandler the apis handler to use when reading tiles with the web gateway
+     * @param imageId the ID of the image to open
+     * @param metadata the metadata of the image to open
+     * @param args the arguments that may contain {@link #WEB_DOWNSAMPLE_THRESHOLD_PARAMETER}
+     * @return a hybrid reader wrapping the provided reader, or the provided reader if no hybrid reader should be used
+     */
+    public static PixelApiReader wrapIfRequested(
+            PixelApiReader rawReader,
+            ApisHandler apisHandler,
+            long imageId,
+            ImageServerMetadata metadata,
+            List<String> args
+    ) {
+        String threshold = ArgsUtils.findArgInList(WEB_DOWNSAMPLE_THRESHOLD_PARAMETER, args).orElse(null);
+        if (threshold == null) {
+            return rawReader;
+        }
+
+        double downsampleThreshold;
+        try {
+            downsampleThreshold = Double.parseDouble(threshold);
+        } catch (NumberFormatException e) {
+            logger.warn("Can't use provided web downsample threshold {}. Not using web gateway for low resolution tiles", threshold, e);
+            return rawReader;
+        }
+        if (!(downsampleThreshold > 1)) {
+            logger.warn("The provided web downsample threshold {} is not greater than 1. Not using web gateway for low resolution tiles", threshold);
+            return rawReader;
+        }
+        if (!metadata.isRGB()) {
+            logger.debug("Image with ID {} is not RGB. Not using web gateway for low resolution tiles", imageId);
+            return rawReader;
+        }
+
+        logger.debug("Reading tiles of image with ID {} with downsample greater than or equal to {} with the web gateway", imageId, downsampleThreshold);
+        return new HybridReader(rawReader, apisHandler, imageId, metadata, downsampleThreshold);
+    }
+
+    @Override
+    public BufferedImage readTile(TileRequest tileRequest) throws IOException {
+        if (useWebGateway(tileRequest)) {
+            logger.debug("Reading tile {} with web gateway", tileRequest);
+
+            try {
+                return apisHandler.readTile(
+                        imageId,
+                        tileRequest,
+                        preferredTileWidth,
+                        preferredTileHeight,
+                        jpegQuality
+                ).get();
+            } catch (InterruptedException e) {
+                logger.debug("Reading tile {} with web gateway interrupted. Interrupting current thread", tileRequest, e);
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (Exception e) {
+                logger.debug("Cannot read tile {} with web gateway. Using raw reader {}", tileRequest, rawReader, e);
+            }
+        }
+
+        return rawReader.readTile(tileRequest);
+    }
+
+    @Override
+    public BufferedImage readTile(TileRequest tileRequest, List<Integer> channels) throws IOException {
+        if (useWebGateway(tileRequest)) {
+            return PixelApiReader.super.readTile(tileRequest, channels);
+        } else {
+            return rawReader.readTile(tileRequest, channels);
+        }
+    }
+
+    @Override
+    public ImageServerMetadata updateMetadata(ImageServerMetadata originalMetadata) {
+        ImageServerMetadata metadata = rawReader.updateMetadata(originalMetadata);
+        setTileSize(metadata);
+        return metadata;
+    }
+
+    @Override
+    public void close() throws Exception {
+        rawReader.close();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Hybrid reader of image with ID %d using %s and web gateway from downsample %f", imageId, rawReader, downsampleThreshold);
+    }
+
+    private boolean useWebGateway(TileRequest tileRequest) {
+        return webGatewayUsable && tileRequest.getDownsample() >= downsampleThreshold;
+    }
+
+    /**
+     * The web gateway computes tile indices from the tile size and cannot return tiles bigger than
+     * {@link #MAX_WEB_GATEWAY_SIZE} (see <a href="https://github.com/ome/omero-web/issues/609">this issue</a>).
+     * So the web gateway is only used if the tile size of the raw reader respects this limit.
+     */
+    private void setTileSize(ImageServerMetadata metadata) {
+        preferredTileWidth = metadata.getPreferredTileWidth();
+        preferredTileHeight = metadata.getPreferredTileHeight();
+        webGatewayUsable = preferredTileWidth <= MAX_WEB_GATEWAY_SIZE && preferredTileHeight <= MAX_WEB_GATEWAY_SIZE;
+
+        if (!webGatewayUsable) {
+            logger.debug(
+                    "Tile size ({}, {}) of image with ID {} greater than max allowed by web gateway ({}). Using raw reader for all tiles",
+                    preferredTileWidth,
+                    preferredTileHeight,
+                    imageId,
+                    MAX_WEB_GATEWAY_SIZE
+            );
+        }
+    }
+}
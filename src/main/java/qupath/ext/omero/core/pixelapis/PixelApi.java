@@ -6,6 +6,7 @@ import qupath.lib.images.servers.PixelType;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -65,6 +66,25 @@ public interface PixelApi extends AutoCloseable {
      */
     boolean canReadImage(int numberOfChannels);
 
+    /**
+     * Start the part of the creation of a reader that doesn't depend on the metadata of the image
+     * (for example, connecting to a server). This can be called while the metadata of the image
+     * is being retrieved, so that both steps run concurrently. The default implementation does nothing.
+     * <p>
+     * Calling this function is optional: {@link #createReader(long, ImageServerMetadata, List)} performs
+     * any work that hasn't been done yet, and waits for any preparation still in progress.
+     * <p>
+     * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
+     * if the preparation failed for example).
+     *
+     * @param imageId the ID of the image that will be opened
+     * @param args the arguments that will be given to {@link #createReader(long, ImageServerMetadata, List)}
+     * @return a CompletableFuture (that may complete exceptionally) that completes when the preparation is done
+     */
+    default CompletableFuture<Void> prepareReader(long imageId, List<String> args) {
+        return CompletableFuture.completedFuture(null);
+    }
+
     /**
      * Creates a {@link PixelApiReader} corresponding to this API that will be used to read
      * pixel values of an image. This may take a few seconds depending on the implementation.
@@ -5,6 +5,7 @@ import qupath.lib.images.servers.TileRequest;
 
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.util.List;
 
 /**
  * This interface allows to read pixel values from a tile request.
@@ -26,6 +27,32 @@ public interface PixelApiReader extends AutoCloseable {
      */
     BufferedImage readTile(TileRequest tileRequest) throws IOException;
 
+    /**
+     * Read some channels of a tile of an image. The returned image has one band per provided channel,
+     * in the order of the provided list.
+     * <p>
+     * By default, this function reads all channels with {@link #readTile(TileRequest)} and then extracts
+     * the requested ones. Implementations that can fetch channels independently should override this function
+     * to only fetch the requested channels.
+     * <p>
+     * This function may return null if the calling thread is interrupted. If any other error occurs, an {@link IOException}
+     * is thrown.
+     *
+     * @param tileRequest the tile parameters
+     * @param channels the indices (starting at 0) of the channels to read
+     * @return the resulting image
+     * @throws IOException when a reading error occurs
+     * @throws IllegalArgumentException if the provided list is empty or if one of the provided channels doesn't exist
+     */
+    default BufferedImage readTile(TileRequest tileRequest, List<Integer> channels) throws IOException {
+        BufferedImage image = readTile(tileRequest);
+        if (image == null) {
+            return null;
+        }
+
+        return RasterUtils.extractChannels(image, channels);
+    }
+
     /**
      * Let this pixel API modify some metadata. This may be needed when this pixel API uses
      * some metadata slightly different from the one returned with the web request. For example,
@@ -0,0 +1,75 @@
+package qupath.ext.omero.core.pixelapis;
+
+import qupath.lib.color.ColorModelFactory;
+import qupath.lib.images.servers.ImageChannel;
+import qupath.lib.images.servers.PixelType;
+
+import java.awt.image.BandedSampleModel;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.List;
+
+/**
+ * Utility methods for working with rasters returned by {@link PixelApiReader}.
+ */
+public class RasterUtils {
+
+    private RasterUtils() {
+        throw new AssertionError("This class is not instantiable.");
+    }
+
+    /**
+     * Create an image containing some channels of the provided image.
+     *
+     * @param image the image whose channels should be extracted
+     * @param channels the indices (starting at 0) of the channels to extract
+     * @return a new image containing one band per provided channel, in the order of the provided list
+     * @throws IllegalArgumentException if the provided list is empty, if one of the provided channels doesn't exist,
+     * or if the data type of the provided image is not supported
+     */
+    public static BufferedImage extractChannels(BufferedImage image, List<Integer> channels) {
+        Raster raster = image.getRaster();
+        if (channels.isEmpty()) {
+            throw new IllegalArgumentException("No channel to read provided");
+        }
+        for (int channel: channels) {
+            if (channel < 0 || channel >= raster.getNumBands()) {
+                throw new IllegalArgumentException(String.format(
+                        "The provided channel %d doesn't exist in %s", channel, image
+                ));
+            }
+        }
+
+        // Packed RGB images store one 8-bit sample per band
+        int dataType = image.getSampleModel() instanceof SinglePixelPackedSampleModel ? DataBuffer.TYPE_BYTE : raster.getDataBuffer().getDataType();
+        PixelType pixelType = switch (dataType) {
+            case DataBuffer.TYPE_BYTE -> PixelType.UINT8;
+            case DataBuffer.TYPE_USHORT -> PixelType.UINT16;
+            case DataBuffer.TYPE_SHORT -> PixelType.INT16;
+            case DataBuffer.TYPE_INT -> PixelType.INT32;
+            case DataBuffer.TYPE_FLOAT -> PixelType.FLOAT32;
+            case DataBuffer.TYPE_DOUBLE -> PixelType.FLOAT64;
+            default -> throw new IllegalArgumentException(String.format("Unsupported data type %d of %s", dataType, image));
+        };
+
+        WritableRaster subsetRaster = WritableRaster.createWritableRaster(
+                new BandedSampleModel(dataType, raster.getWidth(), raster.getHeight(), channels.size()),
+                null
+        );
+        double[] samples = null;
+        for (int i=0; i<channels.size(); i++) {
+            samples = raster.getSamples(0, 0, raster.getWidth(), raster.getHeight(), channels.get(i), samples);
+            subsetRaster.setSamples(0, 0, raster.getWidth(), raster.getHeight(), i, samples);
+        }
+
+        return new BufferedImage(
+                ColorModelFactory.createColorModel(pixelType, ImageChannel.getDefaultChannelList(channels.size())),
+                subsetRaster,
+                false,
+                null
+        );
+    }
+}
@@ -15,16 +15,23 @@ import org.slf4j.LoggerFactory;
 import qupath.ext.omero.core.ArgsUtils;
 import qupath.ext.omero.core.Credentials;
 import qupath.ext.omero.core.apis.ApisHandler;
+import qupath.ext.omero.core.apis.commonentities.shapes.Shape;
+import qupath.ext.omero.core.pixelapis.HybridReader;
 import qupath.ext.omero.core.pixelapis.PixelApi;
 import qupath.ext.omero.core.pixelapis.PixelApiReader;
 import qupath.ext.omero.core.preferences.PreferencesManager;
+import qupath.lib.common.ThreadTools;
 import qupath.lib.images.servers.ImageServerMetadata;
 import qupath.lib.images.servers.PixelType;
 
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * This API uses the <a href="https://omero.readthedocs.io/en/v5.6.7/developers/Java.html">OMERO gateway</a>
@@ -45,6 +52,9 @@ public class IceApi implements PixelApi {
     private static final int DEFAULT_NUMBER_OF_READERS = Math.min(MAX_NUMBER_OF_READERS, 5);            // The "5" parameter comes from
                                                                                                         // https://github.com/qupath/qupath-extension-omero/issues/90#issuecomment-3197517094
     private static final boolean gatewayAvailable;
+    private final ExecutorService executorService = Executors.newCachedThreadPool(
+            ThreadTools.createThreadFactory("ice-api-", true)
+    );
     private final List<IceReader> readers = new ArrayList<>();
     private final ApisHandler apisHandler;
     private final StringProperty serverAddress;
@@ -142,7 +152,8 @@ public class IceApi implements PixelApi {
      * @param args additional arguments to change the reader creation: {@link #ADDRESS_PARAMETER}
      *             to a string to set the address used to communicate with the OMERO server and
      *             {@link #PORT_PARAMETER} to an integer greater than 0 to change the port this
-     *             microservice uses on the OMERO server
+     *             microservice uses on the OMERO server. {@link HybridReader#WEB_DOWNSAMPLE_THRESHOLD_PARAMETER}
+     *             can also be provided to read low resolution tiles of RGB images with the web gateway
      * @return a new web reader corresponding to this API
      * @throws ExecutionException if an error occurred while creating the reader
      * @throws InterruptedException if the calling thread is interrupted while creating the reader
@@ -157,45 +168,15 @@ public class IceApi implements PixelApi {
             throw new IllegalArgumentException("The provided image cannot be read by this API");
         }
 
-        ArgsUtils.findArgInList(ADDRESS_PARAMETER, args).ifPresent(this::setServerAddress);
-        ArgsUtils.findArgInList(PORT_PARAMETER, args).ifPresent(port -> {
-            try {
-                setServerPort(Integer.parseInt(port));
-            } catch (IllegalArgumentException e) {
-                logger.warn("Can't use provided ICE server port {}", port, e);
-            }
-        });
-        ArgsUtils.findArgInList(NUMBER_OF_READERS_PARAMETER, args).ifPresent(numberOfReaders -> {
-            try {
-                setNumberOfReaders(Integer.parseInt(numberOfReaders));
-            } catch (IllegalArgumentException e) {
-                logger.warn("Can't use provided ICE server number of readers {}", numberOfReaders, e);
-            }
-        });
-
-        synchronized (this) {
-            if (gatewayWrapper == null) {
-                logger.debug("Gateway null. Creating one...");
-
-                try {
-                    String sessionUuid = apisHandler.getSessionUuid().orElseThrow();
+        applyArgs(args);
 
-                    List<LoginCredentials> credentials = new ArrayList<>();
-                    if (serverAddress.get() != null && !serverAddress.get().isEmpty()) {
-                        credentials.add(new LoginCredentials(sessionUuid, sessionUuid, serverAddress.get(), serverPort.get()));
-                    }
-                    credentials.add(new LoginCredentials(sessionUuid, sessionUuid, apisHandler.getWebServerUri().getHost(), apisHandler.getServerPort()));
-                    credentials.add(new LoginCredentials(sessionUuid, sessionUuid, apisHandler.getServerAddress(), apisHandler.getServerPort()));
-
-                    gatewayWrapper = new GatewayWrapper(credentials);
-                } catch (Exception e) {
-                    throw new ExecutionException(e);
-                }
-            } else {
-                logger.debug("Gateway not null, using it");
-            }
+        // The group of the image is retrieved while the gateway is being created. This request
+        // is answered by the cache of the JSON API if the reader was prepared beforehand
+        CompletableFuture<Long> groupIdRequest = apisHandler.getImage(imageId).thenApply(image -> image.getGroupId());
 
-            long groupId = apisHandler.getImage(imageId).get().getGroupId();
+        synchronized (this) {
+            GatewayWrapper gateway = getOrCreateGateway();
+            long groupId = groupIdRequest.get();
 
             closeReadersWithDifferentGroups(imageId, groupId);
 
@@ -203,9 +184,9 @@ public class IceApi implements PixelApi {
                 logger.debug("Creating reader for image with ID {}...", imageId);
 
                 try {
-                    IceReader reader = new IceReader(gatewayWrapper, imageId, groupId, metadata.getChannels(), metadata.isRGB(), numberOfReaders.get());
+                    IceReader reader = new IceReader(gateway, imageId, groupId, metadata.getChannels(), metadata.isRGB(), numberOfReaders.get());
                     readers.add(reader);
-                    return reader;
+                    return HybridReader.wrapIfRequested(reader, apisHandler, imageId, metadata, args);
                 } catch (Exception e) {
                     throw new RuntimeException(e);
                 }
@@ -215,6 +196,139 @@ public class IceApi implements PixelApi {
         }
     }
 
+    /**
+     * Connect to the ICE server (if not already done) and retrieve the group owning the image to open.
+     * Both operations are performed concurrently.
+     * <p>
+     * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
+     * if the connection failed for example).
+     *
+     * @param imageId the ID of the image that will be opened
+     * @param args the arguments that will be given to {@link #createReader(long, ImageServerMetadata, List)}.
+     *             See this function for more information
+     * @return a CompletableFuture (that may complete exceptionally) that completes when the preparation is done
+     */
+    @Override
+    public CompletableFuture<Void> prepareReader(long imageId, List<String> args) {
+        logger.debug("Preparing ICE reader to open image with ID {} with args {}", imageId, args);
+
+        return CompletableFuture.allOf(
+                apisHandler.getImage(imageId),
+                CompletableFuture.runAsync(() -> {
+                    applyArgs(args);
+
+                    synchronized (this) {
+                        try {
+                            getOrCreateGateway();
+                        } catch (ExecutionException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                }, executorService)
+        );
+    }
+
+    /**
+     * Indicate whether a connection with the ICE server has already been created by this API (for example
+     * when a reader was created). If this is the case, shapes can be transferred through this connection
+     * with {@link #getShapes(long, long)} and {@link #addShapes(long, List)}.
+     *
+     * @return whether a connection with the ICE server exists
+     */
+    public synchronized boolean isConnected() {
+        return gatewayWrapper != null;
+    }
+
+    /**
+     * Attempt to retrieve shapes of an image optionally belonging to a user through the existing connection
+     * with the ICE server. This gives the same shapes as {@link ApisHandler#getShapes(long, long)}, but without
+     * going through the JSON API of the web server.
+     * <p>
+     * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
+     * if the request failed or if {@link #isConnected() no connection exists} for example).
+     *
+     * @param imageId the OMERO image ID
+     * @param userId the ID of the user that should own the shapes to retrieve. Can be negative or equal to 0 to get
+     *               all shapes of the image
+     * @return a CompletableFuture (that may complete exceptionally) with the list of shapes
+     */
+    public CompletableFuture<List<Shape>> getShapes(long imageId, long userId) {
+        logger.debug("Getting shapes of image with ID {} belonging to user with ID {} with Ice", imageId, userId);
+
+        return apisHandler.getImage(imageId).thenApplyAsync(
+                image -> {
+                    try {
+                        return IceShapes.getShapes(getConnectedGateway(), imageId, image.getGroupId(), userId);
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                },
+                executorService
+        );
+    }
+
+    /**
+     * Attempt to retrieve shapes of an image located on a plane and optionally belonging to a user through the
+     * existing connection with the ICE server. This gives the same shapes as {@link ApisHandler#getShapes(long, long, int, int)},
+     * but only the shapes of the plane are transferred.
+     * <p>
+     * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
+     * if the request failed or if {@link #isConnected() no connection exists} for example).
+     *
+     * @param imageId the OMERO image ID
+     * @param userId the ID of the user that should own the shapes to retrieve. Can be negative or equal to 0 to get
+     *               all shapes of the plane
+     * @param z the 0-based z-stack index of the plane containing the shapes to retrieve
+     * @param t the 0-based timepoint index of the plane containing the shapes to retrieve
+     * @return a CompletableFuture (that may complete exceptionally) with the list of shapes
+     */
+    public CompletableFuture<List<Shape>> getShapes(long imageId, long userId, int z, int t) {
+        logger.debug("Getting shapes on plane z={} t={} of image with ID {} belonging to user with ID {} with Ice", z, t, imageId, userId);
+
+        return apisHandler.getImage(imageId).thenApplyAsync(
+                image -> {
+                    try {
+                        return IceShapes.getShapes(getConnectedGateway(), imageId, image.getGroupId(), userId, z, t);
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                },
+                executorService
+        );
+    }
+
+    /**
+     * Attempt to add shapes to an image through the existing connection with the ICE server. This has the same
+     * effect as {@link ApisHandler#addShapes(long, List)}, but without going through the web server, so the size
+     * of requests is not limited by {@link PreferencesManager#getMaxBodySizeBytes(URI)}.
+     * <p>
+     * Note that exception handling is left to the caller (the returned CompletableFuture may complete exceptionally
+     * if the request failed or if {@link #isConnected() no connection exists} for example).
+     *
+     * @param imageId the OMERO image ID
+     * @param shapesToAdd the list of shapes to add
+     * @return a void CompletableFuture (that completes exceptionally if the operation failed)
+     */
+    public CompletableFuture<Void> addShapes(long imageId, List<? extends Shape> shapesToAdd) {
+        logger.debug("Adding {} shapes to image with ID {} with Ice", shapesToAdd.size(), imageId);
+
+        if (shapesToAdd.isEmpty()) {
+            logger.debug("No shapes to add to image with ID {}. Returning without sending request", imageId);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return apisHandler.getImage(imageId).thenAcceptAsync(
+                image -> {
+                    try {
+                        IceShapes.saveShapes(getConnectedGateway(), imageId, image.getGroupId(), shapesToAdd);
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                },
+                executorService
+        );
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == this)
@@ -238,6 +352,8 @@ public class IceApi implements PixelApi {
     public synchronized void close() throws Exception {
         logger.debug("Closing ICE API of {}", apisHandler);
 
+        executorService.shutdownNow();
+
         for (IceReader reader: readers) {
             reader.close();
         }
@@ -342,6 +458,59 @@ public class IceApi implements PixelApi {
         logger.debug("ICE number of readers set to {}", numberOfReaders);
     }
 
+    private void applyArgs(List<String> args) {
+        ArgsUtils.findArgInList(ADDRESS_PARAMETER, args).ifPresent(this::setServerAddress);
+        ArgsUtils.findArgInList(PORT_PARAMETER, args).ifPresent(port -> {
+            try {
+                setServerPort(Integer.parseInt(port));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Can't use provided ICE server port {}", port, e);
+            }
+        });
+        ArgsUtils.findArgInList(NUMBER_OF_READERS_PARAMETER, args).ifPresent(numberOfReaders -> {
+            try {
+                setNumberOfReaders(Integer.parseInt(numberOfReaders));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Can't use provided ICE server number of readers {}", numberOfReaders, e);
+            }
+        });
+    }
+
+    private synchronized GatewayWrapper getConnectedGateway() {
+        if (gatewayWrapper == null) {
+            throw new IllegalStateException("No connection with the ICE server exists");
+        }
+        return gatewayWrapper;
+    }
+
+    /**
+     * Must be called while holding the lock of this object.
+     */
+    private GatewayWrapper getOrCreateGateway() throws ExecutionException {
+        if (gatewayWrapper == null) {
+            logger.debug("Gateway null. Creating one...");
+
+            try {
+                String sessionUuid = apisHandler.getSessionUuid().orElseThrow();
+
+                List<LoginCredentials> credentials = new ArrayList<>();
+                if (serverAddress.get() != null && !serverAddress.get().isEmpty()) {
+                    credentials.add(new LoginCredentials(sessionUuid, sessionUuid, serverAddress.get(), serverPort.get()));
+                }
+                credentials.add(new LoginCredentials(sessionUuid, sessionUuid, apisHandler.getWebServerUri().getHost(), apisHandler.getServerPort()));
+                credentials.add(new LoginCredentials(sessionUuid, sessionUuid, apisHandler.getServerAddress(), apisHandler.getServerPort()));
+
+                gatewayWrapper = new GatewayWrapper(credentials);
+            } catch (Exception e) {
+                throw new ExecutionException(e);
+            }
+        } else {
+            logger.debug("Gateway not null, using it");
+        }
+
+        return gatewayWrapper;
+    }
+
     /**
      * ICE doesn't allow reading several images of different groups at the same time (see
      * <a href="https://github.com/ome/omero-gateway-java/issues/98">this issue</a>).
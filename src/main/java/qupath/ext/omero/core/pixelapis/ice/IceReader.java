@@ -14,7 +14,6 @@ import org.slf4j.LoggerFactory;
 import qupath.ext.omero.core.ObjectPool;
 import qupath.ext.omero.core.pixelapis.PixelApiReader;
 import qupath.lib.color.ColorModelFactory;
-import qupath.lib.common.ColorTools;
 import qupath.lib.common.GeneralTools;
 import qupath.lib.images.servers.ImageChannel;
 import qupath.lib.images.servers.ImageServerMetadata;
@@ -22,11 +21,22 @@ import qupath.lib.images.servers.PixelType;
 import qupath.lib.images.servers.TileRequest;
 import qupath.lib.images.servers.bioformats.OMEPixelParser;
 
+import java.awt.image.BandedSampleModel;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferDouble;
+import java.awt.image.DataBufferFloat;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.WritableRaster;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.List;
+import java.util.stream.IntStream;
 
 /**
  * Read pixel values using the <a href="https://omero.readthedocs.io/en/v5.6.7/developers/Java.html">OMERO gateway</a>.
@@ -40,8 +50,10 @@ class IceReader implements PixelApiReader {
     private final boolean isRgb;
     private final ImageData imageData;
     private final ObjectPool<RawPixelsStorePrx> readerPool;
+    private final List<ImageChannel> channels;
     private final int nChannels;
     private final int effectiveNChannels;
+    private final List<Integer> allChannels;
     private final PixelType pixelType;
     private final ColorModel colorModel;
     private int numberOfResolutionLevels = -1;
@@ -93,8 +105,10 @@ class IceReader implements PixelApiReader {
                 }
         );
 
+        this.channels = channels;
         nChannels = channels.size();
         effectiveNChannels = pixelsData.getSizeC();
+        allChannels = IntStream.range(0, effectiveNChannels).boxed().toList();
         pixelType = switch (pixelsData.getPixelType()) {
             case PixelsData.INT8_TYPE -> PixelType.INT8;
             case PixelsData.UINT8_TYPE -> PixelType.UINT8;
@@ -113,9 +127,26 @@ class IceReader implements PixelApiReader {
 
     @Override
     public BufferedImage readTile(TileRequest tileRequest) throws IOException {
-        logger.debug("Reading tile {} from ICE", tileRequest);
+        return readTile(tileRequest, allChannels);
+    }
+
+    @Override
+    public BufferedImage readTile(TileRequest tileRequest, List<Integer> channels) throws IOException {
+        logger.debug("Reading channels {} of tile {} from ICE", channels, tileRequest);
 
-        byte[][] bytes = new byte[effectiveNChannels][];
+        if (channels.isEmpty()) {
+            throw new IllegalArgumentException("No channel to read provided");
+        }
+        for (int channel: channels) {
+            if (channel < 0 || channel >= Math.min(nChannels, effectiveNChannels)) {
+                throw new IllegalArgumentException(String.format(
+                        "The provided channel %d doesn't exist in image with ID %d", channel, imageData.getId()
+                ));
+            }
+        }
+        boolean allChannelsRequested = channels.equals(allChannels);
+
+        byte[][] bytes = new byte[channels.size()][];
 
         RawPixelsStorePrx reader = null;
         try {
@@ -142,10 +173,10 @@ class IceReader implements PixelApiReader {
                 }
             }
 
-            for (int channel = 0; channel < effectiveNChannels; channel++) {
-                bytes[channel] = reader.getTile(
+            for (int i = 0; i < channels.size(); i++) {
+                bytes[i] = reader.getTile(
                         tileRequest.getZ(),
-                        channel,
+                        channels.get(i),
                         tileRequest.getT(),
                         tileRequest.getTileX(),
                         tileRequest.getTileY(),
@@ -163,27 +194,9 @@ class IceReader implements PixelApiReader {
             readerPool.destroyObject(reader);
         }
 
-        if (isRgb && (effectiveNChannels == 3 || effectiveNChannels == 4)) {
-            int[] rgbArray = new int[bytes[0].length];
-
-            if (effectiveNChannels == 3) {
-                for (int i=0; i<rgbArray.length; i++) {
-                    rgbArray[i] = ColorTools.packRGB(bytes[0][i], bytes[1][i], bytes[2][i]);
-                }
-            } else {
-                for (int i=0; i<rgbArray.length; i++) {
-                    rgbArray[i] = ColorTools.packARGB(bytes[0][i], bytes[1][i], bytes[2][i], bytes[3][i]);
-                }
-            }
-
-            BufferedImage image = new BufferedImage(
-                    tileRequest.getTileWidth(),
-                    tileRequest.getTileHeight(),
-                    effectiveNChannels == 3 ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB
-            );
-            image.setRGB(0, 0, image.getWidth(), image.getHeight(), rgbArray, 0, image.getWidth());
-            return image;
-        } else {
+        if (allChannelsRequested && isRgb && (effectiveNChannels == 3 || effectiveNChannels == 4)) {
+            return createRgbImage(bytes, tileRequest.getTileWidth(), tileRequest.getTileHeight());
+        } else if (allChannelsRequested && nChannels != effectiveNChannels) {
             return new OMEPixelParser.Builder()
                     .isInterleaved(false)
                     .pixelType(pixelType)
@@ -192,6 +205,26 @@ class IceReader implements PixelApiReader {
                     .effectiveNChannels(effectiveNChannels)
                     .build()
                     .parse(bytes, tileRequest.getTileWidth(), tileRequest.getTileHeight(), nChannels, colorModel);
+        } else {
+            DataBuffer dataBuffer = createDataBuffer(bytes);
+
+            return new BufferedImage(
+                    allChannelsRequested ?
+                            colorModel :
+                            ColorModelFactory.createColorModel(pixelType, channels.stream().map(this.channels::get).toList()),
+                    WritableRaster.createWritableRaster(
+                            new BandedSampleModel(
+                                    dataBuffer.getDataType(),
+                                    tileRequest.getTileWidth(),
+                                    tileRequest.getTileHeight(),
+                                    channels.size()
+                            ),
+                            dataBuffer,
+                            null
+                    ),
+                    false,
+                    null
+            );
         }
     }
 
@@ -217,6 +250,87 @@ class IceReader implements PixelApiReader {
         return groupId;
     }
 
+    /**
+     * Pack the provided channels into the integer buffer of an RGB or ARGB image.
+     *
+     * @param bytes the 8-bit values of the red, green, blue, and optionally alpha channels
+     * @param width the width of the image
+     * @param height the height of the image
+     * @return an RGB image if three channels are provided, or an ARGB image if four channels are provided
+     */
+    private static BufferedImage createRgbImage(byte[][] bytes, int width, int height) {
+        BufferedImage image = new BufferedImage(
+                width,
+                height,
+                bytes.length == 3 ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB
+        );
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        byte[] red = bytes[0];
+        byte[] green = bytes[1];
+        byte[] blue = bytes[2];
+        if (bytes.length == 3) {
+            for (int i=0; i<pixels.length; i++) {
+                pixels[i] = 0xFF000000 | (red[i] & 0xFF) << 16 | (green[i] & 0xFF) << 8 | (blue[i] & 0xFF);
+            }
+        } else {
+            byte[] alpha = bytes[3];
+            for (int i=0; i<pixels.length; i++) {
+                pixels[i] = (alpha[i] & 0xFF) << 24 | (red[i] & 0xFF) << 16 | (green[i] & 0xFF) << 8 | (blue[i] & 0xFF);
+            }
+        }
+
+        return image;
+    }
+
+    /**
+     * Convert the provided big-endian channels to a data buffer with one bank per channel.
+     * 8-bit channels are used directly as banks, and other types are converted with a bulk
+     * copy from a big-endian view of the bytes. As with {@link OMEPixelParser}, signed 8-bit values
+     * are stored in a byte buffer and unsigned 32-bit values in an integer buffer.
+     *
+     * @param bytes the big-endian values of each channel
+     * @return a data buffer containing the provided values, with one bank per channel
+     */
+    private DataBuffer createDataBuffer(byte[][] bytes) {
+        int numberOfPixels = bytes[0].length / pixelType.getBytesPerPixel();
+
+        return switch (pixelType) {
+            case UINT8, INT8 -> new DataBufferByte(bytes, numberOfPixels);
+            case UINT16, INT16 -> {
+                short[][] banks = new short[bytes.length][numberOfPixels];
+                for (int i=0; i<bytes.length; i++) {
+                    ByteBuffer.wrap(bytes[i]).order(ByteOrder.BIG_ENDIAN).asShortBuffer().get(banks[i]);
+                }
+                yield pixelType.equals(PixelType.UINT16) ?
+                        new DataBufferUShort(banks, numberOfPixels) :
+                        new DataBufferShort(banks, numberOfPixels);
+            }
+            case UINT32, INT32 -> {
+                int[][] banks = new int[bytes.length][numberOfPixels];
+                for (int i=0; i<bytes.length; i++) {
+                    ByteBuffer.wrap(bytes[i]).order(ByteOrder.BIG_ENDIAN).asIntBuffer().get(banks[i]);
+                }
+                yield new DataBufferInt(banks, numberOfPixels);
+            }
+            case FLOAT32 -> {
+                float[][] banks = new float[bytes.length][numberOfPixels];
+                for (int i=0; i<bytes.length; i++) {
+                    ByteBuffer.wrap(bytes[i]).order(ByteOrder.BIG_ENDIAN).asFloatBuffer().get(banks[i]);
+                }
+                yield new DataBufferFloat(banks, numberOfPixels);
+            }
+            case FLOAT64 -> {
+                double[][] banks = new double[bytes.length][numberOfPixels];
+                for (int i=0; i<bytes.length; i++) {
+                    ByteBuffer.wrap(bytes[i]).order(ByteOrder.BIG_ENDIAN).asDoubleBuffer().get(banks[i]);
+                }
+                yield new DataBufferDouble(banks, numberOfPixels);
+            }
+            default -> throw new IllegalStateException(String.format("Unexpected pixel type: %s", pixelType));
+        };
+    }
+
     /**
      * In some VSI images, the calculated downsamples for width & height can be wildly discordant
      * (see <a href="https://forum.image.sc/t/qupath-omero-weird-pyramid-levels/65484">this issue</a>).
@@ -0,0 +1,378 @@
+package qupath.ext.omero.core.pixelapis.ice;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import omero.RType;
+import omero.ServerError;
+import omero.api.IUpdatePrx;
+import omero.gateway.SecurityContext;
+import omero.gateway.exception.DSOutOfServiceException;
+import omero.model.EllipseI;
+import omero.model.Experimenter;
+import omero.model.IObject;
+import omero.model.ImageI;
+import omero.model.LabelI;
+import omero.model.LineI;
+import omero.model.PointI;
+import omero.model.PolygonI;
+import omero.model.PolylineI;
+import omero.model.RectangleI;
+import omero.model.Roi;
+import omero.model.RoiI;
+import omero.sys.ParametersI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import qupath.ext.omero.core.apis.commonentities.shapes.Shape;
+import qupath.ext.omero.core.apis.commonentities.shapes.ShapeCreator;
+import qupath.ext.omero.core.apis.json.jsonentities.experimenters.OmeroExperimenter;
+import qupath.ext.omero.core.apis.json.jsonentities.shapes.OmeroEllipse;
+import qupath.ext.omero.core.apis.json.jsonentities.shapes.OmeroLabel;
+import qupath.ext.omero.core.apis.json.jsonentities.shapes.OmeroLine;
+import qupath.ext.omero.core.apis.json.jsonentities.shapes.OmeroPoint;
+import qupath.ext.omero.core.apis.json.jsonentities.shapes.OmeroPolygon;
+import qupath.ext.omero.core.apis.json.jsonentities.shapes.OmeroPolyline;
+import qupath.ext.omero.core.apis.json.jsonentities.shapes.OmeroRectangle;
+
+import java.util.List;
+
+import static omero.rtypes.rbool;
+import static omero.rtypes.rdouble;
+import static omero.rtypes.rint;
+import static omero.rtypes.rstring;
+import static omero.rtypes.unwrap;
+
+/**
+ * Utility methods to read and write {@link Shape shapes} with an Ice gateway, and to convert them from and to
+ * Ice {@link omero.model.Shape shapes}.
+ * <p>
+ * Conversions go through the same representation as the one used by the JSON API (see {@link Shape#createJson()}
+ * and {@link ShapeCreator#createShape(JsonElement, long)}), so that shapes behave identically whether they are
+ * transferred with the web API or with Ice.
+ */
+class IceShapes {
+
+    private static final Logger logger = LoggerFactory.getLogger(IceShapes.class);
+    private static final int SAVE_BATCH_SIZE = 1000;
+    private static final String ROIS_QUERY = """
+            select distinct roi from Roi roi
+            left outer join fetch roi.shapes shape
+            left outer join fetch shape.details.owner
+            where roi.image.id = :imageId
+            """;
+    private static final String SHAPES_OF_PLANE_QUERY = """
+            select shape from Shape shape
+            join shape.roi roi
+            left outer join fetch shape.details.owner
+            where roi.image.id = :imageId
+            and coalesce(shape.theZ, 0) = :z
+            and coalesce(shape.theT, 0) = :t
+            """;
+    private static final String OWNER_FILTER = " and roi.details.owner.id = :ownerId";
+
+    private IceShapes() {
+        throw new AssertionError("This class is not instantiable.");
+    }
+
+    /**
+     * Retrieve the shapes of an image optionally belonging to a user. This sends a single query that
+     * returns ROIs with their shapes and the owners of the shapes.
+     *
+     * @param gatewayWrapper a wrapper around a valid connection with an ICE server
+     * @param imageId the ID of the image whose shapes should be retrieved
+     * @param groupId the ID of the group owning the image
+     * @param userId the ID of the user that should own the shapes to retrieve. Can be negative or equal to 0 to get
+     *               all shapes of the image
+     * @return the shapes of the image
+     * @throws DSOutOfServiceException if the connection with the server is not valid
+     * @throws ServerError if the query failed
+     * @throws IllegalArgumentException if one of the returned shapes cannot be converted
+     */
+    public static List<Shape> getShapes(GatewayWrapper gatewayWrapper, long imageId, long groupId, long userId) throws DSOutOfServiceException, ServerError {
+        logger.debug("Getting shapes of image with ID {} belonging to user with ID {} with Ice", imageId, userId);
+
+        ParametersI parameters = new ParametersI();
+        parameters.addLong("imageId", imageId);
+        String query = ROIS_QUERY;
+        if (userId > 0) {
+            parameters.addLong("ownerId", userId);
+            query += OWNER_FILTER;
+        }
+
+        List<IObject> rois = gatewayWrapper.getGateway()
+                .getQueryService(new SecurityContext(groupId))
+                .findAllByQuery(query, parameters);
+
+        List<Shape> shapes = rois.stream()
+                .map(Roi.class::cast)
+                .flatMap(roi -> roi.copyShapes().stream().map(shape -> createShape(shape, roi.getId().getValue())))
+                .toList();
+        logger.debug("Got {} shapes of {} ROIs of image with ID {} with Ice", shapes.size(), rois.size(), imageId);
+
+        return shapes;
+    }
+
+    /**
+     * Retrieve the shapes of an image located on a plane and optionally belonging to a user. This sends a single
+     * query that only returns the shapes of the plane with their owners, so the other shapes of the image are not
+     * transferred.
+     * <p>
+     * As with the JSON API, shapes that don't have any z-stack or timepoint index are considered to be on the
+     * first z-stack or timepoint.
+     *
+     * @param gatewayWrapper a wrapper around a valid connection with an ICE server
+     * @param imageId the ID of the image whose shapes should be retrieved
+     * @param groupId the ID of the group owning the image
+     * @param userId the ID of the user that should own the shapes to retrieve. Can be negative or equal to 0 to get
+     *               all shapes of the plane
+     * @param z the 0-based z-stack index of the plane containing the shapes to retrieve
+     * @param t the 0-based timepoint index of the plane containing the shapes to retrieve
+     * @return the shapes of the plane
+     * @throws DSOutOfServiceException if the connection with the server is not valid
+     * @throws ServerError if the query failed
+     * @throws IllegalArgumentException if one of the returned shapes cannot be converted
+     */
+    public static List<Shape> getShapes(
+            GatewayWrapper gatewayWrapper,
+            long imageId,
+            long groupId,
+            long userId,
+            int z,
+            int t
+    ) throws DSOutOfServiceException, ServerError {
+        logger.debug("Getting shapes on plane z={} t={} of image with ID {} belonging to user with ID {} with Ice", z, t, imageId, userId);
+
+        ParametersI parameters = new ParametersI();
+        parameters.addLong("imageId", imageId);
+        parameters.add("z", rint(z));
+        parameters.add("t", rint(t));
+        String query = SHAPES_OF_PLANE_QUERY;
+        if (userId > 0) {
+            parameters.addLong("ownerId", userId);
+            query += OWNER_FILTER;
+        }
+
+        List<Shape> shapes = gatewayWrapper.getGateway()
+                .getQueryService(new SecurityContext(groupId))
+                .findAllByQuery(query, parameters)
+                .stream()
+                .map(omero.model.Shape.class::cast)
+                .map(shape -> createShape(shape, shape.getRoi().getId().getValue()))
+                .toList();
+        logger.debug("Got {} shapes on plane z={} t={} of image with ID {} with Ice", shapes.size(), z, t, imageId);
+
+        return shapes;
+    }
+
+    /**
+     * Save the provided shapes to an image. Each shape is saved in its own ROI, and ROIs are saved in batches.
+     *
+     * @param gatewayWrapper a wrapper around a valid connection with an ICE server
+     * @param imageId the ID of the image that should contain the shapes
+     * @param groupId the ID of the group owning the image
+     * @param shapes the shapes to save
+     * @throws DSOutOfServiceException if the connection with the server is not valid
+     * @throws ServerError if saving a batch failed. Batches saved before are not reverted
+     * @throws IllegalArgumentException if one of the provided shapes cannot be converted
+     */
+    public static void saveShapes(GatewayWrapper gatewayWrapper, long imageId, long groupId, List<? extends Shape> shapes) throws DSOutOfServiceException, ServerError {
+        logger.debug("Saving {} shapes to image with ID {} with Ice", shapes.size(), imageId);
+
+        List<IObject> rois = shapes.parallelStream()
+                .map(shape -> {
+                    Roi roi = new RoiI();
+                    roi.setImage(new ImageI(imageId, false));
+                    roi.addShape(createIceShape(shape));
+                    return (IObject) roi;
+                })
+                .toList();
+
+        IUpdatePrx updateService = gatewayWrapper.getGateway().getUpdateService(new SecurityContext(groupId));
+        for (int i=0; i<rois.size(); i+=SAVE_BATCH_SIZE) {
+            List<IObject> batch = rois.subList(i, Math.min(i + SAVE_BATCH_SIZE, rois.size()));
+
+            logger.debug("Saving ROIs {} to {} of {} to image with ID {} with Ice", i, i + batch.size(), rois.size(), imageId);
+            updateService.saveAndReturnIds(batch);
+        }
+    }
+
+    /**
+     * Create a {@link Shape} from an Ice shape.
+     *
+     * @param iceShape the Ice shape to convert. If the owner of this shape is loaded, it will be set to the returned shape
+     * @param roiId in OMERO, a ROI contains one or more shapes. This parameter is the ID of the ROI containing the shape
+     * @return a {@link Shape} corresponding to the provided Ice shape
+     * @throws IllegalArgumentException if the provided Ice shape does not correspond to an expected shape
+     * @throws RuntimeException if the provided Ice shape lacks mandatory fields to create a shape
+     */
+    public static Shape createShape(omero.model.Shape iceShape, long roiId) {
+        JsonObject json = new JsonObject();
+
+        switch (iceShape) {
+            case omero.model.Rectangle rectangle -> {
+                json.addProperty("@type", OmeroRectangle.TYPE);
+                addProperty(json, "X", rectangle.getX());
+                addProperty(json, "Y", rectangle.getY());
+                addProperty(json, "Width", rectangle.getWidth());
+                addProperty(json, "Height", rectangle.getHeight());
+            }
+            case omero.model.Ellipse ellipse -> {
+                json.addProperty("@type", OmeroEllipse.TYPE);
+                addProperty(json, "X", ellipse.getX());
+                addProperty(json, "Y", ellipse.getY());
+                addProperty(json, "RadiusX", ellipse.getRadiusX());
+                addProperty(json, "RadiusY", ellipse.getRadiusY());
+            }
+            case omero.model.Line line -> {
+                json.addProperty("@type", OmeroLine.TYPE);
+                addProperty(json, "X1", line.getX1());
+                addProperty(json, "Y1", line.getY1());
+                addProperty(json, "X2", line.getX2());
+                addProperty(json, "Y2", line.getY2());
+            }
+            case omero.model.Point point -> {
+                json.addProperty("@type", OmeroPoint.TYPE);
+                addProperty(json, "X", point.getX());
+                addProperty(json, "Y", point.getY());
+            }
+            case omero.model.Polygon polygon -> {
+                json.addProperty("@type", OmeroPolygon.TYPE);
+                addProperty(json, "Points", polygon.getPoints());
+            }
+            case omero.model.Polyline polyline -> {
+                json.addProperty("@type", OmeroPolyline.TYPE);
+                addProperty(json, "Points", polyline.getPoints());
+            }
+            case omero.model.Label label -> {
+                json.addProperty("@type", OmeroLabel.TYPE);
+                addProperty(json, "X", label.getX());
+                addProperty(json, "Y", label.getY());
+            }
+            default -> throw new IllegalArgumentException(String.format("Unexpected Ice shape %s", iceShape));
+        }
+
+        addProperty(json, "@id", iceShape.getId());
+        addProperty(json, "Text", iceShape.getTextValue());
+        addProperty(json, "FillColor", iceShape.getFillColor());
+        addProperty(json, "StrokeColor", iceShape.getStrokeColor());
+        addProperty(json, "Locked", iceShape.getLocked());
+        addProperty(json, "TheC", iceShape.getTheC());
+        addProperty(json, "TheZ", iceShape.getTheZ());
+        addProperty(json, "TheT", iceShape.getTheT());
+
+        if (iceShape.getDetails() != null && iceShape.getDetails().getOwner() != null && iceShape.getDetails().getOwner().isLoaded()) {
+            Experimenter iceOwner = iceShape.getDetails().getOwner();
+
+            JsonObject owner = new JsonObject();
+            owner.addProperty("@type", OmeroExperimenter.TYPE);
+            addProperty(owner, "@id", iceOwner.getId());
+            addProperty(owner, "FirstName", iceOwner.getFirstName());
+            addProperty(owner, "MiddleName", iceOwner.getMiddleName());
+            addProperty(owner, "LastName", iceOwner.getLastName());
+            addProperty(owner, "UserName", iceOwner.getOmeName());
+
+            JsonObject details = new JsonObject();
+            details.add("owner", owner);
+            json.add("omero:details", details);
+        }
+
+        return ShapeCreator.createShape(json, roiId);
+    }
+
+    /**
+     * Create a new (unsaved) Ice shape from a {@link Shape}.
+     *
+     * @param shape the shape to convert
+     * @return an Ice shape corresponding to the provided shape
+     * @throws IllegalArgumentException if the provided shape cannot be converted
+     */
+    public static omero.model.Shape createIceShape(Shape shape) {
+        JsonObject json = JsonParser.parseString(shape.createJson()).getAsJsonObject();
+        String type = json.get("@type").getAsString();
+
+        omero.model.Shape iceShape = switch (type) {
+            case OmeroRectangle.TYPE -> {
+                RectangleI rectangle = new RectangleI();
+                rectangle.setX(rdouble(json.get("X").getAsDouble()));
+                rectangle.setY(rdouble(json.get("Y").getAsDouble()));
+                rectangle.setWidth(rdouble(json.get("Width").getAsDouble()));
+                rectangle.setHeight(rdouble(json.get("Height").getAsDouble()));
+                yield rectangle;
+            }
+            case OmeroEllipse.TYPE -> {
+                EllipseI ellipse = new EllipseI();
+                ellipse.setX(rdouble(json.get("X").getAsDouble()));
+                ellipse.setY(rdouble(json.get("Y").getAsDouble()));
+                ellipse.setRadiusX(rdouble(json.get("RadiusX").getAsDouble()));
+                ellipse.setRadiusY(rdouble(json.get("RadiusY").getAsDouble()));
+                yield ellipse;
+            }
+            case OmeroLine.TYPE -> {
+                LineI line = new LineI();
+                line.setX1(rdouble(json.get("X1").getAsDouble()));
+                line.setY1(rdouble(json.get("Y1").getAsDouble()));
+                line.setX2(rdouble(json.get("X2").getAsDouble()));
+                line.setY2(rdouble(json.get("Y2").getAsDouble()));
+                yield line;
+            }
+            case OmeroPoint.TYPE -> {
+                PointI point = new PointI();
+                point.setX(rdouble(json.get("X").getAsDouble()));
+                point.setY(rdouble(json.get("Y").getAsDouble()));
+                yield point;
+            }
+            case OmeroPolygon.TYPE -> {
+                PolygonI polygon = new PolygonI();
+                polygon.setPoints(rstring(json.get("Points").getAsString()));
+                yield polygon;
+            }
+            case OmeroPolyline.TYPE -> {
+                PolylineI polyline = new PolylineI();
+                polyline.setPoints(rstring(json.get("Points").getAsString()));
+                yield polyline;
+            }
+            case OmeroLabel.TYPE -> {
+                LabelI label = new LabelI();
+                label.setX(rdouble(json.get("X").getAsDouble()));
+                label.setY(rdouble(json.get("Y").getAsDouble()));
+                yield label;
+            }
+            default -> throw new IllegalArgumentException(String.format("Unexpected type %s", type));
+        };
+
+        if (json.has("Text")) {
+            iceShape.setTextValue(rstring(json.get("Text").getAsString()));
+        }
+        if (json.has("FillColor")) {
+            iceShape.setFillColor(rint(json.get("FillColor").getAsInt()));
+        }
+        if (json.has("StrokeColor")) {
+            iceShape.setStrokeColor(rint(json.get("StrokeColor").getAsInt()));
+        }
+        if (json.has("Locked")) {
+            iceShape.setLocked(rbool(json.get("Locked").getAsBoolean()));
+        }
+        if (json.has("TheC")) {
+            iceShape.setTheC(rint(json.get("TheC").getAsInt()));
+        }
+        if (json.has("TheZ")) {
+            iceShape.setTheZ(rint(json.get("TheZ").getAsInt()));
+        }
+        if (json.has("TheT")) {
+            iceShape.setTheT(rint(json.get("TheT").getAsInt()));
+        }
+
+        return iceShape;
+    }
+
+    private static void addProperty(JsonObject json, String name, RType value) {
+        Object unwrappedValue = unwrap(value);
+
+        switch (unwrappedValue) {
+            case null -> {}
+            case Number number -> json.addProperty(name, number);
+            case Boolean bool -> json.addProperty(name, bool);
+            default -> json.addProperty(name, unwrappedValue.toString());
+        }
+    }
+}
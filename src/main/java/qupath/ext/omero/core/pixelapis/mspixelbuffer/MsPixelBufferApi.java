@@ -11,6 +11,7 @@ import org.slf4j.LoggerFactory;
 import qupath.ext.omero.core.ArgsUtils;
 import qupath.ext.omero.core.RequestSender;
 import qupath.ext.omero.core.apis.ApisHandler;
+import qupath.ext.omero.core.pixelapis.HybridReader;
 import qupath.ext.omero.core.pixelapis.PixelApi;
 import qupath.ext.omero.core.pixelapis.PixelApiReader;
 import qupath.ext.omero.core.preferences.PreferencesManager;
@@ -102,7 +103,9 @@ public class MsPixelBufferApi implements PixelApi {
      * @param imageId the ID of the image to open
      * @param metadata the metadata of the image to open
      * @param args additional arguments to change the reader creation: {@link #PORT_PARAMETER} to
-     *             an integer greater than 0 to change the port this microservice uses on the OMERO server
+     *             an integer greater than 0 to change the port this microservice uses on the OMERO server.
+     *             {@link HybridReader#WEB_DOWNSAMPLE_THRESHOLD_PARAMETER} can also be provided to read low
+     *             resolution tiles of RGB images with the web gateway
      * @return a new mx pixel buffer reader corresponding to this API
      * @throws IllegalStateException when this API is not available (see {@link #isAvailable()})
      * @throws IllegalArgumentException when the provided image cannot be read by this API
@@ -124,13 +127,19 @@ public class MsPixelBufferApi implements PixelApi {
             }
         });
 
-        return new MsPixelBufferReader(
-                host,
+        return HybridReader.wrapIfRequested(
+                new MsPixelBufferReader(
+                        host,
+                        apisHandler,
+                        imageId,
+                        metadata.getPixelType(),
+                        metadata.getChannels(),
+                        metadata.nLevels()
+                ),
                 apisHandler,
                 imageId,
-                metadata.getPixelType(),
-                metadata.getChannels(),
-                metadata.nLevels()
+                metadata,
+                args
         );
     }
 
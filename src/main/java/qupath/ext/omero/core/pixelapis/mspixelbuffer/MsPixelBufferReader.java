@@ -10,9 +10,11 @@ import qupath.lib.images.servers.ImageChannel;
 import qupath.lib.images.servers.PixelType;
 import qupath.lib.images.servers.TileRequest;
 
+import javax.imageio.ImageTypeSpecifier;
 import java.awt.image.BandedSampleModel;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
+import java.awt.image.ComponentSampleModel;
 import java.awt.image.DataBuffer;
 import java.awt.image.DataBufferByte;
 import java.awt.image.DataBufferDouble;
@@ -20,13 +22,15 @@ import java.awt.image.DataBufferFloat;
 import java.awt.image.DataBufferInt;
 import java.awt.image.DataBufferShort;
 import java.awt.image.DataBufferUShort;
+import java.awt.image.SampleModel;
 import java.awt.image.WritableRaster;
 import java.io.IOException;
+import java.lang.reflect.Array;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.IntStream;
 
 /**
@@ -40,7 +44,8 @@ class MsPixelBufferReader implements PixelApiReader {
     private final ApisHandler apisHandler;
     private final long imageID;
     private final PixelType pixelType;
-    private final int numberOfChannels;
+    private final List<ImageChannel> channels;
+    private final List<Integer> allChannels;
     private final ColorModel colorModel;
     private final int numberOfLevels;
 
@@ -66,7 +71,8 @@ class MsPixelBufferReader implements PixelApiReader {
         this.apisHandler = apisHandler;
         this.imageID = imageID;
         this.pixelType = pixelType;
-        this.numberOfChannels = channels.size();
+        this.channels = channels;
+        this.allChannels = IntStream.range(0, channels.size()).boxed().toList();
         this.colorModel = ColorModelFactory.createColorModel(pixelType, channels);
         this.numberOfLevels = numberOfLevels;
 
@@ -75,23 +81,58 @@ class MsPixelBufferReader implements PixelApiReader {
 
     @Override
     public BufferedImage readTile(TileRequest tileRequest) throws IOException {
-        logger.debug("Reading tile {} from pixel buffer microservice API", tileRequest);
+        return readTile(tileRequest, allChannels);
+    }
+
+    @Override
+    public BufferedImage readTile(TileRequest tileRequest, List<Integer> channels) throws IOException {
+        logger.debug("Reading channels {} of tile {} from pixel buffer microservice API", channels, tileRequest);
+
+        if (channels.isEmpty()) {
+            throw new IllegalArgumentException("No channel to read provided");
+        }
+        for (int channel: channels) {
+            if (channel < 0 || channel >= this.channels.size()) {
+                throw new IllegalArgumentException(String.format(
+                        "The provided channel %d doesn't exist in image with ID %d", channel, imageID
+                ));
+            }
+        }
 
         // OMERO expects resolutions to be specified in reverse order
         int level = numberOfLevels - tileRequest.getLevel() - 1;
 
-        List<CompletableFuture<BufferedImage>> imageRequests = IntStream.range(0, numberOfChannels)
+        if (this.channels.size() == 1 && pixelType.equals(PixelType.UINT8)) {
+            try {
+                return readTile(imageID, 0, level, tileRequest, imageType -> null).get();
+            } catch (InterruptedException e) {
+                logger.debug(
+                        "Reading tile {} from pixel buffer microservice API interrupted. Interrupting current thread",
+                        tileRequest,
+                        e
+                );
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+
+        // Each channel is decoded directly into its bank of the final data buffer when possible
+        DataBuffer dataBuffer = createDataBuffer(tileRequest.getTileWidth() * tileRequest.getTileHeight(), channels.size());
+        List<CompletableFuture<BufferedImage>> imageRequests = IntStream.range(0, channels.size())
                 .mapToObj(i -> readTile(
                         imageID,
-                        i,
+                        channels.get(i),
                         level,
-                        tileRequest
+                        tileRequest,
+                        imageType -> createDestination(imageType, getBank(dataBuffer, i), tileRequest.getTileWidth(), tileRequest.getTileHeight())
                 ))
                 .toList();
-        List<BufferedImage> images = new ArrayList<>();
-        for (var request: imageRequests) {
+        for (int i=0; i<imageRequests.size(); i++) {
+            BufferedImage image;
             try {
-                images.add(request.get());
+                image = imageRequests.get(i).get();
             } catch (InterruptedException e) {
                 logger.debug(
                         "Reading tile {} from pixel buffer microservice API interrupted. Interrupting current thread",
@@ -103,33 +144,46 @@ class MsPixelBufferReader implements PixelApiReader {
             } catch (Exception e) {
                 throw new IOException(e);
             }
-        }
-        logger.debug("Got images {} for {}. Combining them", images, tileRequest);
-
-        if (numberOfChannels == 1 && pixelType.equals(PixelType.UINT8)) {
-            return images.getFirst();
-        } else {
-            DataBuffer dataBuffer = getDataBuffer(images.stream()
-                    .map(AWTImageTools::getPixels)
-                    .toList()
-            );
 
-            return new BufferedImage(
-                    colorModel,
-                    WritableRaster.createWritableRaster(
-                            new BandedSampleModel(
-                                    dataBuffer.getDataType(),
-                                    tileRequest.getTileWidth(),
-                                    tileRequest.getTileHeight(),
-                                    numberOfChannels
-                            ),
-                            dataBuffer,
-                            null
-                    ),
-                    false,
-                    null
-            );
+            if (image.getWidth() != tileRequest.getTileWidth() || image.getHeight() != tileRequest.getTileHeight()) {
+                throw new IOException(String.format(
+                        "The size of the received image %s doesn't match the size of the tile %s", image, tileRequest
+                ));
+            }
+            Object bank = getBank(dataBuffer, i);
+            if (!isBackedBy(image, bank)) {
+                logger.trace("Image {} not decoded into the data buffer of {}. Copying pixels", image, tileRequest);
+
+                if (!(AWTImageTools.getPixels(image) instanceof Object[] pixels) || pixels.length == 0 ||
+                        pixels[0] == null || !pixels[0].getClass().equals(bank.getClass()) ||
+                        Array.getLength(pixels[0]) < dataBuffer.getSize()
+                ) {
+                    throw new IOException(String.format(
+                            "The pixels of the received image %s don't match the pixel type %s of the tile %s", image, pixelType, tileRequest
+                    ));
+                }
+                System.arraycopy(pixels[0], 0, bank, 0, dataBuffer.getSize());
+            }
         }
+        logger.debug("Got channels {} for {}", channels, tileRequest);
+
+        return new BufferedImage(
+                channels.equals(allChannels) ?
+                        colorModel :
+                        ColorModelFactory.createColorModel(pixelType, channels.stream().map(this.channels::get).toList()),
+                WritableRaster.createWritableRaster(
+                        new BandedSampleModel(
+                                dataBuffer.getDataType(),
+                                tileRequest.getTileWidth(),
+                                tileRequest.getTileHeight(),
+                                channels.size()
+                        ),
+                        dataBuffer,
+                        null
+                ),
+                false,
+                null
+        );
     }
 
     @Override
@@ -144,65 +198,104 @@ class MsPixelBufferReader implements PixelApiReader {
         );
     }
 
-    private CompletableFuture<BufferedImage> readTile(long imageID, int channel, int level, TileRequest tileRequest) {
+    private CompletableFuture<BufferedImage> readTile(
+            long imageID,
+            int channel,
+            int level,
+            TileRequest tileRequest,
+            Function<ImageTypeSpecifier, BufferedImage> destinationCreator
+    ) {
         try {
-            return apisHandler.getImage(new URI(String.format(TILE_URI,
-                    host,
-                    imageID,
-                    tileRequest.getZ(),
-                    channel,
-                    tileRequest.getT(),
-                    tileRequest.getTileX(),
-                    tileRequest.getTileY(),
-                    tileRequest.getTileWidth(),
-                    tileRequest.getTileHeight(),
-                    level
-            )));
+            return apisHandler.getImage(
+                    new URI(String.format(TILE_URI,
+                            host,
+                            imageID,
+                            tileRequest.getZ(),
+                            channel,
+                            tileRequest.getT(),
+                            tileRequest.getTileX(),
+                            tileRequest.getTileY(),
+                            tileRequest.getTileWidth(),
+                            tileRequest.getTileHeight(),
+                            level
+                    )),
+                    destinationCreator
+            );
         } catch (URISyntaxException e) {
             return CompletableFuture.failedFuture(e);
         }
     }
 
-    private DataBuffer getDataBuffer(List<Object> pixels) {
+    private DataBuffer createDataBuffer(int size, int numberOfBanks) {
         return switch (pixelType) {
-            case UINT8 -> {
-                byte[][] bytes = new byte[pixels.size()][];
-                for (int i = 0; i < pixels.size(); i++) {
-                    bytes[i] = ((byte[][]) pixels.get(i))[0];
-                }
-                yield new DataBufferByte(bytes, bytes[0].length);
-            }
-            case UINT16, INT16 -> {
-                short[][] shortArray = new short[pixels.size()][];
-                for (int i = 0; i < pixels.size(); i++) {
-                    shortArray[i] = ((short[][]) pixels.get(i))[0];
-                }
-                yield pixelType.equals(PixelType.UINT16) ?
-                        new DataBufferUShort(shortArray, shortArray[0].length) :
-                        new DataBufferShort(shortArray, shortArray[0].length);
-            }
-            case INT32 -> {
-                int[][] intArray = new int[pixels.size()][];
-                for (int i = 0; i < pixels.size(); i++) {
-                    intArray[i] = ((int[][]) pixels.get(i))[0];
-                }
-                yield new DataBufferInt(intArray, intArray[0].length);
-            }
-            case FLOAT32 -> {
-                float[][] floatArray = new float[pixels.size()][];
-                for (int c = 0; c < pixels.size(); c++) {
-                    floatArray[c] = ((float[][]) pixels.get(c))[0];
-                }
-                yield  new DataBufferFloat(floatArray, floatArray[0].length);
-            }
-            case FLOAT64 -> {
-                double[][] doubleArray = new double[pixels.size()][];
-                for (int c = 0; c < pixels.size(); c++) {
-                    doubleArray[c] = ((double[][]) pixels.get(c))[0];
-                }
-                yield  new DataBufferDouble(doubleArray, doubleArray[0].length);
-            }
+            case UINT8 -> new DataBufferByte(size, numberOfBanks);
+            case UINT16 -> new DataBufferUShort(size, numberOfBanks);
+            case INT16 -> new DataBufferShort(size, numberOfBanks);
+            case INT32 -> new DataBufferInt(size, numberOfBanks);
+            case FLOAT32 -> new DataBufferFloat(size, numberOfBanks);
+            case FLOAT64 -> new DataBufferDouble(size, numberOfBanks);
             default -> throw new UnsupportedOperationException(String.format("Unsupported pixel type: %s ", pixelType));
         };
     }
+
+    private static Object getBank(DataBuffer dataBuffer, int bank) {
+        return switch (dataBuffer) {
+            case DataBufferByte dataBufferByte -> dataBufferByte.getData(bank);
+            case DataBufferUShort dataBufferUShort -> dataBufferUShort.getData(bank);
+            case DataBufferShort dataBufferShort -> dataBufferShort.getData(bank);
+            case DataBufferInt dataBufferInt -> dataBufferInt.getData(bank);
+            case DataBufferFloat dataBufferFloat -> dataBufferFloat.getData(bank);
+            case DataBufferDouble dataBufferDouble -> dataBufferDouble.getData(bank);
+            default -> throw new UnsupportedOperationException(String.format("Unsupported data buffer: %s ", dataBuffer));
+        };
+    }
+
+    /**
+     * Create an image whose pixels are stored in the provided array, so that decoding into this image
+     * writes directly to the array. This is only possible if the image to decode has a single band with
+     * a layout and a data type matching the array.
+     *
+     * @param imageType the raw type of the image to decode
+     * @param bank the array that should contain the pixels of the image
+     * @param width the width of the image to decode
+     * @param height the height of the image to decode
+     * @return an image backed by the provided array, or null if not possible
+     */
+    private static BufferedImage createDestination(ImageTypeSpecifier imageType, Object bank, int width, int height) {
+        SampleModel sampleModel = imageType.getSampleModel(width, height);
+        if (!(sampleModel instanceof ComponentSampleModel componentSampleModel) ||
+                componentSampleModel.getNumBands() != 1 ||
+                componentSampleModel.getPixelStride() != 1 ||
+                componentSampleModel.getScanlineStride() != width ||
+                componentSampleModel.getBankIndices()[0] != 0 ||
+                componentSampleModel.getBandOffsets()[0] != 0
+        ) {
+            return null;
+        }
+
+        DataBuffer dataBuffer = switch (sampleModel.getDataType()) {
+            case DataBuffer.TYPE_BYTE -> bank instanceof byte[] array ? new DataBufferByte(array, array.length) : null;
+            case DataBuffer.TYPE_USHORT -> bank instanceof short[] array ? new DataBufferUShort(array, array.length) : null;
+            case DataBuffer.TYPE_SHORT -> bank instanceof short[] array ? new DataBufferShort(array, array.length) : null;
+            case DataBuffer.TYPE_INT -> bank instanceof int[] array ? new DataBufferInt(array, array.length) : null;
+            case DataBuffer.TYPE_FLOAT -> bank instanceof float[] array ? new DataBufferFloat(array, array.length) : null;
+            case DataBuffer.TYPE_DOUBLE -> bank instanceof double[] array ? new DataBufferDouble(array, array.length) : null;
+            default -> null;
+        };
+        if (dataBuffer == null) {
+            return null;
+        }
+
+        return new BufferedImage(
+                imageType.getColorModel(),
+                WritableRaster.createWritableRaster(sampleModel, dataBuffer, null),
+                false,
+                null
+        );
+    }
+
+    private static boolean isBackedBy(BufferedImage image, Object bank) {
+        DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+        return dataBuffer.getNumBanks() == 1 && getBank(dataBuffer, 0) == bank;
+    }
 }
@@ -9,6 +9,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import qupath.ext.omero.core.ArgsUtils;
 import qupath.ext.omero.core.apis.ApisHandler;
+import qupath.ext.omero.core.apis.iviewer.imageentities.ImageData;
 import qupath.ext.omero.core.pixelapis.PixelApi;
 import qupath.ext.omero.core.preferences.PreferencesManager;
 import qupath.lib.images.servers.ImageServerMetadata;
@@ -17,17 +18,25 @@ import qupath.lib.images.servers.PixelType;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 /**
  * This API uses the <a href="https://docs.openmicroscopy.org/omero/latest/developers/json-api.html">OMERO JSON API</a>
  * to access pixel values of an image. It doesn't have dependencies but can only work with 8-bit RGB images, and the
  * images are JPEG-compressed.
+ * <p>
+ * If composite rendering is requested for an image (see {@link #createReader(long, ImageServerMetadata, List)}),
+ * a non-RGB image is rendered by the server as an 8-bit RGB composite of its active channels, using the display ranges
+ * and colors stored on the server. This is useful to view images with many channels, as only the displayed channels
+ * are transferred, but pixel values don't correspond to the raw values of the image. This is therefore never done
+ * unless explicitly requested for the image, and {@link #canReadImage(PixelType, int)} only considers raw images.
  */
 public class WebApi implements PixelApi {
 
     private static final String NAME = "Web";
     private static final float DEFAULT_JPEG_QUALITY = 0.9F;
     private static final String JPEG_QUALITY_PARAMETER = "--jpegQuality";
+    private static final String COMPOSITE_RENDERING_PARAMETER = "--compositeRendering";
     private static final Logger logger = LoggerFactory.getLogger(WebApi.class);
     private final ApisHandler apisHandler;
     private final FloatProperty jpegQuality;
@@ -103,19 +112,22 @@ public class WebApi implements PixelApi {
      * @param imageId the ID of the image to open
      * @param metadata the metadata of the image to open
      * @param args additional arguments to change the reader creation: {@link #JPEG_QUALITY_PARAMETER}
-     *             to a float between 0 and 1 to change the JPEG quality of the returned images
+     *             to a float between 0 and 1 to change the JPEG quality of the returned images, and
+     *             {@link #COMPOSITE_RENDERING_PARAMETER} to "true" to render a non-RGB image as an RGB composite of its
+     *             active channels (the returned reader then describes the image as an 8-bit RGB image, so this should
+     *             only be used to view the image)
      * @return a new web reader corresponding to this API
-     * @throws IllegalArgumentException when the provided image cannot be read by this API
-     * (see {@link #canReadImage(PixelType, int)})
+     * @throws ExecutionException if an error occurred while retrieving the rendering settings of a non-RGB image
+     * opened with composite rendering
+     * @throws InterruptedException if the calling thread is interrupted while retrieving the rendering settings of a non-RGB
+     * image opened with composite rendering
+     * @throws IllegalArgumentException when the provided image cannot be read by this API (see {@link #canReadImage(PixelType, int)})
+     * and composite rendering was not requested, or when a non-RGB image opened with composite rendering has no active channel
      */
     @Override
-    public PixelApiReader createReader(long imageId, ImageServerMetadata metadata, List<String> args) {
+    public PixelApiReader createReader(long imageId, ImageServerMetadata metadata, List<String> args) throws ExecutionException, InterruptedException {
         logger.debug("Creating web API reader to open image with ID {} with args {}", imageId, args);
 
-        if (!canReadImage(metadata.getPixelType(), metadata.getSizeC())) {
-            throw new IllegalArgumentException("The provided image cannot be read by this API");
-        }
-
         ArgsUtils.findArgInList(JPEG_QUALITY_PARAMETER, args).ifPresent(quality -> {
             try {
                 setJpegQuality(Float.parseFloat(quality));
@@ -123,14 +135,39 @@ public class WebApi implements PixelApi {
                 logger.warn("Can't use provided JPEG quality {}", quality, e);
             }
         });
+        boolean compositeRendering = ArgsUtils.findArgInList(COMPOSITE_RENDERING_PARAMETER, args)
+                .map(Boolean::parseBoolean)
+                .orElse(false);
 
-        return new WebReader(
-                apisHandler,
-                imageId,
-                metadata.getPreferredTileWidth(),
-                metadata.getPreferredTileHeight(),
-                jpegQuality.get()
-        );
+        if (metadata.isRGB() || !compositeRendering) {
+            if (!canReadImage(metadata.getPixelType(), metadata.getSizeC())) {
+                throw new IllegalArgumentException("The provided image cannot be read by this API");
+            }
+
+            return new WebReader(
+                    apisHandler,
+                    imageId,
+                    metadata.getPreferredTileWidth(),
+                    metadata.getPreferredTileHeight(),
+                    jpegQuality.get()
+            );
+        } else {
+            ImageData renderingSettings = apisHandler.getImageData(imageId).get();
+            if (renderingSettings.getActiveChannels().isEmpty()) {
+                throw new IllegalArgumentException(String.format(
+                        "The image with ID %d has no active channel, so it cannot be rendered as a composite", imageId
+                ));
+            }
+
+            return new WebReader(
+                    apisHandler,
+                    imageId,
+                    metadata.getPreferredTileWidth(),
+                    metadata.getPreferredTileHeight(),
+                    jpegQuality.get(),
+                    renderingSettings
+            );
+        }
     }
 
     @Override
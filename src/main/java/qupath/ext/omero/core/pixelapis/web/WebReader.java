@@ -3,7 +3,10 @@ package qupath.ext.omero.core.pixelapis.web;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import qupath.ext.omero.core.apis.ApisHandler;
+import qupath.ext.omero.core.apis.iviewer.imageentities.ImageData;
+import qupath.lib.images.servers.ImageChannel;
 import qupath.lib.images.servers.ImageServerMetadata;
+import qupath.lib.images.servers.PixelType;
 import qupath.lib.images.servers.TileRequest;
 import qupath.ext.omero.core.pixelapis.PixelApiReader;
 
@@ -12,6 +15,9 @@ import java.io.IOException;
 
 /**
  * Read pixel values using the <a href="https://docs.openmicroscopy.org/omero/latest/developers/json-api.html">OMERO JSON API</a>.
+ * <p>
+ * Images that are not RGB can be read if rendering settings are provided: the server then renders an RGB composite
+ * of the active channels.
  */
 class WebReader implements PixelApiReader {
 
@@ -20,11 +26,12 @@ class WebReader implements PixelApiReader {
     private final ApisHandler apisHandler;
     private final long imageID;
     private final double jpegQuality;
+    private final ImageData renderingSettings;
     private int preferredTileWidth;
     private int preferredTileHeight;
 
     /**
-     * Creates a new web API.
+     * Creates a new web API to read an RGB image.
      *
      * @param apisHandler the request handler which will be used to perform web requests
      * @param imageID the ID of the image to open
@@ -38,12 +45,35 @@ class WebReader implements PixelApiReader {
             int preferredTileWidth,
             int preferredTileHeight,
             float jpegQuality
+    ) {
+        this(apisHandler, imageID, preferredTileWidth, preferredTileHeight, jpegQuality, null);
+    }
+
+    /**
+     * Creates a new web API to read an RGB composite of the active channels of an image.
+     *
+     * @param apisHandler the request handler which will be used to perform web requests
+     * @param imageID the ID of the image to open
+     * @param preferredTileWidth the preferred tile width of the image to open in pixels
+     * @param preferredTileHeight the preferred tile height of the image to open in pixels
+     * @param jpegQuality the JPEG quality of the image to open (between 0 and 1)
+     * @param renderingSettings the active channels, display ranges and colors to use when rendering the image.
+     *                          Can be null to read an RGB image
+     */
+    public WebReader(
+            ApisHandler apisHandler,
+            long imageID,
+            int preferredTileWidth,
+            int preferredTileHeight,
+            float jpegQuality,
+            ImageData renderingSettings
     ) {
         this.apisHandler = apisHandler;
         this.imageID = imageID;
         this.preferredTileWidth = preferredTileWidth;
         this.preferredTileHeight = preferredTileHeight;
         this.jpegQuality = jpegQuality;
+        this.renderingSettings = renderingSettings;
     }
 
     @Override
@@ -51,13 +81,25 @@ class WebReader implements PixelApiReader {
         logger.debug("Reading tile {} from web API", tileRequest);
 
         try {
-            return apisHandler.readTile(
-                    imageID,
-                    tileRequest,
-                    preferredTileWidth,
-                    preferredTileHeight,
-                    jpegQuality
-            ).get();
+            if (renderingSettings == null) {
+                return apisHandler.readTile(
+                        imageID,
+                        tileRequest,
+                        preferredTileWidth,
+                        preferredTileHeight,
+                        jpegQuality
+                ).get();
+            } else {
+                return apisHandler.readCompositeTile(
+                        imageID,
+                        tileRequest,
+                        preferredTileWidth,
+                        preferredTileHeight,
+                        jpegQuality,
+                        renderingSettings.getActiveChannels(),
+                        renderingSettings.getChannelSettings()
+                ).get();
+            }
         } catch (InterruptedException e) {
             logger.debug("Reading tile {} from web API interrupted. Interrupting current thread", tileRequest, e);
             Thread.currentThread().interrupt();
@@ -71,7 +113,7 @@ class WebReader implements PixelApiReader {
     public ImageServerMetadata updateMetadata(ImageServerMetadata originalMetadata) {
         logger.debug("Updating metadata {} from web reader", originalMetadata);
 
-        return maxWebGatewayTileSize(originalMetadata);
+        return maxWebGatewayTileSize(renderingSettings == null ? originalMetadata : toRgbMetadata(originalMetadata));
     }
 
     @Override
@@ -82,6 +124,20 @@ class WebReader implements PixelApiReader {
         return String.format("Web reader of image with ID %d", imageID);
     }
 
+    /**
+     * Tiles rendered by the server are 8-bit RGB images, so the metadata of the image must describe an RGB image.
+     *
+     * @param originalMetadata the original metadata of the image
+     * @return a modified version of the provided metadata describing an 8-bit RGB image
+     */
+    private static ImageServerMetadata toRgbMetadata(ImageServerMetadata originalMetadata) {
+        return new ImageServerMetadata.Builder(originalMetadata)
+                .pixelType(PixelType.UINT8)
+                .rgb(true)
+                .channels(ImageChannel.getDefaultRGBChannels())
+                .build();
+    }
+
     /**
      * The OMERO webgateway used to retrieve tiles cannot accept tiles with width or height greater than {@link #MAX_WEB_GATEWAY_SIZE}
      * (see <a href="https://github.com/ome/omero-web/issues/609">this issue</a>). This function fixes that by
@@ -17,10 +17,10 @@ import qupath.ext.omero.core.apis.json.repositoryentities.serverentities.Screen;
 import qupath.ext.omero.core.apis.json.repositoryentities.serverentities.ServerEntity;
 import qupath.ext.omero.core.apis.json.repositoryentities.serverentities.Well;
 import qupath.ext.omero.core.apis.webclient.annotations.Pair;
-import qupath.ext.omero.core.imageserver.OmeroImageServer;
 import qupath.ext.omero.core.imageserver.OmeroImageServerBuilder;
 import qupath.ext.omero.gui.login.WaitingWindow;
 import qupath.fx.dialogs.Dialogs;
+import qupath.lib.common.ThreadTools;
 import qupath.lib.gui.QuPathGUI;
 import qupath.lib.gui.commands.ProjectCommands;
 import qupath.lib.gui.panes.ImageDetailsPane;
@@ -42,6 +42,10 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.ResourceBundle;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * Utility class for opening images from the user interface.
@@ -52,6 +56,7 @@ public class ImageOpener {
     private static final ResourceBundle resources = Utils.getResources();
     private static final String ID_LABEL = "%s-id";
     private static final String NAME_LABEL = "%s-name";
+    private static final int MAX_NUMBER_OF_PARALLEL_OPERATIONS = 8;
 
     private ImageOpener() {
         throw new AssertionError("This class is not instantiable.");
@@ -78,6 +83,10 @@ public class ImageOpener {
      * import the key-value pairs of the OMERO image to the metadata of the project entry, as
      * well as the ID and the name of the parent dataset.
      * <p>
+     * The images contained in the provided URIs are retrieved concurrently. Servers (when opening in the viewer)
+     * are built and image metadata (when adding to a project) are fetched in parallel, with at most
+     * {@link #MAX_NUMBER_OF_PARALLEL_OPERATIONS} operations running at the same time.
+     * <p>
      * Part of this function is asynchronous, so it might return before the images are actually open.
      *
      * @param uris the URIs of the images to open (that can point to other entities, see above)
@@ -97,9 +106,11 @@ public class ImageOpener {
         waitingWindow.show();
 
         logger.debug("Getting image URIs contained in {}", uris);
-        CompletableFuture.supplyAsync(() -> uris.stream()
+        List<CompletableFuture<List<URI>>> requests = uris.stream()
                 .map(URI::create)
                 .map(apisHandler::getImageUrisFromEntityURI)
+                .toList();
+        CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).thenApply(v -> requests.stream()
                 .map(CompletableFuture::join)
                 .flatMap(List::stream)
                 .distinct()
@@ -131,7 +142,7 @@ public class ImageOpener {
             if (QuPathGUI.getInstance().getProject() == null) {
                 openImagesInCurrentViewer(imageUris);
             } else {
-                openImagesInCurrentProject(imageUris);
+                openImagesInCurrentProject(imageUris, apisHandler);
             }
         }));
     }
@@ -160,13 +171,16 @@ public class ImageOpener {
         waitingWindow.show();
 
         logger.debug("Creating servers for {}", uris);
-        CompletableFuture.supplyAsync(() -> uris.stream()
-                .map(uri -> omeroImageServerBuilder.get().buildServer(uri))
-                .filter(Objects::nonNull)
-                .toList()
-        ).whenComplete((servers, error) -> Platform.runLater(() -> {
+        processInParallel(
+                uris,
+                uri -> omeroImageServerBuilder.get().buildServer(uri),
+                waitingWindow
+        ).whenComplete((builtServers, error) -> Platform.runLater(() -> {
             waitingWindow.close();
 
+            List<ImageServer<BufferedImage>> servers = builtServers == null ? null : builtServers.stream()
+                    .filter(Objects::nonNull)
+                    .toList();
             if (servers == null || servers.isEmpty()) {
                 logger.error("Cannot create servers of {}", uris, error);
                 showErrorMessage(uris);
@@ -202,27 +216,107 @@ public class ImageOpener {
         }));
     }
 
-    private static void openImagesInCurrentProject(List<URI> uris) {
-        logger.debug("Project currently open: adding {} to it", uris);
+    private static void openImagesInCurrentProject(List<URI> uris, ApisHandler apisHandler) {
+        WaitingWindow waitingWindow;
+        try {
+            waitingWindow = new WaitingWindow(
+                    QuPathGUI.getInstance().getStage(),
+                    MessageFormat.format(resources.getString("ImageOpener.fetchingInformation"), uris)
+            );
+        } catch (IOException e) {
+            logger.error("Error while creating the waiting window", e);
+            return;
+        }
+        waitingWindow.show();
 
-        List<ProjectImageEntry<BufferedImage>> entries = ProjectCommands.promptToImportImages(
-                QuPathGUI.getInstance(),
-                ImageServerProvider.getInstalledImageServerBuilders(BufferedImage.class).stream()
-                        .filter(b -> b instanceof OmeroImageServerBuilder)
-                        .findAny()
-                        .orElse(null),
-                uris.stream().map(URI::toString).toArray(String[]::new)
-        );
+        // The metadata are fetched (and cached) before the import, so that the servers created by the import
+        // don't have to fetch them one by one. Images with provisional metadata containing resolution levels are
+        // skipped, as the servers created by the import are built lazily and start with this provisional metadata
+        // (see OmeroImageServerBuilder). Other images need their full metadata, as QuPath pyramidalizes large images
+        // with a single resolution level when importing them
+        logger.debug("Prefetching metadata of {}", uris);
+        processInParallel(
+                uris,
+                uri -> {
+                    ApisHandler.parseEntity(uri)
+                            .filter(entity -> apisHandler.getProvisionalImageMetadata(entity.id())
+                                    .filter(metadata -> metadata.nLevels() > 1)
+                                    .isEmpty()
+                            )
+                            .ifPresent(entity -> {
+                                try {
+                                    apisHandler.getImageMetadata(entity.id()).join();
+                                } catch (RuntimeException e) {
+                                    logger.debug("Cannot prefetch metadata of {}. It will be fetched when importing the image", uri, e);
+                                }
+                            });
+                    return uri;
+                },
+                waitingWindow
+        ).whenComplete((prefetchedUris, error) -> Platform.runLater(() -> {
+            waitingWindow.close();
 
-        if (OmeroExtension.getAutoKvpImportProperty().get()) {
-            logger.debug("Automatically importing key-value pairs and parent dataset information");
+            logger.debug("Project currently open: adding {} to it", uris);
+
+            List<ProjectImageEntry<BufferedImage>> entries = OmeroImageServerBuilder.buildLazily(
+                    uris,
+                    () -> ProjectCommands.promptToImportImages(
+                            QuPathGUI.getInstance(),
+                            ImageServerProvider.getInstalledImageServerBuilders(BufferedImage.class).stream()
+                                    .filter(b -> b instanceof OmeroImageServerBuilder)
+                                    .findAny()
+                                    .orElse(null),
+                            uris.stream().map(URI::toString).toArray(String[]::new)
+                    )
+            );
+
+            if (OmeroExtension.getAutoKvpImportProperty().get()) {
+                logger.debug("Automatically importing key-value pairs and parent dataset information");
 
-            for (ProjectImageEntry<BufferedImage> entry: entries) {
-                importKeyValuePairsAndParentContainer(entry);
+                for (ProjectImageEntry<BufferedImage> entry: entries) {
+                    importKeyValuePairsAndParentContainer(entry, apisHandler);
+                }
+            } else {
+                logger.debug("Skipping automatic import of key-value pairs and parent dataset information");
             }
-        } else {
-            logger.debug("Skipping automatic import of key-value pairs and parent dataset information");
-        }
+        }));
+    }
+
+    /**
+     * Apply a function to each of the provided URIs in parallel, with at most {@link #MAX_NUMBER_OF_PARALLEL_OPERATIONS}
+     * calls running at the same time. The progress of the provided waiting window is updated each time a call completes.
+     *
+     * @param uris the URIs to process
+     * @param function the function to apply to each URI. It will be called from a background thread
+     * @param waitingWindow the waiting window whose progress should be updated
+     * @return a CompletableFuture (that may complete exceptionally) with the results of the function, in the order
+     * of the provided URIs
+     * @param <T> the type of result of the function
+     */
+    private static <T> CompletableFuture<List<T>> processInParallel(List<URI> uris, Function<URI, T> function, WaitingWindow waitingWindow) {
+        ExecutorService executorService = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(uris.size(), MAX_NUMBER_OF_PARALLEL_OPERATIONS)),
+                ThreadTools.createThreadFactory("image-opener-", true)
+        );
+        AtomicInteger numberOfProcessedUris = new AtomicInteger(0);
+
+        List<CompletableFuture<T>> results = uris.stream()
+                .map(uri -> CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return function.apply(uri);
+                    } finally {
+                        double progress = (double) numberOfProcessedUris.incrementAndGet() / uris.size();
+                        Platform.runLater(() -> waitingWindow.setProgress(progress));
+                    }
+                }, executorService))
+                .toList();
+
+        return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+                .thenApply(v -> results.stream()
+                        .map(CompletableFuture::join)
+                        .toList()
+                )
+                .whenComplete((result, error) -> executorService.shutdown());
     }
 
     private static void showErrorMessage(List<URI> uris) {
@@ -273,38 +367,42 @@ public class ImageOpener {
         }
     }
 
-    private static void importKeyValuePairsAndParentContainer(ProjectImageEntry<BufferedImage> projectEntry) {
-        CompletableFuture.runAsync(() -> {
-            logger.debug("Importing KVP and parent container ID and name to {}", projectEntry);
-
-            try (ImageServer<BufferedImage> server = projectEntry.getServerBuilder().build()) {
-                if (!(server instanceof OmeroImageServer omeroImageServer)) {
-                    logger.debug("{} is not an OMERO image server. Skipping KVP and parent container info import", server);
-                    return;
-                }
-
-                importKvp(omeroImageServer, projectEntry);
-                importParentIdsAndNames(omeroImageServer, projectEntry);
-            } catch (Exception e) {
-                if (e instanceof InterruptedException) {
-                    Thread.currentThread().interrupt();
-                }
+    private static void importKeyValuePairsAndParentContainer(ProjectImageEntry<BufferedImage> projectEntry, ApisHandler apisHandler) {
+        logger.debug("Importing KVP and parent container ID and name to {}", projectEntry);
 
-                logger.debug("Cannot create image server. Skipping KVP and parent container info import for {}", projectEntry, e);
+        // The image ID is parsed from the URI of the entry instead of building a server, so that no pixel API reader is created
+        long imageId;
+        try {
+            Optional<Long> id = projectEntry.getURIs().stream()
+                    .map(ApisHandler::parseEntity)
+                    .flatMap(Optional::stream)
+                    .filter(entity -> entity.entityType().equals(EntityType.IMAGE))
+                    .map(SimpleServerEntity::id)
+                    .findAny();
+            if (id.isEmpty()) {
+                logger.debug("No OMERO image ID found in the URIs of {}. Skipping KVP and parent container info import", projectEntry);
+                return;
             }
-        });
+            imageId = id.get();
+        } catch (IOException e) {
+            logger.debug("Cannot get URIs of {}. Skipping KVP and parent container info import", projectEntry, e);
+            return;
+        }
+
+        importKvp(apisHandler, imageId, projectEntry);
+        importParentIdsAndNames(apisHandler, imageId, projectEntry);
     }
 
-    private static void importKvp(OmeroImageServer omeroImageServer, ProjectImageEntry<BufferedImage> projectEntry) {
-        logger.debug("Getting annotations of image with ID {}", omeroImageServer.getId());
+    private static void importKvp(ApisHandler apisHandler, long imageId, ProjectImageEntry<BufferedImage> projectEntry) {
+        logger.debug("Getting annotations of image with ID {}", imageId);
 
-        omeroImageServer.getClient().getApisHandler()
-                .getAnnotations(new SimpleServerEntity(EntityType.IMAGE, omeroImageServer.getId()))
+        apisHandler
+                .getAnnotations(new SimpleServerEntity(EntityType.IMAGE, imageId))
                 .whenComplete(((annotations, error) -> {
                     if (annotations == null) {
                         logger.debug(
                                 "Cannot retrieve annotations of image with ID {}. Skipping key-value pairs import",
-                                omeroImageServer.getId()
+                                imageId
                         );
                         return;
                     }
@@ -333,13 +431,13 @@ public class ImageOpener {
                 }));
     }
 
-    private static void importParentIdsAndNames(OmeroImageServer omeroImageServer, ProjectImageEntry<BufferedImage> projectEntry) {
-        logger.debug("Getting parent information of image with ID {}", omeroImageServer.getId());
-        omeroImageServer.getClient().getApisHandler().getParentsOfImage(omeroImageServer.getId()).whenComplete((parents, error) -> {
+    private static void importParentIdsAndNames(ApisHandler apisHandler, long imageId, ProjectImageEntry<BufferedImage> projectEntry) {
+        logger.debug("Getting parent information of image with ID {}", imageId);
+        apisHandler.getParentsOfImage(imageId).whenComplete((parents, error) -> {
             if (parents == null) {
                 logger.debug(
                         "Cannot retrieve parents of image with ID {}. Skipping parent container info import",
-                        omeroImageServer.getId()
+                        imageId
                 );
                 return;
             }
@@ -7,11 +7,13 @@ import javafx.scene.control.SeparatorMenuItem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import qupath.ext.omero.Utils;
+import qupath.ext.omero.core.imageserver.OmeroImageServer;
 import qupath.ext.omero.gui.browser.BrowseMenu;
 import qupath.ext.omero.gui.datatransporters.DataTransporterMenu;
 import qupath.ext.omero.gui.datatransporters.importers.AnnotationImporter;
 import qupath.ext.omero.gui.datatransporters.importers.ImageSettingsImporter;
 import qupath.ext.omero.gui.datatransporters.importers.KeyValuesImporter;
+import qupath.ext.omero.gui.datatransporters.importers.ShapesDisplayer;
 import qupath.ext.omero.gui.datatransporters.senders.AnnotationSender;
 import qupath.ext.omero.gui.datatransporters.senders.ImageSettingsSender;
 import qupath.ext.omero.gui.datatransporters.senders.KeyValuesSender;
@@ -35,6 +37,8 @@ import java.util.ResourceBundle;
  *     <li>A connection manager action, described in {@link qupath.ext.omero.gui.connectionsmanager connection manager}.</li>
  *     <li>A menu to send and a menu to import entities to OMERO, described in {@link qupath.ext.omero.gui.datatransporters data transporters}.</li>
  * </ul>
+ * It also warms the lowest resolution level of OMERO images opened in the current viewer, in case it was
+ * not already done when their server was created (see {@link OmeroImageServer#warmLowestResolutionTiles()}).
  */
 public class OmeroExtension implements QuPathExtension {
 
@@ -73,7 +77,12 @@ public class OmeroExtension implements QuPathExtension {
 							new DataTransporterMenu(
 									resources.getString("Extension.importFromOMERO"),
 									quPath,
-									List.of(new AnnotationImporter(quPath), new KeyValuesImporter(quPath), new ImageSettingsImporter(quPath))
+									List.of(
+											new AnnotationImporter(quPath),
+											new ShapesDisplayer(quPath),
+											new KeyValuesImporter(quPath),
+											new ImageSettingsImporter(quPath)
+									)
 							),
 							new SeparatorMenuItem(),
 							new SampleScriptMenu(quPath)
@@ -89,6 +98,12 @@ public class OmeroExtension implements QuPathExtension {
 							.description(resources.getString("Extension.automaticallyImportWhenAddingImage"))
 							.build()
 					);
+
+			quPath.imageDataProperty().addListener((p, o, n) -> {
+				if (n != null && n.getServer() instanceof OmeroImageServer omeroImageServer) {
+					omeroImageServer.warmLowestResolutionTiles();
+				}
+			});
 		}
 	}
 
@@ -11,7 +11,9 @@ import qupath.ext.omero.core.apis.json.permissions.Experimenter;
 import qupath.ext.omero.gui.UiUtils;
 
 import java.io.IOException;
+import java.text.MessageFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 
 /**
@@ -24,7 +26,7 @@ public class ImportAnnotationForm extends VBox {
             Experimenter.getAllExperimenters().getId(),
             Experimenter.getAllExperimenters().getFullName()
     );
-    private final List<SimpleEntity> owners;
+    private final Map<SimpleEntity, Integer> numberOfRoisByOwner;
     @FXML
     private ChoiceBox<SimpleEntity> owner;
     @FXML
@@ -35,23 +37,30 @@ public class ImportAnnotationForm extends VBox {
     /**
      * Creates the annotation form.
      *
-     * @param owners the ID and the names of the owners that own some annotations to import. Must be non-empty
+     * @param numberOfRoisByOwner the ID and the names of the owners that own some annotations to import, each associated
+     *                            with the number of ROIs they own. Must be non-empty and contain the ID and the name of
+     *                            {@link Experimenter#getAllExperimenters()}, associated with the total number of ROIs
+     *                            (see {@link qupath.ext.omero.core.apis.ApisHandler#getNumberOfRoisByOwner(long)})
      * @throws IOException if an error occurs while creating the form
-     * @throws IllegalArgumentException if the provided list of owner names is empty
+     * @throws IllegalArgumentException if the provided map of owners doesn't contain all experimenters
      */
-    public ImportAnnotationForm(List<SimpleEntity> owners) throws IOException {
-        if (owners.isEmpty()) {
-            throw new IllegalArgumentException("The provided list of owner names is empty");
+    public ImportAnnotationForm(Map<SimpleEntity, Integer> numberOfRoisByOwner) throws IOException {
+        if (!numberOfRoisByOwner.containsKey(ALL_EXPERIMENTERS)) {
+            throw new IllegalArgumentException(String.format("The provided map of owners %s doesn't contain all experimenters", numberOfRoisByOwner));
         }
 
-        this.owners = owners;
+        this.numberOfRoisByOwner = numberOfRoisByOwner;
 
         UiUtils.loadFXML(this, ImportAnnotationForm.class.getResource("import_annotation_form.fxml"));
 
         owner.setConverter(new StringConverter<>() {
             @Override
             public String toString(SimpleEntity object) {
-                return object.name();
+                return MessageFormat.format(
+                        resources.getString("DataTransporters.Forms.ImportAnnotations.ownerAndNumberOfRois"),
+                        object.name(),
+                        numberOfRoisByOwner.get(object)
+                );
             }
 
             @Override
@@ -59,10 +68,13 @@ public class ImportAnnotationForm extends VBox {
                 return null;
             }
         });
-        if (owners.size() > 1) {
-            owner.getItems().add(ALL_EXPERIMENTERS);
+        // All experimenters are not proposed if a single member of the group owns all ROIs, as it would be redundant.
+        // Otherwise, this is the only way to import ROIs owned by experimenters that are not members of the group
+        owner.getItems().add(ALL_EXPERIMENTERS);
+        owner.getItems().addAll(getOwners());
+        if (owner.getItems().size() == 2 && numberOfRoisByOwner.get(owner.getItems().getLast()).equals(numberOfRoisByOwner.get(ALL_EXPERIMENTERS))) {
+            owner.getItems().remove(ALL_EXPERIMENTERS);
         }
-        owner.getItems().addAll(owners);
         owner.getSelectionModel().selectFirst();
     }
 
@@ -70,13 +82,20 @@ public class ImportAnnotationForm extends VBox {
      * @return the owners that should own the annotations to import. This is guaranteed not to be empty
      */
     public List<SimpleEntity> getSelectedOwner() {
-        if (ALL_EXPERIMENTERS.equals(owner.getSelectionModel().getSelectedItem())) {
-            return owners;
+        if (areAllOwnersSelected()) {
+            return getOwners();
         } else {
             return List.of(owner.getValue());
         }
     }
 
+    /**
+     * @return whether the annotations of all owners should be imported
+     */
+    public boolean areAllOwnersSelected() {
+        return ALL_EXPERIMENTERS.equals(owner.getSelectionModel().getSelectedItem());
+    }
+
     /**
      * @return whether existing QuPath annotations should be deleted
      */
@@ -90,4 +109,10 @@ public class ImportAnnotationForm extends VBox {
     public boolean deleteCurrentDetections() {
         return deleteDetections.isSelected();
     }
+
+    private List<SimpleEntity> getOwners() {
+        return numberOfRoisByOwner.keySet().stream()
+                .filter(owner -> !ALL_EXPERIMENTERS.equals(owner))
+                .toList();
+    }
 }
@@ -19,8 +19,12 @@ import qupath.lib.objects.hierarchy.PathObjectHierarchy;
 import java.io.IOException;
 import java.text.MessageFormat;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Import QuPath annotations from an OMERO server to the currently opened image.
@@ -29,11 +33,18 @@ import java.util.ResourceBundle;
  * an OMERO annotation (some metadata attached to images for example).
  * <p>
  * This class uses an {@link ImportAnnotationForm} to prompt the user for parameters.
+ * <p>
+ * The number of ROIs owned by each experimenter is first retrieved to populate the form, so that only the shapes
+ * of the selected owner are then downloaded.
+ * <p>
+ * Shapes are retrieved and converted to path objects in background threads, and both operations
+ * can be cancelled by the user.
  */
 public class AnnotationImporter implements DataTransporter {
 
     private static final Logger logger = LoggerFactory.getLogger(AnnotationImporter.class);
     private static final ResourceBundle resources = Utils.getResources();
+    private static final int HIERARCHY_INSERTION_BATCH_SIZE = 1000;
     private final QuPathGUI quPath;
 
     /**
@@ -69,24 +80,32 @@ public class AnnotationImporter implements DataTransporter {
             return;
         }
 
+        AtomicReference<CompletableFuture<Map<SimpleEntity, Integer>>> ownersRequest = new AtomicReference<>();
         WaitingWindow waitingWindow;
         try {
             waitingWindow = new WaitingWindow(
                     quPath.getStage(),
-                    resources.getString("DataTransporters.AnnotationsImporter.retrievingAnnotations")
+                    resources.getString("DataTransporters.AnnotationsImporter.retrievingAnnotations"),
+                    () -> ownersRequest.get().cancel(true)
             );
         } catch (IOException e) {
             logger.error("Error while creating the waiting window", e);
             return;
         }
+
+        logger.debug("Getting owners of shapes of image with ID {}", omeroImageServer.getId());
+        ownersRequest.set(omeroImageServer.getClient().getApisHandler().getNumberOfRoisByOwner(omeroImageServer.getId()));
         waitingWindow.show();
 
-        logger.debug("Getting shapes of images with ID {}", omeroImageServer.getId());
-        omeroImageServer.getClient().getApisHandler().getShapes(omeroImageServer.getId(), -1).whenComplete((shapes, error) -> Platform.runLater(() -> {
+        ownersRequest.get().whenComplete((numberOfRoisByOwner, error) -> Platform.runLater(() -> {
             waitingWindow.close();
 
-            if (shapes == null) {
-                logger.error("Cannot retrieve shapes of image with ID {}", omeroImageServer.getId(), error);
+            if (error instanceof CancellationException) {
+                logger.debug("Retrieval of owners of shapes of image with ID {} cancelled. Not importing annotations", omeroImageServer.getId());
+                return;
+            }
+            if (numberOfRoisByOwner == null) {
+                logger.error("Cannot retrieve owners of shapes of image with ID {}", omeroImageServer.getId(), error);
 
                 Dialogs.showErrorMessage(
                         resources.getString("DataTransporters.AnnotationsImporter.annotationImportError"),
@@ -97,15 +116,10 @@ public class AnnotationImporter implements DataTransporter {
                 );
                 return;
             }
-            logger.debug("Got shapes {} from image with ID {}", shapes, omeroImageServer.getId());
-
-            List<SimpleEntity> owners = shapes.stream()
-                    .map(Shape::getOwner)
-                    .flatMap(Optional::stream)
-                    .distinct()
-                    .toList();
-            if (owners.isEmpty()) {
-                logger.debug("No single owner full name was found in {}. Not importing annotations", shapes);
+            logger.debug("Got number of ROIs by owner {} from image with ID {}", numberOfRoisByOwner, omeroImageServer.getId());
+
+            if (numberOfRoisByOwner.isEmpty()) {
+                logger.debug("No owner of ROIs was found in image with ID {}. Not importing annotations", omeroImageServer.getId());
                 Dialogs.showErrorMessage(
                         resources.getString("DataTransporters.AnnotationsImporter.noAnnotations"),
                         resources.getString("DataTransporters.AnnotationsImporter.noAnnotationsFound")
@@ -115,7 +129,7 @@ public class AnnotationImporter implements DataTransporter {
 
             ImportAnnotationForm annotationForm;
             try {
-                annotationForm = new ImportAnnotationForm(owners);
+                annotationForm = new ImportAnnotationForm(numberOfRoisByOwner);
             } catch (IOException e) {
                 logger.error("Error when creating the annotation form", e);
                 return;
@@ -130,7 +144,62 @@ public class AnnotationImporter implements DataTransporter {
                 return;
             }
 
-            PathObjectHierarchy hierarchy = viewer.getImageData().getHierarchy();
+            retrieveShapes(annotationForm, viewer.getImageData().getHierarchy(), omeroImageServer);
+        }));
+    }
+
+    /**
+     * Retrieve the shapes of the owner selected in the provided form, and import them once they are retrieved (see
+     * {@link #importShapes(List, PathObjectHierarchy, StringBuilder, OmeroImageServer)}). Only the shapes of the
+     * selected owner are downloaded, unless all owners are selected. A waiting window shows the progress of the
+     * operation and allows the user to cancel it. Existing path objects are only deleted once shapes have been retrieved.
+     */
+    private void retrieveShapes(ImportAnnotationForm annotationForm, PathObjectHierarchy hierarchy, OmeroImageServer omeroImageServer) {
+        AtomicReference<CompletableFuture<List<Shape>>> shapesRequest = new AtomicReference<>();
+        WaitingWindow waitingWindow;
+        try {
+            waitingWindow = new WaitingWindow(
+                    quPath.getStage(),
+                    resources.getString("DataTransporters.AnnotationsImporter.retrievingAnnotations"),
+                    () -> shapesRequest.get().cancel(true)
+            );
+        } catch (IOException e) {
+            logger.error("Error while creating the waiting window", e);
+            return;
+        }
+
+        // The owner filter of the server is used. When all owners are selected, shapes are not filtered at all
+        // so that shapes of experimenters who have left the group of the image are imported too
+        long ownerId = annotationForm.areAllOwnersSelected() ? -1 : annotationForm.getSelectedOwner().getFirst().id();
+        logger.debug("Getting shapes of image with ID {} belonging to user with ID {}", omeroImageServer.getId(), ownerId);
+        shapesRequest.set(omeroImageServer.getClient().getApisHandler().getShapes(
+                omeroImageServer.getId(),
+                ownerId,
+                progress -> Platform.runLater(() -> waitingWindow.setProgress(progress))
+        ));
+        waitingWindow.show();
+
+        shapesRequest.get().whenComplete((shapes, error) -> Platform.runLater(() -> {
+            waitingWindow.close();
+
+            if (error instanceof CancellationException) {
+                logger.debug("Retrieval of shapes of image with ID {} cancelled. Not importing annotations", omeroImageServer.getId());
+                return;
+            }
+            if (shapes == null) {
+                logger.error("Cannot retrieve shapes of image with ID {}", omeroImageServer.getId(), error);
+
+                Dialogs.showErrorMessage(
+                        resources.getString("DataTransporters.AnnotationsImporter.annotationImportError"),
+                        MessageFormat.format(
+                                resources.getString("DataTransporters.AnnotationsImporter.cannotRetrieveAnnotations"),
+                                omeroImageServer.getURIs()
+                        )
+                );
+                return;
+            }
+            logger.debug("Got {} shapes from image with ID {}", shapes.size(), omeroImageServer.getId());
+
             StringBuilder message = new StringBuilder();
 
             if (annotationForm.deleteCurrentAnnotations()) {
@@ -151,21 +220,74 @@ public class AnnotationImporter implements DataTransporter {
                         .append("\n");
             }
 
-            List<PathObject> pathObjects = Shape.createPathObjects(shapes.stream()
-                    .filter(shape -> shape.getOwner().isPresent() && annotationForm.getSelectedOwner().contains(shape.getOwner().get()))
-                    .toList()
+            importShapes(shapes, hierarchy, message, omeroImageServer);
+        }));
+    }
+
+    /**
+     * Convert the provided shapes to path objects and add them to the provided hierarchy. This is done in a background
+     * thread, and path objects are added in batches so that one hierarchy event is fired per batch. A waiting window
+     * shows the progress of the operation and allows the user to cancel it (in which case path objects already added
+     * are kept).
+     */
+    private void importShapes(List<Shape> shapes, PathObjectHierarchy hierarchy, StringBuilder message, OmeroImageServer omeroImageServer) {
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        WaitingWindow waitingWindow;
+        try {
+            waitingWindow = new WaitingWindow(
+                    quPath.getStage(),
+                    resources.getString("DataTransporters.AnnotationsImporter.importingAnnotations"),
+                    () -> cancelled.set(true)
             );
-            logger.debug("Adding {} created from {} to {}", pathObjects, shapes, hierarchy);
-            hierarchy.addObjects(pathObjects);
+        } catch (IOException e) {
+            logger.error("Error while creating the waiting window", e);
+            return;
+        }
+        waitingWindow.show();
+
+        CompletableFuture.supplyAsync(() -> {
+            List<PathObject> pathObjects = Shape.createPathObjects(shapes);
+            logger.debug("Adding {} path objects created from {} shapes to {}", pathObjects.size(), shapes.size(), hierarchy);
+
+            int numberOfAddedPathObjects = 0;
+            for (int i=0; i<pathObjects.size() && !cancelled.get(); i+=HIERARCHY_INSERTION_BATCH_SIZE) {
+                List<PathObject> batch = pathObjects.subList(i, Math.min(i + HIERARCHY_INSERTION_BATCH_SIZE, pathObjects.size()));
+
+                hierarchy.addObjects(batch);
+                numberOfAddedPathObjects += batch.size();
+
+                double progress = (double) numberOfAddedPathObjects / pathObjects.size();
+                Platform.runLater(() -> waitingWindow.setProgress(progress));
+            }
+            if (cancelled.get()) {
+                logger.debug("Import of annotations cancelled. {} of {} path objects were added to {}", numberOfAddedPathObjects, pathObjects.size(), hierarchy);
+            }
+
             hierarchy.resolveHierarchy();
+            return numberOfAddedPathObjects;
+        }).whenComplete((numberOfAddedPathObjects, error) -> Platform.runLater(() -> {
+            waitingWindow.close();
+
+            if (numberOfAddedPathObjects == null) {
+                logger.error("Cannot import shapes to {}", hierarchy, error);
+
+                Dialogs.showErrorMessage(
+                        resources.getString("DataTransporters.AnnotationsImporter.annotationImportError"),
+                        MessageFormat.format(
+                                resources.getString("DataTransporters.AnnotationsImporter.cannotImportAnnotations"),
+                                omeroImageServer.getURIs()
+                        )
+                );
+                return;
+            }
 
             String title;
-            if (pathObjects.size() == 1) {
+            if (numberOfAddedPathObjects == 1) {
                 title = resources.getString("DataTransporters.AnnotationsImporter.1WrittenSuccessfully");
                 message.append(resources.getString("DataTransporters.AnnotationsImporter.1AnnotationImported"));
             } else {
                 title = resources.getString("DataTransporters.AnnotationsImporter.1WrittenSuccessfully");
-                message.append(MessageFormat.format(resources.getString("DataTransporters.AnnotationsImporter.XAnnotationImported"), pathObjects.size()));
+                message.append(MessageFormat.format(resources.getString("DataTransporters.AnnotationsImporter.XAnnotationImported"), numberOfAddedPathObjects));
             }
 
             Dialogs.showInfoNotification(
@@ -0,0 +1,221 @@
+package qupath.ext.omero.gui.datatransporters.importers;
+
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import qupath.ext.omero.Utils;
+import qupath.ext.omero.core.imageserver.LazyPathObjects;
+import qupath.ext.omero.core.imageserver.OmeroImageServer;
+import qupath.ext.omero.gui.datatransporters.DataTransporter;
+import qupath.fx.dialogs.Dialogs;
+import qupath.lib.gui.QuPathGUI;
+import qupath.lib.gui.viewer.PathObjectPainter;
+import qupath.lib.gui.viewer.QuPathViewer;
+import qupath.lib.gui.viewer.overlays.AbstractOverlay;
+import qupath.lib.images.ImageData;
+import qupath.lib.objects.PathObject;
+import qupath.lib.regions.ImagePlane;
+import qupath.lib.regions.ImageRegion;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Optional;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Show or hide the shapes of the OMERO image opened in the current viewer, without importing them.
+ * <p>
+ * Unlike the {@link AnnotationImporter}, shapes are not added to the hierarchy of the image. Instead, an overlay
+ * is added to the viewer, and this overlay only retrieves the shapes of the plane being displayed and only paints
+ * the ones located in the visible region (see {@link LazyPathObjects}). Detections are not painted when the viewer is
+ * zoomed out or when too many of them are visible. This allows browsing images with a very large number of shapes.
+ * Calling {@link #transportData()} again or opening another image in the viewer removes the overlay.
+ */
+public class ShapesDisplayer implements DataTransporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShapesDisplayer.class);
+    private static final ResourceBundle resources = Utils.getResources();
+    private static final int MAX_NUMBER_OF_PLANES_IN_MEMORY = 4;
+    private static final double MAX_DOWNSAMPLE_TO_PAINT_DETECTIONS = 8;
+    private static final int MAX_NUMBER_OF_PAINTED_DETECTIONS = 20000;
+    private final QuPathGUI quPath;
+
+    /**
+     * Create the shapes displayer.
+     *
+     * @param quPath the quPath window
+     */
+    public ShapesDisplayer(QuPathGUI quPath) {
+        logger.debug("Creating shapes displayer for {}", quPath);
+        this.quPath = quPath;
+    }
+
+    @Override
+    public String getMenuTitle() {
+        return resources.getString("DataTransporters.ShapesDisplayer.displayAnnotations");
+    }
+
+    @Override
+    public boolean canTransportData(boolean projectOpened, boolean isRGB) {
+        return true;
+    }
+
+    @Override
+    public void transportData() {
+        QuPathViewer viewer = quPath.getViewer();
+
+        Optional<ShapesOverlay> existingOverlay = viewer.getCustomOverlayLayers().stream()
+                .filter(ShapesOverlay.class::isInstance)
+                .map(ShapesOverlay.class::cast)
+                .findAny();
+        if (existingOverlay.isPresent()) {
+            existingOverlay.get().remove();
+            Dialogs.showInfoNotification(
+                    resources.getString("DataTransporters.ShapesDisplayer.displayAnnotations"),
+                    resources.getString("DataTransporters.ShapesDisplayer.annotationsHidden")
+            );
+            return;
+        }
+
+        if (!(viewer.getServer() instanceof OmeroImageServer omeroImageServer)) {
+            Dialogs.showErrorMessage(
+                    resources.getString("DataTransporters.ShapesDisplayer.displayAnnotations"),
+                    resources.getString("DataTransporters.ShapesDisplayer.notFromOMERO")
+            );
+            return;
+        }
+
+        new ShapesOverlay(viewer, omeroImageServer).add();
+        Dialogs.showInfoNotification(
+                resources.getString("DataTransporters.ShapesDisplayer.displayAnnotations"),
+                resources.getString("DataTransporters.ShapesDisplayer.annotationsDisplayed")
+        );
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Shapes displayer for %s", quPath);
+    }
+
+    /**
+     * An overlay painting the shapes of an OMERO image located in the visible region. The overlay removes itself
+     * from the viewer when the viewer displays another image.
+     * <p>
+     * Detections are not painted if the downsample of the viewer is greater than {@link #MAX_DOWNSAMPLE_TO_PAINT_DETECTIONS}
+     * or if more than {@link #MAX_NUMBER_OF_PAINTED_DETECTIONS} detections are located in the visible region, so that
+     * painting doesn't take too long.
+     */
+    private static class ShapesOverlay extends AbstractOverlay {
+
+        private final QuPathViewer viewer;
+        private final OmeroImageServer omeroImageServer;
+        private final LazyPathObjects lazyPathObjects;
+        private final Set<ImagePlane> planesBeingRetrieved = ConcurrentHashMap.newKeySet();
+        private final ChangeListener<ImageData<BufferedImage>> imageDataListener;
+
+        public ShapesOverlay(QuPathViewer viewer, OmeroImageServer omeroImageServer) {
+            super(viewer.getOverlayOptions());
+
+            this.viewer = viewer;
+            this.omeroImageServer = omeroImageServer;
+            this.lazyPathObjects = new LazyPathObjects(
+                    omeroImageServer.getClient(),
+                    omeroImageServer.getId(),
+                    -1,
+                    MAX_NUMBER_OF_PLANES_IN_MEMORY
+            );
+            this.imageDataListener = (p, o, n) -> {
+                if (n == null || n.getServer() != omeroImageServer) {
+                    remove();
+                }
+            };
+        }
+
+        @Override
+        public void paintOverlay(
+                Graphics2D g2d,
+                ImageRegion imageRegion,
+                double downsampleFactor,
+                ImageData<BufferedImage> imageData,
+                boolean paintCompletely
+        ) {
+            if (imageData == null || imageData.getServer() != omeroImageServer) {
+                return;
+            }
+
+            CompletableFuture<List<PathObject>> pathObjectsRequest = lazyPathObjects.getPathObjects(imageRegion);
+            if (!pathObjectsRequest.isDone()) {
+                ImagePlane plane = ImagePlane.getPlane(imageRegion.getZ(), imageRegion.getT());
+
+                // Only one callback is registered per retrieval, even if the viewer is painted several times meanwhile
+                if (planesBeingRetrieved.add(plane)) {
+                    pathObjectsRequest.whenComplete((pathObjects, error) -> {
+                        planesBeingRetrieved.remove(plane);
+
+                        if (pathObjects == null) {
+                            // The viewer is not repainted, so that the retrieval is only attempted again when the user moves the viewer
+                            logger.error("Cannot retrieve shapes of {} of {}", plane, omeroImageServer, error);
+                            Platform.runLater(() -> Dialogs.showErrorNotification(
+                                    resources.getString("DataTransporters.ShapesDisplayer.displayAnnotations"),
+                                    resources.getString("DataTransporters.ShapesDisplayer.cannotRetrieveAnnotations")
+                            ));
+                        } else {
+                            // The viewer is repainted once the shapes are retrieved, which will call this function again
+                            Platform.runLater(viewer::repaint);
+                        }
+                    });
+                }
+                return;
+            }
+            if (pathObjectsRequest.isCompletedExceptionally()) {
+                return;
+            }
+
+            List<PathObject> pathObjects = pathObjectsRequest.join();
+            if (downsampleFactor > MAX_DOWNSAMPLE_TO_PAINT_DETECTIONS ||
+                    pathObjects.stream().filter(PathObject::isDetection).count() > MAX_NUMBER_OF_PAINTED_DETECTIONS) {
+                pathObjects = pathObjects.stream()
+                        .filter(pathObject -> !pathObject.isDetection())
+                        .toList();
+            }
+
+            PathObjectPainter.paintSpecifiedObjects(
+                    g2d,
+                    pathObjects,
+                    getOverlayOptions(),
+                    null,
+                    downsampleFactor
+            );
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Shapes overlay of %s", omeroImageServer);
+        }
+
+        /**
+         * Add this overlay to the viewer. It will be removed when the viewer displays another image.
+         */
+        public void add() {
+            logger.debug("Adding overlay {} to {}", this, viewer);
+
+            viewer.imageDataProperty().addListener(imageDataListener);
+            viewer.getCustomOverlayLayers().add(this);
+        }
+
+        /**
+         * Remove this overlay from the viewer. The shapes retrieved by this overlay are then released.
+         */
+        public void remove() {
+            logger.debug("Removing overlay {} from {}", this, viewer);
+
+            viewer.imageDataProperty().removeListener(imageDataListener);
+            viewer.getCustomOverlayLayers().remove(this);
+        }
+    }
+}
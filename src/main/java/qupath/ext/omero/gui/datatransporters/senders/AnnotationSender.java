@@ -6,6 +6,7 @@ import org.slf4j.LoggerFactory;
 import qupath.ext.omero.Utils;
 import qupath.ext.omero.core.apis.webclient.EntityType;
 import qupath.ext.omero.core.apis.webclient.SimpleServerEntity;
+import qupath.ext.omero.core.apis.commonentities.shapes.Shape;
 import qupath.ext.omero.core.apis.commonentities.shapes.ShapeCreator;
 import qupath.ext.omero.core.apis.json.permissions.Experimenter;
 import qupath.ext.omero.core.apis.json.permissions.ExperimenterGroup;
@@ -49,7 +50,6 @@ public class AnnotationSender implements DataTransporter {
     private final QuPathGUI quPath;
     private enum Request {
         SEND_ANNOTATIONS,
-        DELETE_EXISTING_ANNOTATIONS,
         DELETE_EXISTING_MEASUREMENTS,
         SEND_ANNOTATION_MEASUREMENTS,
         SEND_DETECTION_MEASUREMENTS
@@ -206,18 +206,10 @@ public class AnnotationSender implements DataTransporter {
             return;
         }
 
-        // The potential deletion of existing measurements and annotations must happen before other requests
+        // The potential deletion of existing measurements must happen before other requests. Existing annotations
+        // are not deleted here: instead of deleting all existing shapes and sending all annotations again, only the
+        // differences between existing shapes and annotations are sent (see createRequests())
         Map<Request, CompletableFuture<Void>> deletionRequests = new HashMap<>();
-        if (annotationForm.deleteExistingAnnotations()) {
-            logger.debug("Deleting shapes of image with ID {} belonging to users {}", omeroImageServer.getId(), annotationForm.getSelectedOwnersOfDeletedAnnotations());
-            deletionRequests.put(
-                    Request.DELETE_EXISTING_ANNOTATIONS,
-                    omeroImageServer.getClient().getApisHandler().deleteShapes(
-                            omeroImageServer.getId(),
-                            annotationForm.getSelectedOwnersOfDeletedAnnotations().stream().map(Experimenter::getId).toList()
-                    )
-            );
-        }
         if (annotationForm.deleteExistingMeasurements()) {
             logger.debug("Deleting measurements of image with ID {} belonging to users {}", omeroImageServer.getId(), annotationForm.getSelectedOwnersOfDeletedMeasurements());
             deletionRequests.put(
@@ -242,6 +234,10 @@ public class AnnotationSender implements DataTransporter {
         waitingWindow.show();
 
         // Get form info in JavaFX Application Thread
+        boolean synchronizeShapes = annotationForm.deleteExistingAnnotations();
+        List<Long> ownersOfSynchronizedShapes = annotationForm.getSelectedOwnersOfDeletedAnnotations().stream()
+                .map(Experimenter::getId)
+                .toList();
         boolean sendAnnotationMeasurements = annotationForm.sendAnnotationMeasurements();
         boolean sendDetectionMeasurements = annotationForm.sendDetectionMeasurements();
 
@@ -273,6 +269,8 @@ public class AnnotationSender implements DataTransporter {
                     quPath,
                     omeroImageServer,
                     annotations,
+                    synchronizeShapes,
+                    ownersOfSynchronizedShapes,
                     sendAnnotationMeasurements,
                     sendDetectionMeasurements
             ));
@@ -329,23 +327,39 @@ public class AnnotationSender implements DataTransporter {
             QuPathGUI quPath,
             OmeroImageServer omeroImageServer,
             Collection<PathObject> annotations,
+            boolean synchronizeShapes,
+            List<Long> ownersOfSynchronizedShapes,
             boolean sendAnnotationMeasurements,
             boolean sendDetectionMeasurements
     ) {
         Map<Request, CompletableFuture<Void>> requests = new HashMap<>();
 
-        logger.debug("Adding {} to image with ID {}", annotations, omeroImageServer.getId());
         try {
-            requests.put(
-                    Request.SEND_ANNOTATIONS,
-                    omeroImageServer.getClient().getApisHandler().addShapes(
-                            omeroImageServer.getId(),
-                            annotations.stream()
-                                    .map(pathObject -> ShapeCreator.createShapes(pathObject, quPath.getOverlayOptions().getFillAnnotations()))
-                                    .flatMap(List::stream)
-                                    .toList()
-                    )
-            );
+            if (synchronizeShapes) {
+                logger.debug(
+                        "Synchronizing shapes of image with ID {} belonging to users {} with {}",
+                        omeroImageServer.getId(),
+                        ownersOfSynchronizedShapes,
+                        annotations
+                );
+                requests.put(
+                        Request.SEND_ANNOTATIONS,
+                        omeroImageServer.getClient().getApisHandler().synchronizeShapes(
+                                omeroImageServer.getId(),
+                                createShapes(quPath, annotations),
+                                ownersOfSynchronizedShapes
+                        )
+                );
+            } else {
+                logger.debug("Adding {} to image with ID {}", annotations, omeroImageServer.getId());
+                requests.put(
+                        Request.SEND_ANNOTATIONS,
+                        omeroImageServer.getClient().addShapes(
+                                omeroImageServer.getId(),
+                                createShapes(quPath, annotations)
+                        )
+                );
+            }
         } catch (IllegalArgumentException e) {
             requests.put(
                     Request.SEND_ANNOTATIONS,
@@ -370,6 +384,13 @@ public class AnnotationSender implements DataTransporter {
         return requests;
     }
 
+    private static List<? extends Shape> createShapes(QuPathGUI quPath, Collection<PathObject> annotations) {
+        return annotations.stream()
+                .map(pathObject -> ShapeCreator.createShapes(pathObject, quPath.getOverlayOptions().getFillAnnotations()))
+                .flatMap(List::stream)
+                .toList();
+    }
+
     private static CompletableFuture<Void> getSendMeasurementsRequest(
             QuPathGUI quPath,
             Class<? extends PathObject> exportType,
@@ -427,7 +448,6 @@ public class AnnotationSender implements DataTransporter {
                         "The operation {} succeeded",
                         switch (error.getKey()) {
                             case SEND_ANNOTATIONS -> "sending annotations";
-                            case DELETE_EXISTING_ANNOTATIONS -> "deleting existing annotations";
                             case DELETE_EXISTING_MEASUREMENTS -> "deleting existing measurements";
                             case SEND_ANNOTATION_MEASUREMENTS -> "sending annotations measurements";
                             case SEND_DETECTION_MEASUREMENTS -> "sending detection measurements";
@@ -438,7 +458,6 @@ public class AnnotationSender implements DataTransporter {
                         "Error while {}",
                         switch (error.getKey()) {
                             case SEND_ANNOTATIONS -> "sending annotations";
-                            case DELETE_EXISTING_ANNOTATIONS -> "deleting existing annotations";
                             case DELETE_EXISTING_MEASUREMENTS -> "deleting existing measurements";
                             case SEND_ANNOTATION_MEASUREMENTS -> "sending annotations measurements";
                             case SEND_DETECTION_MEASUREMENTS -> "sending detection measurements";
@@ -465,7 +484,6 @@ public class AnnotationSender implements DataTransporter {
                         ),
                         resources.getString(switch (entry.getKey()) {
                             case SEND_ANNOTATIONS -> "DataTransporters.AnnotationsSender.sendAnnotations";
-                            case DELETE_EXISTING_ANNOTATIONS -> "DataTransporters.AnnotationsSender.deleteExistingAnnotations";
                             case DELETE_EXISTING_MEASUREMENTS -> "DataTransporters.AnnotationsSender.deleteExistingMeasurements";
                             case SEND_ANNOTATION_MEASUREMENTS -> "DataTransporters.AnnotationsSender.sendAnnotationMeasurements";
                             case SEND_DETECTION_MEASUREMENTS -> "DataTransporters.AnnotationsSender.sendDetectionMeasurements";
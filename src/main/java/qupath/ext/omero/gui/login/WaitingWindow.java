@@ -4,6 +4,7 @@ import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import org.slf4j.Logger;
@@ -23,6 +24,8 @@ public class WaitingWindow extends Stage {
     @FXML
     private Label label;
     @FXML
+    private ProgressIndicator progressIndicator;
+    @FXML
     private Button cancel;
 
     /**
@@ -64,6 +67,16 @@ public class WaitingWindow extends Stage {
         this(owner, label, null);
     }
 
+    /**
+     * Set the progress of the operation. Until this function is called, the progress is indeterminate.
+     * This function must be called from the JavaFX Application Thread.
+     *
+     * @param progress the progress of the operation, between 0 (operation not started) and 1 (operation completed)
+     */
+    public void setProgress(double progress) {
+        progressIndicator.setProgress(progress);
+    }
+
     @FXML
     private void onCancelClicked(ActionEvent ignored) {
         logger.debug("Cancel button clicked. Closing waiting window");
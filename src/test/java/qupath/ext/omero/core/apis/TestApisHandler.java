@@ -11,6 +11,8 @@ import qupath.ext.omero.core.Client;
 import qupath.ext.omero.core.Credentials;
 import qupath.ext.omero.core.RequestSender;
 import qupath.ext.omero.core.apis.commonentities.ChannelSettings;
+import qupath.ext.omero.core.apis.commonentities.SimpleEntity;
+import qupath.ext.omero.core.apis.json.permissions.Experimenter;
 import qupath.ext.omero.core.apis.json.repositoryentities.serverentities.ServerEntity;
 import qupath.ext.omero.core.apis.webclient.SimpleServerEntity;
 import qupath.ext.omero.core.apis.commonentities.shapes.Line;
@@ -23,6 +25,7 @@ import qupath.lib.roi.ROIs;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 
@@ -293,7 +296,8 @@ public class TestApisHandler extends OmeroServer {
             long userId = OmeroServer.getConnectedExperimenter(userType).getId();
             long imageId = OmeroServer.getAnnotableImage(userType).id();
 
-            Assertions.assertThrows(ExecutionException.class, () -> apisHandler.deleteShapes(imageId, List.of(userId)).get());
+            // The image has no shapes this user can delete, so no deletion request is sent
+            Assertions.assertDoesNotThrow(() -> apisHandler.deleteShapes(imageId, List.of(userId)).get());
         }
 
         @Test
@@ -302,7 +306,8 @@ public class TestApisHandler extends OmeroServer {
             long userId = -1;
             long imageId = OmeroServer.getAnnotableImage(userType).id();
 
-            Assertions.assertThrows(ExecutionException.class, () -> apisHandler.deleteShapes(imageId, List.of(userId)).get());
+            // The image has no shapes this user can delete, so no deletion request is sent
+            Assertions.assertDoesNotThrow(() -> apisHandler.deleteShapes(imageId, List.of(userId)).get());
         }
 
         @Test
@@ -498,6 +503,36 @@ public class TestApisHandler extends OmeroServer {
             Assertions.assertTrue(apisHandler.getShapes(imageId, userId).get().isEmpty());
         }
 
+        @Test
+        void Check_Number_Of_Rois_By_Owner() throws ExecutionException, InterruptedException {
+            Experimenter experimenter = OmeroServer.getConnectedExperimenter(userType);
+            long imageId = OmeroServer.getAnnotableImage(userType).id();
+            List<Shape> shapes = List.of(
+                    new Rectangle(
+                            PathObjects.createAnnotationObject(ROIs.createRectangleROI(10, 10, 100, 100, ImagePlane.getDefaultPlane())),
+                            false
+                    ),
+                    new Line(
+                            PathObjects.createAnnotationObject(ROIs.createLineROI(20, 20, 50, 50, ImagePlane.getDefaultPlane())),
+                            false
+                    )
+            );
+            int expectedNumberOfRois = shapes.size();
+            apisHandler.addShapes(imageId, shapes).get();
+
+            Map<SimpleEntity, Integer> numberOfRoisByOwner = apisHandler.getNumberOfRoisByOwner(imageId).get();
+
+            Assertions.assertEquals(
+                    expectedNumberOfRois,
+                    numberOfRoisByOwner.get(new SimpleEntity(experimenter.getId(), experimenter.getFullName()))
+            );
+            Assertions.assertTrue(
+                    numberOfRoisByOwner.get(new SimpleEntity(Experimenter.getAllExperimenters().getId(), Experimenter.getAllExperimenters().getFullName())) >= expectedNumberOfRois
+            );
+
+            apisHandler.deleteShapes(imageId, List.of(experimenter.getId())).get();
+        }
+
         @Test
         @Override
         void Check_Attachments_Sent() {
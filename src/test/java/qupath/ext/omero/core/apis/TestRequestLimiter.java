@@ -0,0 +1,97 @@
+package qupath.ext.omero.core.apis;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestRequestLimiter {
+
+    @Test
+    void Check_Invalid_Limit() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RequestLimiter(0, Runnable::run));
+    }
+
+    @Test
+    void Check_Result_Of_Request() throws ExecutionException, InterruptedException {
+        int expectedResult = 5;
+        RequestLimiter requestLimiter = new RequestLimiter(1, Runnable::run);
+
+        int result = requestLimiter.submit(() -> CompletableFuture.completedFuture(expectedResult)).get();
+
+        Assertions.assertEquals(expectedResult, result);
+    }
+
+    @Test
+    void Check_Failed_Request() {
+        RequestLimiter requestLimiter = new RequestLimiter(1, Runnable::run);
+
+        CompletableFuture<Integer> request = requestLimiter.submit(() -> CompletableFuture.failedFuture(new Exception()));
+
+        Assertions.assertThrows(ExecutionException.class, request::get);
+    }
+
+    @Test
+    void Check_Number_Of_Running_Requests_Limited() {
+        int limit = 3;
+        RequestLimiter requestLimiter = new RequestLimiter(limit, Runnable::run);
+        AtomicInteger numberOfStartedRequests = new AtomicInteger(0);
+
+        for (int i=0; i<2*limit; i++) {
+            requestLimiter.submit(() -> {
+                numberOfStartedRequests.incrementAndGet();
+                return new CompletableFuture<>();
+            });
+        }
+
+        Assertions.assertEquals(limit, numberOfStartedRequests.get());
+    }
+
+    @Test
+    void Check_Pending_Request_Started_When_Running_Request_Completes() throws ExecutionException, InterruptedException {
+        int expectedResult = 5;
+        RequestLimiter requestLimiter = new RequestLimiter(1, Runnable::run);
+        CompletableFuture<Integer> runningRequest = new CompletableFuture<>();
+        requestLimiter.submit(() -> runningRequest);
+        CompletableFuture<Integer> pendingRequest = requestLimiter.submit(() -> CompletableFuture.completedFuture(expectedResult));
+
+        runningRequest.complete(0);
+
+        Assertions.assertEquals(expectedResult, pendingRequest.get());
+    }
+
+    @Test
+    void Check_Child_Requests_Share_Limit() {
+        int limit = 2;
+        RequestLimiter requestLimiter = new RequestLimiter(limit, Runnable::run);
+        List<CompletableFuture<Integer>> runningRequests = new ArrayList<>();
+        for (int i=0; i<limit; i++) {
+            requestLimiter.submit(() -> CompletableFuture.completedFuture(0)).thenAccept(parentResult -> {
+                for (int j=0; j<limit; j++) {
+                    requestLimiter.submit(() -> {
+                        CompletableFuture<Integer> childRequest = new CompletableFuture<>();
+                        runningRequests.add(childRequest);
+                        return childRequest;
+                    });
+                }
+            });
+        }
+
+        Assertions.assertEquals(limit, runningRequests.size());
+    }
+
+    @Test
+    void Check_Pending_Requests_Cancelled() {
+        RequestLimiter requestLimiter = new RequestLimiter(1, Runnable::run);
+        requestLimiter.submit(CompletableFuture::new);
+        CompletableFuture<Integer> pendingRequest = requestLimiter.submit(() -> CompletableFuture.completedFuture(0));
+
+        requestLimiter.cancelPendingRequests();
+
+        Assertions.assertTrue(pendingRequest.isCancelled() || pendingRequest.isCompletedExceptionally());
+    }
+}
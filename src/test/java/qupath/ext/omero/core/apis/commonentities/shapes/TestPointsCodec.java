@@ -0,0 +1,76 @@
+package qupath.ext.omero.core.apis.commonentities.shapes;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TestPointsCodec {
+
+    @Test
+    void Check_Points_Parsed() {
+        PointsCodec.Points expectedPoints = new PointsCodec.Points(
+                new double[] {4.5, 12, 0},
+                new double[] {-7.5, 65.5, 50}
+        );
+
+        PointsCodec.Points points = PointsCodec.parse("4.5,-7.5 12,65.5 0,50");
+
+        Assertions.assertEquals(expectedPoints, points);
+    }
+
+    @Test
+    void Check_Points_With_Less_Than_Two_Coordinates_Skipped() {
+        PointsCodec.Points expectedPoints = new PointsCodec.Points(
+                new double[] {4.5, 0},
+                new double[] {-7.5, 50}
+        );
+
+        PointsCodec.Points points = PointsCodec.parse("4.5,-7.5  12 3, 0,50");
+
+        Assertions.assertEquals(expectedPoints, points);
+    }
+
+    @Test
+    void Check_Parsed_Coordinates_Identical_To_Java_Parsing() {
+        String[] coordinates = {"0.1", "-0.0", "123456.789", "1e-7", "2.5E+3", "0.30000000000000004", "12345678901234567890.5", "1e300"};
+        double[] expectedCoordinates = new double[coordinates.length];
+        StringBuilder text = new StringBuilder();
+        for (int i=0; i<coordinates.length; i++) {
+            expectedCoordinates[i] = Double.parseDouble(coordinates[i]);
+            text.append(coordinates[i]).append(',').append(coordinates[i]).append(' ');
+        }
+        PointsCodec.Points expectedPoints = new PointsCodec.Points(expectedCoordinates, expectedCoordinates);
+
+        PointsCodec.Points points = PointsCodec.parse(text);
+
+        Assertions.assertEquals(expectedPoints, points);
+    }
+
+    @Test
+    void Check_Invalid_Coordinate_Rejected() {
+        Assertions.assertThrows(NumberFormatException.class, () -> PointsCodec.parse("4.5,-7.5 abc,3"));
+    }
+
+    @Test
+    void Check_Points_Formatted() {
+        String expectedText = "4.5,-7.5 12.0,65.5 0.0,50.0";
+
+        String text = PointsCodec.format(new PointsCodec.Points(
+                new double[] {4.5, 12, 0},
+                new double[] {-7.5, 65.5, 50}
+        ));
+
+        Assertions.assertEquals(expectedText, text);
+    }
+
+    @Test
+    void Check_Formatted_Points_Parsed_Back() {
+        PointsCodec.Points expectedPoints = new PointsCodec.Points(
+                new double[] {0.1, 1e-7, 123456.789},
+                new double[] {-3, 1e300, 0.30000000000000004}
+        );
+
+        PointsCodec.Points points = PointsCodec.parse(PointsCodec.format(expectedPoints));
+
+        Assertions.assertEquals(expectedPoints, points);
+    }
+}
@@ -1,5 +1,6 @@
 package qupath.ext.omero.core.apis.commonentities.shapes;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import qupath.ext.omero.TestUtils;
 import qupath.lib.geom.Point2;
@@ -8,6 +9,7 @@ import qupath.lib.objects.PathObjects;
 import qupath.lib.objects.classes.PathClass;
 import qupath.lib.regions.ImagePlane;
 import qupath.lib.roi.ROIs;
+import qupath.lib.roi.RoiTools;
 import qupath.lib.roi.interfaces.ROI;
 
 import java.util.List;
@@ -250,4 +252,91 @@ public class TestShape {
                 pathObjects.stream().map(PathObject::getROI).map(ROI::getAllPoints).toList()
         );
     }
+
+    @Test
+    void Check_Path_Objects_With_Non_Adjacent_Shapes_Of_Same_Id() {
+        PathObject rectangle = PathObjects.createAnnotationObject(ROIs.createRectangleROI(2, 3, 56, 76));
+        PathObject ellipse = PathObjects.createAnnotationObject(ROIs.createEllipseROI(100, 6, 89, 6));
+        PathObject otherRectangle = PathObjects.createAnnotationObject(ROIs.createRectangleROI(300, 300, 10, 10));
+        otherRectangle.setID(rectangle.getID());
+        List<Shape> shapes = List.of(
+                new Rectangle(rectangle, false),
+                new Ellipse(ellipse, false),
+                new Rectangle(otherRectangle, false)
+        );
+        List<PathObject> expectedPathObjects = List.of(rectangle, ellipse);
+
+        List<PathObject> pathObjects = Shape.createPathObjects(shapes);
+
+        // PathObject does not override equals, so only the IDs are checked
+        TestUtils.assertCollectionsEqualsWithoutOrder(
+                expectedPathObjects.stream().map(PathObject::getID).toList(),
+                pathObjects.stream().map(PathObject::getID).toList()
+        );
+    }
+
+    @Test
+    void Check_Path_Object_From_Polygon_With_Hole() {
+        PathObject expectedPathObject = PathObjects.createAnnotationObject(RoiTools.combineROIs(
+                ROIs.createRectangleROI(0, 0, 100, 100, ImagePlane.getDefaultPlane()),
+                ROIs.createRectangleROI(25, 25, 50, 50, ImagePlane.getDefaultPlane()),
+                RoiTools.CombineOp.SUBTRACT
+        ));
+        List<? extends Shape> shapes = ShapeCreator.createShapes(expectedPathObject, false);
+
+        List<PathObject> pathObjects = Shape.createPathObjects(List.copyOf(shapes));
+
+        Assertions.assertEquals(expectedPathObject.getROI().getArea(), pathObjects.getFirst().getROI().getArea(), 0.001);
+    }
+
+    @Test
+    void Check_Path_Object_From_Overlapping_Shapes_Of_Same_Id() {
+        PathObject rectangle = PathObjects.createAnnotationObject(ROIs.createRectangleROI(0, 0, 10, 10, ImagePlane.getDefaultPlane()));
+        PathObject otherRectangle = PathObjects.createAnnotationObject(ROIs.createRectangleROI(5, 0, 10, 10, ImagePlane.getDefaultPlane()));
+        otherRectangle.setID(rectangle.getID());
+        double expectedArea = 100;      // both rectangles without their 5x10 intersection
+
+        List<PathObject> pathObjects = Shape.createPathObjects(List.of(
+                new Rectangle(rectangle, false),
+                new Rectangle(otherRectangle, false)
+        ));
+
+        Assertions.assertEquals(expectedArea, pathObjects.getFirst().getROI().getArea(), 0.001);
+    }
+
+    @Test
+    void Check_Path_Object_From_Several_Points_Of_Same_Id() {
+        PathObject expectedPathObject = PathObjects.createAnnotationObject(ROIs.createPointsROI(
+                List.of(new Point2(4.5, -7.5), new Point2(12, 65.5), new Point2(0, 50)),
+                ImagePlane.getDefaultPlane()
+        ));
+        List<? extends Shape> shapes = ShapeCreator.createShapes(expectedPathObject, false);
+
+        List<PathObject> pathObjects = Shape.createPathObjects(List.copyOf(shapes));
+
+        TestUtils.assertCollectionsEqualsWithoutOrder(
+                expectedPathObject.getROI().getAllPoints(),
+                pathObjects.getFirst().getROI().getAllPoints()
+        );
+    }
+
+    @Test
+    void Check_Shape_On_Plane() {
+        Rectangle rectangle = new Rectangle(
+                PathObjects.createAnnotationObject(ROIs.createRectangleROI(4.5, -7.5, 12, 65.5, ImagePlane.getPlaneWithChannel(1, 2, 3))),
+                false
+        );
+
+        Assertions.assertTrue(rectangle.isOnPlane(2, 3));
+    }
+
+    @Test
+    void Check_Shape_Not_On_Plane() {
+        Rectangle rectangle = new Rectangle(
+                PathObjects.createAnnotationObject(ROIs.createRectangleROI(4.5, -7.5, 12, 65.5, ImagePlane.getPlaneWithChannel(1, 2, 3))),
+                false
+        );
+
+        Assertions.assertFalse(rectangle.isOnPlane(2, 4));
+    }
 }
@@ -0,0 +1,102 @@
+package qupath.ext.omero.core.apis.commonentities.shapes;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import qupath.lib.objects.PathObject;
+import qupath.lib.objects.PathObjects;
+import qupath.lib.regions.ImagePlane;
+import qupath.lib.roi.ROIs;
+
+import java.util.List;
+
+public class TestShapesDifference {
+
+    @Test
+    void Check_No_Difference_When_Shapes_Unchanged() {
+        PathObject pathObject = createRectangleAnnotation(4.5, -7.5, 12, 65.5);
+        Shape shape = new Rectangle(pathObject, false);
+        Shape existingShape = createExistingShape(shape, 83, 53);
+
+        ShapesDifference difference = ShapesDifference.compute(List.of(shape), List.of(existingShape));
+
+        Assertions.assertTrue(difference.isEmpty());
+    }
+
+    @Test
+    void Check_New_Shape_Added() {
+        Shape shape = new Rectangle(createRectangleAnnotation(4.5, -7.5, 12, 65.5), false);
+        Shape existingShape = createExistingShape(shape, 83, 53);
+        Shape newShape = new Rectangle(createRectangleAnnotation(1, 2, 3, 4), false);
+        List<Shape> expectedShapesToAdd = List.of(newShape);
+
+        ShapesDifference difference = ShapesDifference.compute(List.of(shape, newShape), List.of(existingShape));
+
+        Assertions.assertEquals(expectedShapesToAdd, difference.shapesToAdd());
+    }
+
+    @Test
+    void Check_Removed_Shape_Deleted() {
+        Shape shape = new Rectangle(createRectangleAnnotation(4.5, -7.5, 12, 65.5), false);
+        Shape existingShape = createExistingShape(shape, 83, 53);
+        Shape removedShape = createExistingShape(new Rectangle(createRectangleAnnotation(1, 2, 3, 4), false), 84, 54);
+        List<Shape> expectedShapesToDelete = List.of(removedShape);
+
+        ShapesDifference difference = ShapesDifference.compute(List.of(shape), List.of(existingShape, removedShape));
+
+        Assertions.assertEquals(expectedShapesToDelete, difference.shapesToDelete());
+    }
+
+    @Test
+    void Check_Changed_Shape_Modified() {
+        PathObject pathObject = createRectangleAnnotation(4.5, -7.5, 12, 65.5);
+        Shape existingShape = createExistingShape(new Rectangle(pathObject, false), 83, 53);
+        pathObject.setROI(ROIs.createRectangleROI(1, 2, 3, 4, ImagePlane.getDefaultPlane()));
+        Shape shape = new Rectangle(pathObject, false);
+        List<ShapesDifference.Modification> expectedShapesToModify = List.of(new ShapesDifference.Modification(shape, existingShape));
+
+        ShapesDifference difference = ShapesDifference.compute(List.of(shape), List.of(existingShape));
+
+        Assertions.assertEquals(expectedShapesToModify, difference.shapesToModify());
+    }
+
+    @Test
+    void Check_Modified_Shape_Json_Has_Ids_Of_Existing_Shape() {
+        PathObject pathObject = createRectangleAnnotation(4.5, -7.5, 12, 65.5);
+        Shape existingShape = createExistingShape(new Rectangle(pathObject, false), 83, 53);
+        pathObject.setROI(ROIs.createRectangleROI(1, 2, 3, 4, ImagePlane.getDefaultPlane()));
+        Shape shape = new Rectangle(pathObject, false);
+
+        JsonObject json = JsonParser.parseString(new ShapesDifference.Modification(shape, existingShape).createJson()).getAsJsonObject();
+
+        Assertions.assertEquals(83, json.get("@id").getAsLong());
+        Assertions.assertEquals("53:83", json.get("oldId").getAsString());
+    }
+
+    @Test
+    void Check_Shape_With_Different_Type_Deleted_And_Added() {
+        PathObject pathObject = createRectangleAnnotation(4.5, -7.5, 12, 65.5);
+        Shape existingShape = createExistingShape(new Rectangle(pathObject, false), 83, 53);
+        pathObject.setROI(ROIs.createEllipseROI(1, 2, 3, 4, ImagePlane.getDefaultPlane()));
+        Shape shape = new Ellipse(pathObject, false);
+
+        ShapesDifference difference = ShapesDifference.compute(List.of(shape), List.of(existingShape));
+
+        Assertions.assertEquals(
+                new ShapesDifference(List.of(shape), List.of(), List.of(existingShape)),
+                difference
+        );
+    }
+
+    private static PathObject createRectangleAnnotation(double x, double y, double width, double height) {
+        return PathObjects.createAnnotationObject(ROIs.createRectangleROI(x, y, width, height, ImagePlane.getDefaultPlane()));
+    }
+
+    private static Shape createExistingShape(Shape shape, long id, long roiId) {
+        JsonObject json = JsonParser.parseString(shape.createJson()).getAsJsonObject();
+        json.addProperty("@id", id);
+
+        return ShapeCreator.createShape(json, roiId);
+    }
+}
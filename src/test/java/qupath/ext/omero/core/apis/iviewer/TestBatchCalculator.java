@@ -6,19 +6,17 @@ import qupath.ext.omero.TestUtils;
 
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.function.Function;
 
 public class TestBatchCalculator {
 
     @Test
     void Check_Split_Empty_List() {
-        List<Object> objects = List.of();
+        List<String> objects = List.of();
         long maxBatchSize = 10;
-        Function<List<Object>, Long> batchSizeGetter = o -> 0L;
 
         Assertions.assertThrows(
                 NoSuchElementException.class,
-                () -> BatchCalculator.splitObjectsIntoBatches(objects, maxBatchSize, batchSizeGetter)
+                () -> BatchCalculator.splitObjectsIntoBatches(objects, maxBatchSize, 0, 0, String::length)
         );
     }
 
@@ -26,12 +24,11 @@ public class TestBatchCalculator {
     void Check_Split_Single_Element_List() {
         List<String> objects = List.of("a");
         long maxBatchSize = 4;
-        Function<List<String>, Long> batchSizeGetter = strings -> (long) strings.stream().mapToInt(String::length).sum();
         List<List<String>> expectedBatches = List.of(
                 List.of("a")
         );
 
-        List<List<String>> batches = BatchCalculator.splitObjectsIntoBatches(objects, maxBatchSize, batchSizeGetter);
+        List<List<String>> batches = BatchCalculator.splitObjectsIntoBatches(objects, maxBatchSize, 0, 0, String::length);
 
         TestUtils.assertCollectionsEqualsWithoutOrder(expectedBatches, batches);
     }
@@ -40,14 +37,29 @@ public class TestBatchCalculator {
     void Check_Split_Regular_List() {
         List<String> objects = List.of("a", "bb", "ccc", "dddd");
         long maxBatchSize = 4;
-        Function<List<String>, Long> batchSizeGetter = strings -> (long) strings.stream().mapToInt(String::length).sum();
         List<List<String>> expectedBatches = List.of(
                 List.of("a", "bb"),
                 List.of("ccc"),
                 List.of("dddd")
         );
 
-        List<List<String>> batches = BatchCalculator.splitObjectsIntoBatches(objects, maxBatchSize, batchSizeGetter);
+        List<List<String>> batches = BatchCalculator.splitObjectsIntoBatches(objects, maxBatchSize, 0, 0, String::length);
+
+        TestUtils.assertCollectionsEqualsWithoutOrder(expectedBatches, batches);
+    }
+
+    @Test
+    void Check_Split_With_Empty_Batch_Size_And_Delimiter() {
+        List<String> objects = List.of("a", "b", "c", "dd", "e");
+        long maxBatchSize = 8;
+        long emptyBatchSize = 2;
+        long delimiterSize = 1;
+        List<List<String>> expectedBatches = List.of(
+                List.of("a", "b", "c"),
+                List.of("dd", "e")
+        );
+
+        List<List<String>> batches = BatchCalculator.splitObjectsIntoBatches(objects, maxBatchSize, emptyBatchSize, delimiterSize, String::length);
 
         TestUtils.assertCollectionsEqualsWithoutOrder(expectedBatches, batches);
     }
@@ -56,7 +68,6 @@ public class TestBatchCalculator {
     void Check_Split_With_Big_Elements() {
         List<String> objects = List.of("a", "bbbbbbb", "cc", "dd", "eeeeeeeeee", "f");
         long maxBatchSize = 5;
-        Function<List<String>, Long> batchSizeGetter = strings -> (long) strings.stream().mapToInt(String::length).sum();
         List<List<String>> expectedBatches = List.of(
                 List.of("a"),
                 List.of("bbbbbbb"),
@@ -65,7 +76,7 @@ public class TestBatchCalculator {
                 List.of("f")
         );
 
-        List<List<String>> batches = BatchCalculator.splitObjectsIntoBatches(objects, maxBatchSize, batchSizeGetter);
+        List<List<String>> batches = BatchCalculator.splitObjectsIntoBatches(objects, maxBatchSize, 0, 0, String::length);
 
         TestUtils.assertCollectionsEqualsWithoutOrder(expectedBatches, batches);
     }
@@ -15,6 +15,7 @@ import qupath.ext.omero.core.apis.json.jsonentities.shapes.OmeroEllipse;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 public class TestIViewerApi extends OmeroServer {
@@ -63,15 +64,22 @@ public class TestIViewerApi extends OmeroServer {
         }
 
         @Test
-        void Check_Shapes_Cannot_Be_Deleted_With_Invalid_Image_Id() {
+        void Check_Rois_Cannot_Be_Deleted_With_Invalid_Image_Id() {
             long invalidId = -1;
 
             Assertions.assertThrows(
                     ExecutionException.class,
-                    () -> iViewerApi.deleteShapes(invalidId, List.of()).get()
+                    () -> iViewerApi.deleteRois(invalidId, Map.of(1L, List.of(1L))).get()
             );
         }
 
+        @Test
+        void Check_No_Rois_Deleted_Without_Request() {
+            long invalidId = -1;
+
+            Assertions.assertDoesNotThrow(() -> iViewerApi.deleteRois(invalidId, Map.of()).get());
+        }
+
         @Test
         void Check_Image_Data() throws ExecutionException, InterruptedException {
             long imageId = OmeroServer.getFloat32Image(userType).id();
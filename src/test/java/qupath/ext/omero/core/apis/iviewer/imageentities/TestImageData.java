@@ -40,4 +40,21 @@ public class TestImageData {
 
         TestUtils.assertCollectionsEqualsWithoutOrder(expectedChannelSettings, channelSettings);
     }
+
+    @Test
+    void Check_Active_Channels() {
+        List<Integer> expectedActiveChannels = List.of(0, 2);
+        ImageData imageData = new ImageData(new OmeroImageData(
+                new OmeroImageMetadata(""),
+                List.of(
+                        new OmeroImageChannel("Channel 1", "00FF00", new OmeroWindow(5.345, 23.87), true),
+                        new OmeroImageChannel("Channel 2", "0000FF", new OmeroWindow(90d, 180d), false),
+                        new OmeroImageChannel("Channel 3", "FF0000", new OmeroWindow(0d, 255d))
+                )
+        ));
+
+        List<Integer> activeChannels = imageData.getActiveChannels();
+
+        Assertions.assertEquals(expectedActiveChannels, activeChannels);
+    }
 }
@@ -22,6 +22,7 @@ import qupath.ext.omero.core.apis.json.repositoryentities.serverentities.Well;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 
@@ -867,6 +868,26 @@ public class TestJsonApi extends OmeroServer {
 
             Assertions.assertEquals(expectedShapes, shapes);
         }
+
+        @Test
+        void Check_Get_Shapes_Of_Plane_With_Invalid_Image_Id() throws ExecutionException, InterruptedException {
+            long invalidImageId = -1;
+            List<Shape> expectedShapes = List.of();
+
+            List<Shape> shapes = jsonApi.getShapes(invalidImageId, -1, 0, 0).get();
+
+            Assertions.assertEquals(expectedShapes, shapes);
+        }
+
+        @Test
+        void Check_Get_Shape_Ids_With_Invalid_Image_Id() throws ExecutionException, InterruptedException {
+            long invalidImageId = -1;
+            Map<Long, List<Long>> expectedShapeIds = Map.of();
+
+            Map<Long, List<Long>> shapeIds = jsonApi.getShapeIds(invalidImageId, -1).get();
+
+            Assertions.assertEquals(expectedShapeIds, shapeIds);
+        }
     }
 
     @Nested
@@ -10,6 +10,7 @@ import qupath.ext.omero.core.Client;
 import qupath.ext.omero.core.apis.json.jsonentities.server.image.OmeroPhysicalSize;
 import qupath.ext.omero.core.apis.json.repositoryentities.RepositoryEntity;
 import qupath.ext.omero.core.apis.json.repositoryentities.Server;
+import qupath.lib.images.servers.ImageServerMetadata;
 import qupath.lib.images.servers.PixelType;
 
 import java.util.Date;
@@ -212,6 +213,18 @@ public class TestImage extends OmeroServer {
 
             Assertions.assertEquals(expectedPixelType, pixelType);
         }
+
+        @Test
+        void Check_Provisional_Metadata() {
+            ImageServerMetadata metadata = image.createProvisionalMetadata().orElseThrow();
+
+            Assertions.assertEquals(OmeroServer.getImageSizeX(), metadata.getWidth());
+            Assertions.assertEquals(OmeroServer.getImageSizeY(), metadata.getHeight());
+            Assertions.assertEquals(OmeroServer.getImageSizeZ(), metadata.getSizeZ());
+            Assertions.assertEquals(OmeroServer.getImageSizeC(), metadata.nChannels());
+            Assertions.assertEquals(OmeroServer.getImageSizeT(), metadata.getSizeT());
+            Assertions.assertEquals(OmeroServer.getImagePixelType(userType), metadata.getPixelType());
+        }
     }
 
     @Nested
@@ -0,0 +1,165 @@
+package qupath.ext.omero.core.apis.webgateway;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import qupath.lib.images.servers.ImageChannel;
+import qupath.lib.images.servers.ImageServerMetadata;
+import qupath.lib.images.servers.PixelType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+public class TestImageMetadataStore {
+
+    private static final long MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final int MAX_NUMBER_OF_ENTRIES = 10;
+    @TempDir
+    private Path directory;
+
+    @Test
+    void Check_Metadata_Not_Found_When_Not_Saved() {
+        ImageMetadataStore store = new ImageMetadataStore(directory, MAX_AGE_MILLIS, MAX_NUMBER_OF_ENTRIES);
+
+        Assertions.assertTrue(store.get(1).isEmpty());
+    }
+
+    @Test
+    void Check_Saved_Metadata() {
+        ImageServerMetadata expectedMetadata = createMetadata("image");
+        ImageMetadataStore store = new ImageMetadataStore(directory, MAX_AGE_MILLIS, MAX_NUMBER_OF_ENTRIES);
+        store.put(1, expectedMetadata);
+
+        ImageServerMetadata metadata = store.get(1).orElseThrow().metadata();
+
+        Assertions.assertEquals(expectedMetadata, metadata);
+    }
+
+    @Test
+    void Check_Saved_Metadata_Replaced() {
+        ImageServerMetadata expectedMetadata = createMetadata("new image");
+        ImageMetadataStore store = new ImageMetadataStore(directory, MAX_AGE_MILLIS, MAX_NUMBER_OF_ENTRIES);
+        store.put(1, createMetadata("image"));
+        store.put(1, expectedMetadata);
+
+        ImageServerMetadata metadata = store.get(1).orElseThrow().metadata();
+
+        Assertions.assertEquals(expectedMetadata, metadata);
+    }
+
+    @Test
+    void Check_Saved_Metadata_Read_By_Other_Store() {
+        ImageServerMetadata expectedMetadata = createMetadata("image");
+        new ImageMetadataStore(directory, MAX_AGE_MILLIS, MAX_NUMBER_OF_ENTRIES).put(1, expectedMetadata);
+
+        ImageServerMetadata metadata = new ImageMetadataStore(directory, MAX_AGE_MILLIS, MAX_NUMBER_OF_ENTRIES)
+                .get(1)
+                .orElseThrow()
+                .metadata();
+
+        Assertions.assertEquals(expectedMetadata, metadata);
+    }
+
+    @Test
+    void Check_Expired_Metadata_Not_Returned() {
+        new ImageMetadataStore(directory, MAX_AGE_MILLIS, MAX_NUMBER_OF_ENTRIES).put(1, createMetadata("image"));
+        ImageMetadataStore store = new ImageMetadataStore(directory, -1, MAX_NUMBER_OF_ENTRIES);
+
+        Assertions.assertTrue(store.get(1).isEmpty());
+    }
+
+    @Test
+    void Check_Expired_Metadata_Deleted() throws IOException {
+        new ImageMetadataStore(directory, MAX_AGE_MILLIS, MAX_NUMBER_OF_ENTRIES).put(1, createMetadata("image"));
+        ImageMetadataStore store = new ImageMetadataStore(directory, -1, MAX_NUMBER_OF_ENTRIES);
+
+        store.get(1);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            Assertions.assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void Check_Removed_Metadata() {
+        ImageMetadataStore store = new ImageMetadataStore(directory, MAX_AGE_MILLIS, MAX_NUMBER_OF_ENTRIES);
+        store.put(1, createMetadata("image"));
+
+        store.remove(1);
+
+        Assertions.assertTrue(store.get(1).isEmpty());
+    }
+
+    @Test
+    void Check_Other_Metadata_Not_Removed() {
+        ImageServerMetadata expectedMetadata = createMetadata("other image");
+        ImageMetadataStore store = new ImageMetadataStore(directory, MAX_AGE_MILLIS, MAX_NUMBER_OF_ENTRIES);
+        store.put(1, createMetadata("image"));
+        store.put(2, expectedMetadata);
+
+        store.remove(1);
+
+        Assertions.assertEquals(expectedMetadata, store.get(2).orElseThrow().metadata());
+    }
+
+    @Test
+    void Check_Old_Metadata_Pruned() throws IOException {
+        new ImageMetadataStore(directory, MAX_AGE_MILLIS, MAX_NUMBER_OF_ENTRIES).put(1, createMetadata("image"));
+        setFilesLastModifiedTime(System.currentTimeMillis() - 2 * MAX_AGE_MILLIS);
+        ImageMetadataStore store = new ImageMetadataStore(directory, MAX_AGE_MILLIS, MAX_NUMBER_OF_ENTRIES);
+
+        store.put(2, createMetadata("other image"));    // the first save of a store prunes it
+
+        try (Stream<Path> files = Files.list(directory)) {
+            Assertions.assertEquals(List.of(directory.resolve("2.json")), files.toList());
+        }
+    }
+
+    @Test
+    void Check_Least_Recent_Metadata_Pruned_When_Too_Many_Entries() throws IOException {
+        ImageMetadataStore oldStore = new ImageMetadataStore(directory, MAX_AGE_MILLIS, MAX_NUMBER_OF_ENTRIES);
+        for (int i=0; i<MAX_NUMBER_OF_ENTRIES; i++) {
+            oldStore.put(i, createMetadata("image " + i));
+        }
+        setFilesLastModifiedTime(System.currentTimeMillis() - MAX_AGE_MILLIS / 2);
+        ImageMetadataStore store = new ImageMetadataStore(directory, MAX_AGE_MILLIS, MAX_NUMBER_OF_ENTRIES);
+
+        store.put(MAX_NUMBER_OF_ENTRIES, createMetadata("new image"));    // the first save of a store prunes it
+
+        try (Stream<Path> files = Files.list(directory)) {
+            Assertions.assertEquals(MAX_NUMBER_OF_ENTRIES, files.count());
+        }
+        Assertions.assertTrue(store.get(MAX_NUMBER_OF_ENTRIES).isPresent());
+    }
+
+    @Test
+    void Check_Nothing_Stored_Without_Directory() {
+        ImageMetadataStore store = new ImageMetadataStore(null, MAX_AGE_MILLIS, MAX_NUMBER_OF_ENTRIES);
+        store.put(1, createMetadata("image"));
+
+        Assertions.assertTrue(store.get(1).isEmpty());
+    }
+
+    private void setFilesLastModifiedTime(long time) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file: files.toList()) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(time));
+            }
+        }
+    }
+
+    private static ImageServerMetadata createMetadata(String name) {
+        return new ImageServerMetadata.Builder()
+                .name(name)
+                .pixelType(PixelType.UINT8)
+                .width(256)
+                .height(256)
+                .channels(ImageChannel.getDefaultChannelList(2))
+                .build();
+    }
+}
@@ -11,6 +11,7 @@ import qupath.lib.images.servers.ImageServerBuilder;
 
 import java.awt.image.BufferedImage;
 import java.net.URI;
+import java.util.List;
 
 public class TestOmeroImageServerBuilder extends OmeroServer {
 
@@ -39,6 +40,53 @@ public class TestOmeroImageServerBuilder extends OmeroServer {
             }
         }
 
+        @Test
+        void Check_Lazily_Built_Server_Has_Resolution_Levels_Of_Image() {
+            URI imageURI = OmeroServer.getImageUri(imageId);
+            String[] args = new String[] {
+                    "--pixelAPI", "Pixel Buffer Microservice",
+                    "--usertype", switch (userType) {
+                        case UNAUTHENTICATED -> Credentials.UserType.PUBLIC_USER.name();
+                        case AUTHENTICATED -> Credentials.UserType.REGULAR_USER.name();
+                        case ADMIN -> null;
+                    }
+            };
+
+            try (
+                    ImageServer<BufferedImage> server = new OmeroImageServerBuilder().buildServer(imageURI, args);
+                    ImageServer<BufferedImage> lazyServer = OmeroImageServerBuilder.buildLazily(
+                            List.of(imageURI),
+                            () -> new OmeroImageServerBuilder().buildServer(imageURI, args)
+                    )
+            ) {
+                Assertions.assertArrayEquals(server.getPreferredDownsamples(), lazyServer.getPreferredDownsamples());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Test
+        void Check_Lazily_Built_Server_Builder_Not_Wrapped() {
+            URI imageURI = OmeroServer.getImageUri(imageId);
+
+            try (ImageServer<BufferedImage> server = OmeroImageServerBuilder.buildLazily(
+                    List.of(imageURI),
+                    () -> new OmeroImageServerBuilder().buildServer(
+                            imageURI,
+                            "--pixelAPI", "Pixel Buffer Microservice",
+                            "--usertype", switch (userType) {
+                                case UNAUTHENTICATED -> Credentials.UserType.PUBLIC_USER.name();
+                                case AUTHENTICATED -> Credentials.UserType.REGULAR_USER.name();
+                                case ADMIN -> null;
+                            }
+                    )
+            )) {
+                Assertions.assertInstanceOf(ImageServerBuilder.DefaultImageServerBuilder.class, server.getBuilder());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
         @Test
         void Check_Image_Support() {
             URI imageURI = OmeroServer.getImageUri(imageId);
@@ -0,0 +1,48 @@
+package qupath.ext.omero.core.pixelapis;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+public class TestRasterUtils {
+
+    @Test
+    void Check_Empty_Channels() {
+        BufferedImage image = new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RasterUtils.extractChannels(image, List.of()));
+    }
+
+    @Test
+    void Check_Invalid_Channel() {
+        BufferedImage image = new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RasterUtils.extractChannels(image, List.of(3)));
+    }
+
+    @Test
+    void Check_Number_Of_Bands() {
+        BufferedImage image = new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB);
+        int expectedNumberOfBands = 2;
+
+        BufferedImage extractedImage = RasterUtils.extractChannels(image, List.of(2, 0));
+
+        Assertions.assertEquals(expectedNumberOfBands, extractedImage.getRaster().getNumBands());
+    }
+
+    @Test
+    void Check_Extracted_Values() {
+        BufferedImage image = new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(1, 1, 0x123456);
+        List<Integer> expectedValues = List.of(0x56, 0x12);
+
+        BufferedImage extractedImage = RasterUtils.extractChannels(image, List.of(2, 0));
+
+        Assertions.assertEquals(
+                expectedValues,
+                List.of(extractedImage.getRaster().getSample(1, 1, 0), extractedImage.getRaster().getSample(1, 1, 1))
+        );
+    }
+}
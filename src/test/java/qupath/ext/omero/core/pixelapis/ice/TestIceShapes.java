@@ -0,0 +1,66 @@
+package qupath.ext.omero.core.pixelapis.ice;
+
+import omero.rtypes;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import qupath.ext.omero.core.apis.commonentities.shapes.Shape;
+import qupath.ext.omero.core.apis.commonentities.shapes.ShapeCreator;
+import qupath.lib.geom.Point2;
+import qupath.lib.objects.PathObject;
+import qupath.lib.objects.PathObjects;
+import qupath.lib.objects.classes.PathClass;
+import qupath.lib.regions.ImagePlane;
+import qupath.lib.roi.ROIs;
+import qupath.lib.roi.interfaces.ROI;
+
+import java.util.List;
+
+public class TestIceShapes {
+
+    @Test
+    void Check_Rectangle_Converted_Back_And_Forth() {
+        assertShapeConvertedBackAndForth(ROIs.createRectangleROI(4.5, -7.5, 12, 65.5, ImagePlane.getPlaneWithChannel(1, 2, 3)));
+    }
+
+    @Test
+    void Check_Ellipse_Converted_Back_And_Forth() {
+        assertShapeConvertedBackAndForth(ROIs.createEllipseROI(4.5, -7.5, 12, 65.5, ImagePlane.getPlaneWithChannel(1, 2, 3)));
+    }
+
+    @Test
+    void Check_Line_Converted_Back_And_Forth() {
+        assertShapeConvertedBackAndForth(ROIs.createLineROI(4.5, -7.5, 12, 65.5, ImagePlane.getPlaneWithChannel(1, 2, 3)));
+    }
+
+    @Test
+    void Check_Point_Converted_Back_And_Forth() {
+        assertShapeConvertedBackAndForth(ROIs.createPointsROI(4.5, -7.5, ImagePlane.getPlaneWithChannel(1, 2, 3)));
+    }
+
+    @Test
+    void Check_Polygon_Converted_Back_And_Forth() {
+        assertShapeConvertedBackAndForth(ROIs.createPolygonROI(
+                List.of(new Point2(4.5, -7.5), new Point2(12, 65.5), new Point2(0, 50)),
+                ImagePlane.getPlaneWithChannel(1, 2, 3)
+        ));
+    }
+
+    @Test
+    void Check_Polyline_Converted_Back_And_Forth() {
+        assertShapeConvertedBackAndForth(ROIs.createPolylineROI(
+                List.of(new Point2(4.5, -7.5), new Point2(12, 65.5), new Point2(0, 50)),
+                ImagePlane.getPlaneWithChannel(1, 2, 3)
+        ));
+    }
+
+    private static void assertShapeConvertedBackAndForth(ROI roi) {
+        PathObject pathObject = PathObjects.createAnnotationObject(roi, PathClass.fromString("some class", 5));
+        Shape shape = ShapeCreator.createShapes(pathObject, true).getFirst();
+        omero.model.Shape iceShape = IceShapes.createIceShape(shape);
+        iceShape.setId(rtypes.rlong(83));
+
+        Shape convertedShape = IceShapes.createShape(iceShape, 53);
+
+        Assertions.assertEquals(shape.createJson(convertedShape), convertedShape.createJson());
+    }
+}